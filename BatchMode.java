@@ -0,0 +1,170 @@
+import java.io.*; // Importing classes for reading commands and writing results
+import java.util.ArrayList; // Importing ArrayList for the words of a command
+import java.util.List; // Importing List interface for list operations
+
+/**
+ *
+ * Description:
+ * The BatchMode class runs TaskManager without menus, for scripts and automation. It reads one
+ * command per line from a file or standard input and hands each one to an Executor, which
+ * writes its results through row(). Words are separated by spaces; a word containing spaces
+ * is written in double quotes, and a quote inside it is doubled. Blank lines and lines
+ * starting with # are skipped.
+ *
+ * Every result is one line of tab-separated fields, so it can be read with cut, awk or a CSV
+ * reader set to tabs. The first field says what the line is: "ok" when a command succeeded,
+ * "error" followed by the line number and the message when it failed, or a record type such
+ * as "task" for listed records. Tabs, line breaks and backslashes inside fields are written
+ * as \t, \n and \\. Output is buffered and written when the batch ends or is flushed.
+ * A failed command does not stop the batch; the last line is
+ *   done, number of commands run, number that failed
+ */
+public class BatchMode {
+
+    /**
+     * Runs one command of a batch.
+     */
+    public interface Executor {
+        /**
+         * Runs a command and writes its results.
+         *
+         * @param command The first word of the line, in lower case
+         * @param args    The remaining words
+         * @param output  Where the results are written
+         * @throws IllegalArgumentException if the command or its arguments are not valid;
+         *                                  the message is reported as an error line
+         */
+        void execute(String command, List<String> args, BatchMode output);
+    }
+
+    // Where the commands are read from
+    private final BufferedReader in;
+    // Where the results are written
+    private final PrintWriter out;
+
+    /**
+     * Constructs a batch reading commands from one stream and writing results to another.
+     *
+     * @param in  The commands
+     * @param out The results; the caller closes it
+     */
+    public BatchMode(Reader in, Writer out) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        this.out = new PrintWriter(new BufferedWriter(out, 1 << 16), false);
+    }
+
+    /**
+     * Runs every command until the input ends.
+     *
+     * @param executor Runs each command
+     * @return The number of commands that failed
+     * @throws IOException if the commands cannot be read
+     */
+    public int run(Executor executor) throws IOException {
+        int lineNumber = 0;
+        int commands = 0;
+        int failed = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            commands++;
+            try {
+                List<String> words = tokenize(trimmed);
+                String command = words.remove(0).toLowerCase();
+                executor.execute(command, words, this);
+            } catch (IllegalArgumentException e) {
+                failed++;
+                row("error", String.valueOf(lineNumber), e.getMessage());
+            }
+        }
+        row("done", String.valueOf(commands), String.valueOf(failed));
+        out.flush();
+        return failed;
+    }
+
+    /**
+     * Writes one result line.
+     *
+     * @param fields The fields of the line
+     */
+    public void row(String... fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.print('\t');
+            }
+            out.print(escape(fields[i]));
+        }
+        out.print('\n');
+    }
+
+    /**
+     * Writes the buffered results, for instance at a checkpoint.
+     */
+    public void flush() {
+        out.flush();
+    }
+
+    // This method escapes the characters that would break the line and field structure.
+    private static String escape(String field) {
+        if (field == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            String replacement = c == '\t' ? "\\t" : c == '\n' ? "\\n" : c == '\r' ? "\\r" : c == '\\' ? "\\\\" : null;
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(field.length() + 8).append(field, 0, i);
+            }
+            if (escaped != null) {
+                escaped.append(replacement != null ? replacement : String.valueOf(c));
+            }
+        }
+        return escaped == null ? field : escaped.toString();
+    }
+
+    // This method splits a command line into words. Text in double quotes is kept together,
+    // with the quotes removed and a doubled quote standing for one quote.
+    private static List<String> tokenize(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        boolean inWord = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    word.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    word.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                inWord = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inWord) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    inWord = false;
+                }
+            } else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Missing closing quote.");
+        }
+        if (inWord) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+}
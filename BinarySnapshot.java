@@ -0,0 +1,231 @@
+import java.io.*; // Importing classes for file input/output operations
+import java.nio.MappedByteBuffer; // Importing the buffer the file is read through
+import java.nio.channels.FileChannel; // Importing class used to map the file into memory
+import java.nio.charset.StandardCharsets; // Importing the charset used for strings
+import java.nio.file.StandardOpenOption; // Importing options used to open the file
+import java.time.LocalDate; // Importing class used to convert deadlines to epoch days
+import java.util.ArrayList; // Importing ArrayList for the lists of tasks and goals
+import java.util.Arrays; // Importing Arrays for filling the category positions
+import java.util.List; // Importing List interface for list operations
+
+/**
+ *
+ * Description:
+ * The BinarySnapshot class reads and writes the binary data file. Reading maps the file into
+ * memory and decodes it in one pass, so no line splitting or text parsing is needed at startup.
+ *
+ * Layout (all numbers big-endian):
+ *   header: int magic "TMSB", short version, long journal sequence, int task count, int goal count,
+ *           then (version 2) int highest task ID and int highest goal ID handed out,
+ *           then (version 3) int category count and each category as a length-prefixed UTF-8 string
+ *   task:   (version 2) int ID, byte flags, byte priority (Priority ordinal), int deadline as epoch day,
+ *           name and description as length-prefixed UTF-8 strings, then the category: (version 3)
+ *           an int position in the header's category list, or (before) a length-prefixed string,
+ *           then the raw deadline and/or raw priority strings if the matching flag is set
+ *           (tasks always hold a valid deadline and priority now, so only older files carry them)
+ *   goal:   (version 2) int ID, byte flags, name as a length-prefixed UTF-8 string,
+ *           then (version 2) int task count and that many int task IDs
+ * A length-prefixed string is an int byte count followed by the UTF-8 bytes. Version 1 files
+ * have no IDs; their tasks and goals are given new IDs when read. Writing each category once
+ * keeps the file smaller, and reading gives every task the shared instance from SymbolTable.
+ */
+public class BinarySnapshot {
+
+    // Magic number at the start of every binary data file ("TMSB")
+    private static final int MAGIC = 0x544D5342;
+    // Version of the layout written by this class
+    private static final short VERSION = 3;
+
+    // Flag bits stored in the first byte of each record
+    private static final int FLAG_COMPLETE = 1;     // The task or goal is complete
+    private static final int FLAG_RAW_DEADLINE = 2; // The deadline is not a valid date and is stored as text
+    private static final int FLAG_RAW_PRIORITY = 4; // The priority is stored as text
+
+    /**
+     * Encodes the given tasks and goals in the binary format.
+     *
+     * @param sequence Sequence number of the last journal record included
+     * @param tasks    The tasks to encode
+     * @param goals    The goals to encode
+     * @return The encoded file contents
+     */
+    public static byte[] encode(long sequence, List<Task> tasks, List<Goal> goals) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(52 * (tasks.size() + goals.size()) + 30);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(sequence);
+            out.writeInt(tasks.size());
+            out.writeInt(goals.size());
+            out.writeInt(Task.getLastId());
+            out.writeInt(Goal.getLastId());
+
+            // Number the categories in use in the order they are first seen
+            int[] positionOfCode = new int[SymbolTable.CATEGORIES.size()];
+            Arrays.fill(positionOfCode, -1);
+            List<String> categories = new ArrayList<>();
+            for (Task task : tasks) {
+                int code = task.getCategoryCode();
+                if (positionOfCode[code] < 0) {
+                    positionOfCode[code] = categories.size();
+                    categories.add(task.getCategory());
+                }
+            }
+            out.writeInt(categories.size());
+            for (String category : categories) {
+                writeString(out, category);
+            }
+
+            for (Task task : tasks) {
+                out.writeInt(task.getId());
+                out.writeByte(task.isComplete() ? FLAG_COMPLETE : 0);
+                out.writeByte(task.getPriorityLevel().ordinal());
+                out.writeInt(task.getDeadlineEpochDay());
+                writeString(out, task.getName());
+                writeString(out, task.getDescription());
+                out.writeInt(positionOfCode[task.getCategoryCode()]);
+            }
+
+            for (Goal goal : goals) {
+                out.writeInt(goal.getId());
+                out.writeByte(goal.isComplete() ? FLAG_COMPLETE : 0);
+                writeString(out, goal.getName());
+                int[] taskIds = goal.getTaskIds();
+                out.writeInt(taskIds.length);
+                for (int taskId : taskIds) {
+                    out.writeInt(taskId);
+                }
+            }
+        } catch (IOException e) {
+            // A ByteArrayOutputStream never throws
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a binary data file through a memory-mapped buffer.
+     *
+     * @param file The file to read
+     * @return The tasks, goals and sequence number read from the file
+     * @throws IOException if the file cannot be read or is not a valid binary data file
+     */
+    public static SnapshotContents read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary data file is too large to map: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                short version = readVersion(buffer, file);
+                long sequence = buffer.getLong();
+                int taskCount = buffer.getInt();
+                int goalCount = buffer.getInt();
+                boolean hasIds = version >= 2;
+                if (hasIds) {
+                    Task.reserveIds(buffer.getInt());
+                    Goal.reserveIds(buffer.getInt());
+                }
+                byte[] scratch = new byte[256]; // Reused for decoding strings
+                String[] categories = new String[version >= 3 ? buffer.getInt() : 0];
+                for (int i = 0; i < categories.length; i++) {
+                    String category = readString(buffer, scratch);
+                    categories[i] = SymbolTable.CATEGORIES.name(SymbolTable.CATEGORIES.intern(category));
+                }
+
+                List<Task> tasks = new ArrayList<>(taskCount);
+                TaskStore store = new TaskStore(taskCount); // One store for every task in the file
+                Priority[] priorities = Priority.values();
+                for (int i = 0; i < taskCount; i++) {
+                    int id = hasIds ? buffer.getInt() : 0;
+                    int flags = buffer.get();
+                    byte priorityCode = buffer.get();
+                    int epochDay = buffer.getInt();
+                    String name = readString(buffer, scratch);
+                    String description = readString(buffer, scratch);
+                    String category = version >= 3 ? categories[buffer.getInt()] : readString(buffer, scratch);
+
+                    Task task;
+                    if (hasIds && (flags & (FLAG_RAW_DEADLINE | FLAG_RAW_PRIORITY)) == 0) {
+                        // The deadline and priority go into the store as they are in the file
+                        task = new Task(store, id, name, description, category, epochDay, priorities[priorityCode]);
+                    } else {
+                        // Older files: raw strings kept next to the codes, or no IDs
+                        String deadline = (flags & FLAG_RAW_DEADLINE) != 0
+                                ? readString(buffer, scratch) : LocalDate.ofEpochDay(epochDay).toString();
+                        String priority = (flags & FLAG_RAW_PRIORITY) != 0
+                                ? readString(buffer, scratch) : priorities[priorityCode].getLabel();
+                        task = hasIds
+                                ? new Task(store, id, name, description, category, deadline, priority)
+                                : new Task(store, name, description, category, deadline, priority);
+                    }
+                    task.setComplete((flags & FLAG_COMPLETE) != 0);
+                    tasks.add(task);
+                }
+
+                List<Goal> goals = new ArrayList<>(goalCount);
+                for (int i = 0; i < goalCount; i++) {
+                    int id = hasIds ? buffer.getInt() : 0;
+                    int flags = buffer.get();
+                    String name = readString(buffer, scratch);
+                    Goal goal = hasIds ? new Goal(id, name) : new Goal(name);
+                    goal.setComplete((flags & FLAG_COMPLETE) != 0);
+                    int linkCount = hasIds ? buffer.getInt() : 0;
+                    for (int j = 0; j < linkCount; j++) {
+                        goal.addTaskId(buffer.getInt());
+                    }
+                    goals.add(goal);
+                }
+                return new SnapshotContents(sequence, tasks, goals, 0, hasIds);
+            } catch (RuntimeException e) {
+                // Covers a truncated buffer, an out-of-range priority code, an invalid deadline or ID
+                throw new IOException("Corrupt binary data file: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Reads only the journal sequence number from the header of a binary data file.
+     *
+     * @param file The file to read
+     * @return The sequence number recorded in the file
+     * @throws IOException if the file cannot be read or is not a valid binary data file
+     */
+    public static long readSequence(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a binary data file: " + file);
+            }
+            in.readShort(); // Skip the version
+            return in.readLong();
+        }
+    }
+
+    // This method checks the magic number and returns the version, if it can be read.
+    private static short readVersion(MappedByteBuffer buffer, File file) throws IOException {
+        if (buffer.remaining() < 22 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary data file: " + file);
+        }
+        short version = buffer.getShort();
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary data file version " + version + ": " + file);
+        }
+        return version;
+    }
+
+    // This method writes a string as an int byte count followed by its UTF-8 bytes.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    // This method reads a length-prefixed UTF-8 string, growing the scratch array if needed.
+    private static String readString(MappedByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        byte[] target = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(target, 0, length);
+        return new String(target, 0, length, StandardCharsets.UTF_8);
+    }
+
+}
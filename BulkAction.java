@@ -0,0 +1,38 @@
+/**
+ *
+ * Description:
+ * The BulkAction enum lists the changes that can be applied at once to every task matching a
+ * filter. Its name is stored in the journal record of a bulk change, so a change made by one
+ * run of the program can be replayed by the next.
+ */
+public enum BulkAction {
+    COMPLETE("Mark as complete"),   // Mark every task as complete
+    REMOVE("Remove"),               // Remove every task
+    CATEGORY("Change category"),    // Give every task the same category
+    PRIORITY("Change priority");    // Give every task the same priority
+
+    // The description shown in the menu
+    private final String label;
+
+    BulkAction(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the description of the action shown in the menu.
+     *
+     * @return The description of the action
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Checks whether the action needs a value, such as the new category.
+     *
+     * @return True if a value must be given, otherwise false
+     */
+    public boolean needsValue() {
+        return this == CATEGORY || this == PRIORITY;
+    }
+}
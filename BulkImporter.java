@@ -0,0 +1,230 @@
+import java.io.*; // Importing classes for file input/output operations
+import java.nio.charset.StandardCharsets; // Importing the charset used for import files
+import java.util.ArrayList; // Importing ArrayList for the records read and the rejected lines
+import java.util.List; // Importing List interface for list operations
+
+/**
+ *
+ * Description:
+ * The BulkImporter class reads tasks and goals from a file in one streaming pass, for adding
+ * a large backlog at once. Each line may be in the native format written by the text data
+ * file ("Task:..." or "Goal:...", escaped if they follow a header naming the escaped format,
+ * as in an exported file) or a CSV row of
+ *   name,description,category,deadline,priority[,complete]
+ * where fields containing commas, quotes or line breaks are wrapped in double quotes and a
+ * quote inside them is doubled. A first CSV row whose first field is "name" is taken as a
+ * header and skipped. Rows are checked with the same date and priority rules as the menus,
+ * and every line that fails is recorded with its line number and the reason, so the caller
+ * can report it instead of stopping the import.
+ */
+public class BulkImporter {
+
+    /**
+     * A line that could not be imported.
+     */
+    public static class Rejection {
+        private final int lineNumber; // The line number in the file, starting at 1
+        private final String reason;  // Why the line was rejected
+        private final String line;    // The text of the line
+
+        Rejection(int lineNumber, String reason, String line) {
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+            this.line = line;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + lineNumber + ": " + reason + ": " + line;
+        }
+    }
+
+    // The tasks read, in file order
+    private final List<Task> tasks = new ArrayList<>();
+    // Holds the fields of the tasks read
+    private final TaskStore store = new TaskStore();
+    // The goals read, in file order
+    private final List<Goal> goals = new ArrayList<>();
+    // The lines that could not be imported, in file order
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    /**
+     * Reads every task and goal in a file.
+     *
+     * @param file The file to read
+     * @throws IOException if the file cannot be read
+     */
+    public void read(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            int lineNumber = 0;
+            boolean firstRow = true;
+            boolean escaped = false; // Native lines are unescaped unless a header says otherwise
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int startLine = lineNumber;
+                if (line.startsWith("Snapshot:")) {
+                    escaped = TextSnapshot.headerHasEscapes(line.substring("Snapshot:".length()));
+                    continue;
+                }
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (line.startsWith(RecordCodec.TASK_PREFIX)) {
+                    Task task = RecordCodec.decodeTask(line, 0, line.length(), store, escaped);
+                    if (task != null) {
+                        tasks.add(task);
+                    } else {
+                        rejections.add(new Rejection(startLine, "invalid task record", line));
+                    }
+                } else if (line.startsWith(RecordCodec.GOAL_PREFIX)) {
+                    Goal goal = RecordCodec.decodeGoal(line, 0, line.length(), escaped);
+                    if (goal != null) {
+                        goals.add(goal);
+                    } else {
+                        rejections.add(new Rejection(startLine, "invalid goal record", line));
+                    }
+                } else {
+                    // A quoted CSV field may hold line breaks, so keep reading until the quotes close
+                    while (hasOpenQuote(line)) {
+                        String next = reader.readLine();
+                        if (next == null) {
+                            break;
+                        }
+                        lineNumber++;
+                        line = line + "\n" + next;
+                    }
+                    List<String> fields = splitCsv(line);
+                    if (fields == null) {
+                        rejections.add(new Rejection(startLine, "unclosed quote", line));
+                    } else if (!(firstRow && fields.get(0).trim().equalsIgnoreCase("name"))) {
+                        addCsvTask(startLine, line, fields);
+                    }
+                }
+                firstRow = false;
+            }
+        }
+    }
+
+    /**
+     * Gets the tasks read, with the IDs they had in the file, if any.
+     *
+     * @return The tasks in file order
+     */
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Gets the goals read, with the IDs they had in the file.
+     *
+     * @return The goals in file order
+     */
+    public List<Goal> getGoals() {
+        return goals;
+    }
+
+    /**
+     * Gets the lines that could not be imported.
+     *
+     * @return The rejected lines in file order
+     */
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+
+    /**
+     * Writes every rejected line and the reason to a report file.
+     *
+     * @param report The file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeRejections(File report) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(report), StandardCharsets.UTF_8))) {
+            for (Rejection rejection : rejections) {
+                writer.write(rejection.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    // This method validates a CSV row and adds the task it describes.
+    private void addCsvTask(int lineNumber, String line, List<String> fields) {
+        if (fields.size() < 5 || fields.size() > 6) {
+            rejections.add(new Rejection(lineNumber, "expected 5 or 6 fields but found " + fields.size(), line));
+            return;
+        }
+        String deadline = fields.get(3).trim();
+        String priority = fields.get(4).trim();
+        String complete = fields.size() == 6 ? fields.get(5).trim() : "false";
+        if (!RecordCodec.isValidDate(deadline)) {
+            rejections.add(new Rejection(lineNumber, "invalid deadline \"" + deadline + "\"", line));
+        } else if (!RecordCodec.isValidPriority(priority)) {
+            rejections.add(new Rejection(lineNumber, "invalid priority \"" + priority + "\"", line));
+        } else if (!complete.equalsIgnoreCase("true") && !complete.equalsIgnoreCase("false")) {
+            rejections.add(new Rejection(lineNumber, "invalid completion flag \"" + complete + "\"", line));
+        } else {
+            Task task = new Task(store, fields.get(0).trim(), fields.get(1).trim(), fields.get(2).trim(), deadline, priority);
+            task.setComplete(complete.equalsIgnoreCase("true"));
+            tasks.add(task);
+        }
+    }
+
+    // This method checks whether a CSV row ends inside a quoted field.
+    private static boolean hasOpenQuote(String line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quoted = !quoted; // A doubled quote toggles twice, which leaves the state unchanged
+            }
+        }
+        return quoted;
+    }
+
+    // This method splits a CSV row into fields, removing the quotes.
+    // It returns null if a quoted field is never closed.
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"'); // A doubled quote stands for one quote
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,114 @@
+// Import ArrayList for the results
+import java.util.ArrayList;
+// Import LinkedHashSet for the per-day task sets, which keep the order tasks were added in
+import java.util.LinkedHashSet;
+// Import List interface for list operations
+import java.util.List;
+// Import NavigableMap for range views of the index
+import java.util.NavigableMap;
+// Import TreeMap for keeping deadlines in date order
+import java.util.TreeMap;
+
+/**
+ *
+ * Description:
+ * The DeadlineIndex class keeps tasks sorted by deadline in a tree keyed by epoch day, with a
+ * second tree holding only the tasks that are not complete. Range questions such as "overdue",
+ * "due today" or "due in the next 7 days" walk only the days in the range, so they cost
+ * O(log n + k) for k results, and results come back in deadline order. Tasks on the same day
+ * are kept in a linked hash set, in the order they were added, so removing one costs the same
+ * however many tasks share its day. Tasks are told apart by ID, which is unique among the
+ * tasks in the index. A task must be taken out of the index before its deadline or completion
+ * changes and put back afterwards.
+ */
+public class DeadlineIndex {
+    // Epoch day to the tasks due that day
+    private final TreeMap<Integer, LinkedHashSet<Task>> all = new TreeMap<>();
+    // Epoch day to the tasks due that day that are not complete
+    private final TreeMap<Integer, LinkedHashSet<Task>> open = new TreeMap<>();
+
+    /**
+     * Adds a task to the index.
+     *
+     * @param task The task to add
+     */
+    public void add(Task task) {
+        insert(all, task);
+        if (!task.isComplete()) {
+            insert(open, task);
+        }
+    }
+
+    /**
+     * Removes a task from the index, using its current deadline and completion status.
+     *
+     * @param task The task to remove
+     */
+    public void remove(Task task) {
+        delete(all, task);
+        if (!task.isComplete()) {
+            delete(open, task);
+        }
+    }
+
+    /**
+     * Finds the open tasks whose deadline is before the given day.
+     *
+     * @param today The current day as an epoch day
+     * @return The overdue tasks, earliest deadline first
+     */
+    public List<Task> overdue(int today) {
+        return collect(open.headMap(today, false));
+    }
+
+    /**
+     * Finds the tasks due between two days, inclusive.
+     *
+     * @param fromEpochDay First day of the range
+     * @param toEpochDay   Last day of the range
+     * @param openOnly     True to leave out completed tasks
+     * @return The matching tasks, earliest deadline first
+     */
+    public List<Task> dueBetween(int fromEpochDay, int toEpochDay, boolean openOnly) {
+        if (fromEpochDay > toEpochDay) {
+            return new ArrayList<>();
+        }
+        TreeMap<Integer, LinkedHashSet<Task>> tree = openOnly ? open : all;
+        return collect(tree.subMap(fromEpochDay, true, toEpochDay, true));
+    }
+
+    /**
+     * Lists every task in deadline order.
+     *
+     * @return All tasks, earliest deadline first
+     */
+    public List<Task> inDeadlineOrder() {
+        return collect(all);
+    }
+
+    // This method adds a task to the set for its deadline.
+    private static void insert(TreeMap<Integer, LinkedHashSet<Task>> tree, Task task) {
+        tree.computeIfAbsent(task.getDeadlineEpochDay(), day -> new LinkedHashSet<>(4)).add(task);
+    }
+
+    // This method removes a task from the set for its deadline.
+    private static void delete(TreeMap<Integer, LinkedHashSet<Task>> tree, Task task) {
+        LinkedHashSet<Task> day = tree.get(task.getDeadlineEpochDay());
+        if (day == null) {
+            return;
+        }
+        day.remove(task);
+        if (day.isEmpty()) {
+            tree.remove(task.getDeadlineEpochDay());
+        }
+    }
+
+    // This method concatenates the per-day sets of a range of the tree.
+    private static List<Task> collect(NavigableMap<Integer, LinkedHashSet<Task>> range) {
+        List<Task> result = new ArrayList<>();
+        for (LinkedHashSet<Task> day : range.values()) {
+            result.addAll(day);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,496 @@
+import java.io.*; // Importing classes for file input/output operations
+import java.nio.charset.StandardCharsets; // Importing the charset words are saved in
+import java.util.ArrayList; // Importing ArrayList for query terms and results
+import java.util.Arrays; // Importing Arrays for searching and growing the posting lists
+import java.util.Comparator; // Importing Comparator for adding tasks in ID order
+import java.util.HashMap; // Importing HashMap for the posting lists
+import java.util.List; // Importing List interface for list operations
+import java.util.Map; // Importing Map interface for map operations
+
+/**
+ *
+ * Description:
+ * The FullTextIndex class is an inverted index over the words in task names and descriptions.
+ * Each word points to a posting list of the tasks containing it and how often it appears in
+ * each, so a search looks only at the tasks containing the query words. A posting list is one
+ * array of longs sorted by task ID, each holding a task ID and a number of occurrences, so it
+ * takes 8 bytes per task rather than two boxed Integers and a map entry. Words are runs of
+ * letters and digits, compared ignoring case.
+ *
+ * A query is a list of words that must all appear (AND); groups of words can be joined with
+ * OR, as in "budget report OR invoice". Results are ranked by tf-idf: a word counts for more
+ * when it appears often in the task and in few other tasks, and long texts are scaled down so
+ * they do not win just by being long. A task must be removed before its name or description
+ * changes and added again afterwards.
+ *
+ * The index can be saved next to the data file together with the journal sequence number of
+ * the snapshot it matches, so it does not have to be rebuilt at startup. It also keeps a
+ * checksum over the ID, name and description of every task it holds; a saved index is only
+ * used if its checksum equals the one computed from the tasks loaded, so an index saved
+ * with other tasks or other text is rebuilt instead of answering with stale IDs.
+ *
+ * File layout (all numbers big-endian):
+ *   header: int magic "TMFT", short version, long journal sequence, long checksum,
+ *           int task count, int word count
+ *   task:   int task ID, int number of words in the task
+ *   word:   int length of the word in bytes, the word in UTF-8, int posting count,
+ *           then that many pairs of int task ID and int number of occurrences, by task ID
+ */
+public class FullTextIndex {
+
+    // Magic number at the start of every index file ("TMFT")
+    private static final int MAGIC = 0x544D4654;
+    // Version of the layout written by this class
+    private static final short VERSION = 3;
+
+    /**
+     * The tasks containing one word. Each entry holds a task ID in its high 32 bits and the
+     * number of times the word appears in the task in its low 32 bits, so sorting the entries
+     * sorts them by task ID. A removed task keeps its entry with no occurrences, so a task
+     * that is edited (removed and added again) goes back into the same place; the removed
+     * entries are dropped once they are half of the list.
+     */
+    private static class Posting {
+        long[] entries;
+        int size; // Entries in use, including removed ones
+        int live; // Entries of tasks in the index
+
+        Posting(int capacity) {
+            entries = new long[capacity];
+        }
+
+        // This method counts one more occurrence of the word in a task.
+        void add(int taskId) {
+            if (size > 0 && taskIdAt(size - 1) == taskId) {
+                // The words of a task are added together, so its entry is usually the last
+                if (occurrencesAt(size - 1) == 0) {
+                    live++;
+                }
+                entries[size - 1]++;
+                return;
+            }
+            int at = size == 0 || taskIdAt(size - 1) < taskId ? -size - 1 : find(taskId);
+            if (at >= 0) {
+                if (occurrencesAt(at) == 0) {
+                    live++;
+                }
+                entries[at]++;
+                return;
+            }
+            at = -at - 1;
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(4, size * 2));
+            }
+            // New tasks have the highest IDs, so this only moves entries for a task added
+            // again after its removed entry was dropped
+            System.arraycopy(entries, at, entries, at + 1, size - at);
+            entries[at] = ((long) taskId << 32) | 1;
+            size++;
+            live++;
+        }
+
+        // This method removes a task, returning false if it was not in the list.
+        boolean remove(int taskId) {
+            int at = find(taskId);
+            if (at < 0 || occurrencesAt(at) == 0) {
+                return false;
+            }
+            entries[at] = (long) taskId << 32;
+            live--;
+            if (live * 2 < size) {
+                dropRemoved();
+            }
+            return true;
+        }
+
+        // This method gets the number of times the word appears in a task, 0 if it does not.
+        int occurrences(int taskId) {
+            int at = find(taskId);
+            return at < 0 ? 0 : occurrencesAt(at);
+        }
+
+        int taskIdAt(int i) {
+            return (int) (entries[i] >>> 32);
+        }
+
+        int occurrencesAt(int i) {
+            return (int) entries[i];
+        }
+
+        // This method finds the entry of a task, or returns -(insertion point) - 1.
+        private int find(int taskId) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int id = taskIdAt(middle);
+                if (id < taskId) {
+                    low = middle + 1;
+                } else if (id > taskId) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+
+        // This method drops the entries of removed tasks.
+        private void dropRemoved() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (occurrencesAt(i) > 0) {
+                    entries[kept++] = entries[i];
+                }
+            }
+            size = kept;
+            if (entries.length > 16 && size < entries.length / 4) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+        }
+    }
+
+    // Orders tasks by ID, the order their entries are kept in
+    private static final Comparator<Task> BY_ID = Comparator.comparingInt(Task::getId);
+
+    // Word to its posting list
+    private final Map<String, Posting> postings = new HashMap<>();
+    // Task ID to the number of words in its name and description
+    private final Map<Integer, Integer> lengths = new HashMap<>();
+    // Journal sequence number of the snapshot the index was read with, or -1
+    private long sequence = -1;
+    // Sum of the checksums of the tasks in the index
+    private long checksum;
+
+    /**
+     * Adds the words of a task's name and description.
+     *
+     * @param task The task to add
+     */
+    public void add(Task task) {
+        List<String> words = tokenize(task);
+        for (String word : words) {
+            postings.computeIfAbsent(word, key -> new Posting(2)).add(task.getId());
+        }
+        if (lengths.put(task.getId(), words.size()) == null) {
+            checksum += checksum(task);
+        }
+    }
+
+    /**
+     * Adds several tasks. They are added in ID order, so each goes at the end of its posting
+     * lists whatever order they are given in.
+     *
+     * @param tasks The tasks to add
+     */
+    public void addAll(List<Task> tasks) {
+        List<Task> byId = new ArrayList<>(tasks);
+        byId.sort(BY_ID);
+        for (Task task : byId) {
+            add(task);
+        }
+    }
+
+    /**
+     * Removes the words of a task's current name and description.
+     *
+     * @param task The task to remove
+     */
+    public void remove(Task task) {
+        if (lengths.remove(task.getId()) == null) {
+            return;
+        }
+        checksum -= checksum(task);
+        for (String word : tokenize(task)) {
+            Posting posting = postings.get(word);
+            if (posting != null && posting.remove(task.getId()) && posting.live == 0) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of tasks in the index.
+     *
+     * @return The number of tasks
+     */
+    public int size() {
+        return lengths.size();
+    }
+
+    /**
+     * Gets the journal sequence number of the snapshot this index was read with.
+     *
+     * @return The sequence number, or -1 if the index was not read from a file
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the checksum over the ID, name and description of every task in the index.
+     *
+     * @return The checksum
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Computes the checksum an index holding exactly the given tasks, with their current
+     * names and descriptions, would have. It does not depend on the order of the tasks.
+     *
+     * @param tasks The tasks
+     * @return The checksum
+     */
+    public static long checksumOf(List<Task> tasks) {
+        long sum = 0;
+        for (Task task : tasks) {
+            sum += checksum(task);
+        }
+        return sum;
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param query Words that must all appear, in groups joined with OR
+     * @param limit Largest number of results to return
+     * @return IDs of the matching tasks, most relevant first
+     */
+    public List<Integer> search(String query, int limit) {
+        // Score every task matching at least one AND group
+        Map<Integer, Double> scores = new HashMap<>();
+        for (List<String> group : parseQuery(query)) {
+            scoreGroup(group, scores);
+        }
+
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int byScore = Double.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : Integer.compare(a.getKey(), b.getKey());
+        });
+        List<Integer> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            result.add(ranked.get(i).getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Encodes the index for saving next to a snapshot.
+     *
+     * @param snapshotSequence Journal sequence number of the snapshot saved with it
+     * @return The encoded file contents
+     */
+    public byte[] encode(long snapshotSequence) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * (lengths.size() + postings.size()) + 30);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(snapshotSequence);
+            out.writeLong(checksum);
+            out.writeInt(lengths.size());
+            out.writeInt(postings.size());
+            for (Map.Entry<Integer, Integer> entry : lengths.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            for (Map.Entry<String, Posting> entry : postings.entrySet()) {
+                // Not writeUTF, which refuses words longer than 65535 bytes
+                byte[] word = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(word.length);
+                out.write(word);
+                Posting posting = entry.getValue();
+                out.writeInt(posting.live);
+                for (int i = 0; i < posting.size; i++) {
+                    if (posting.occurrencesAt(i) > 0) {
+                        out.writeInt(posting.taskIdAt(i));
+                        out.writeInt(posting.occurrencesAt(i));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // A ByteArrayOutputStream never throws
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads an index saved by encode.
+     *
+     * @param file The file to read
+     * @return The index, with its sequence number set
+     * @throws IOException if the file cannot be read or is not a valid index file
+     */
+    public static FullTextIndex read(File file) throws IOException {
+        long fileLength = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a search index file: " + file);
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported search index version " + version + ": " + file);
+            }
+            FullTextIndex index = new FullTextIndex();
+            index.sequence = in.readLong();
+            index.checksum = in.readLong();
+            int taskCount = in.readInt();
+            int wordCount = in.readInt();
+            for (int i = 0; i < taskCount; i++) {
+                index.lengths.put(in.readInt(), in.readInt());
+            }
+            for (int i = 0; i < wordCount; i++) {
+                int wordLength = in.readInt();
+                if (wordLength <= 0 || wordLength > fileLength) {
+                    throw new IOException("Search index file is damaged: " + file);
+                }
+                byte[] word = new byte[wordLength];
+                in.readFully(word);
+                int postingCount = in.readInt();
+                if (postingCount <= 0 || postingCount > fileLength / 8) {
+                    throw new IOException("Search index file is damaged: " + file);
+                }
+                Posting posting = new Posting(postingCount);
+                for (int j = 0; j < postingCount; j++) {
+                    int taskId = in.readInt();
+                    int occurrences = in.readInt();
+                    if (occurrences <= 0 || (j > 0 && taskId <= posting.taskIdAt(j - 1))) {
+                        throw new IOException("Search index file is damaged: " + file);
+                    }
+                    posting.entries[j] = ((long) taskId << 32) | occurrences;
+                    posting.size++;
+                }
+                posting.live = postingCount;
+                index.postings.put(new String(word, StandardCharsets.UTF_8), posting);
+            }
+            return index;
+        } catch (EOFException e) {
+            throw new IOException("Search index file is truncated: " + file, e);
+        }
+    }
+
+    /**
+     * Moves the contents of another index into this one, replacing what this one held.
+     *
+     * @param other The index to take the contents of
+     */
+    public void replaceWith(FullTextIndex other) {
+        postings.clear();
+        postings.putAll(other.postings);
+        lengths.clear();
+        lengths.putAll(other.lengths);
+        sequence = other.sequence;
+        checksum = other.checksum;
+    }
+
+    // This method adds the tf-idf score of each task containing every word of a group.
+    private void scoreGroup(List<String> group, Map<Integer, Double> scores) {
+        List<Posting> lists = new ArrayList<>(group.size());
+        Posting shortest = null;
+        for (String word : group) {
+            Posting posting = postings.get(word);
+            if (posting == null) {
+                return; // A word no task contains, so nothing matches the group
+            }
+            lists.add(posting);
+            if (shortest == null || posting.live < shortest.live) {
+                shortest = posting;
+            }
+        }
+        if (shortest == null) {
+            return;
+        }
+
+        int taskCount = lengths.size();
+        // Check only the tasks in the shortest posting list against the others
+        candidates:
+        for (int i = 0; i < shortest.size; i++) {
+            if (shortest.occurrencesAt(i) == 0) {
+                continue; // A removed task
+            }
+            int taskId = shortest.taskIdAt(i);
+            double score = 0;
+            for (Posting posting : lists) {
+                int occurrences = posting.occurrences(taskId);
+                if (occurrences == 0) {
+                    continue candidates;
+                }
+                double idf = Math.log(1.0 + (double) taskCount / posting.live);
+                score += occurrences * idf;
+            }
+            score /= Math.sqrt(Math.max(1, lengths.getOrDefault(taskId, 1)));
+            scores.merge(taskId, score, Math::max);
+        }
+    }
+
+    // This method computes one task's share of the checksum: a 64-bit FNV-1a hash of its ID,
+    // name and description, mixed so that adding the shares of many tasks rarely collides.
+    private static long checksum(Task task) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ task.getId()) * 0x100000001b3L;
+        hash = hashText(hash, task.getName());
+        hash = (hash ^ 0xffff) * 0x100000001b3L; // Separates the name from the description
+        hash = hashText(hash, task.getDescription());
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+
+    // This method folds the characters of a text into a running FNV-1a hash.
+    private static long hashText(long hash, String text) {
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    // This method splits a query into AND groups separated by the word OR.
+    private static List<List<String>> parseQuery(String query) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> group = new ArrayList<>();
+        for (String part : query.trim().split("\\s+")) {
+            if (part.equals("OR")) {
+                if (!group.isEmpty()) {
+                    groups.add(group);
+                    group = new ArrayList<>();
+                }
+                continue;
+            }
+            tokenize(part, group);
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    // This method splits a task's name and description into lower-case words.
+    private static List<String> tokenize(Task task) {
+        List<String> words = new ArrayList<>();
+        tokenize(task.getName(), words);
+        tokenize(task.getDescription(), words);
+        return words;
+    }
+
+    // This method adds the runs of letters and digits in a text to a list, in lower case.
+    private static void tokenize(String text, List<String> words) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(NameIndex.fold(text.substring(start, i)));
+                start = -1;
+            }
+        }
+    }
+}
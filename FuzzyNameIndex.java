@@ -0,0 +1,219 @@
+// Import ArrayDeque for the nodes still to visit during a search
+import java.util.ArrayDeque;
+// Import ArrayList for the search results
+import java.util.ArrayList;
+// Import Deque interface for the search stack
+import java.util.Deque;
+// Import HashMap for the children of each node and the name-to-node table
+import java.util.HashMap;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+
+/**
+ *
+ * Description:
+ * The FuzzyNameIndex class finds names close to a mistyped one, ignoring case. Names are kept
+ * in a BK-tree: each child hangs under its parent by its edit distance to the parent, and
+ * because edit distance obeys the triangle inequality, a search for names within distance k
+ * of the query only has to follow children whose distance to their parent is within k of the
+ * query's distance to that parent. Most of the tree is skipped, so lookups stay fast with
+ * hundreds of thousands of names.
+ *
+ * Each distinct case-folded name is stored once with a count of how many records use it.
+ * A removed name stays in the tree as a marker with a count of zero, since other names hang
+ * below it; when most nodes are markers the tree is rebuilt from the names still in use.
+ */
+public class FuzzyNameIndex {
+
+    /**
+     * A name in the tree.
+     */
+    private static class Node {
+        final String name;                                // The case-folded name
+        int count;                                        // Number of records using the name
+        final Map<Integer, Node> children = new HashMap<>(4); // Distance to this node to the child at that distance
+
+        Node(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * A name found by a search and its distance from the query.
+     */
+    public static class Match {
+        private final String name;
+        private final int distance;
+
+        Match(String name, int distance) {
+            this.name = name;
+            this.distance = distance;
+        }
+
+        /**
+         * Gets the case-folded name that was found.
+         *
+         * @return The name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of single-character insertions, deletions and substitutions
+         * that turn the query into this name.
+         *
+         * @return The edit distance
+         */
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    // The first name added, at the top of the tree
+    private Node root;
+    // Case-folded name to its node, including markers
+    private final Map<String, Node> nodes = new HashMap<>();
+    // Number of nodes whose name is still in use
+    private int liveNodes;
+
+    /**
+     * Adds a name.
+     *
+     * @param name The name to add
+     */
+    public void add(String name) {
+        String folded = NameIndex.fold(name);
+        Node node = nodes.get(folded);
+        if (node == null) {
+            node = insert(folded);
+        }
+        if (node.count++ == 0) {
+            liveNodes++;
+        }
+    }
+
+    /**
+     * Removes one use of a name.
+     *
+     * @param name The name to remove
+     */
+    public void remove(String name) {
+        Node node = nodes.get(NameIndex.fold(name));
+        if (node == null || node.count == 0) {
+            return;
+        }
+        if (--node.count == 0) {
+            liveNodes--;
+            if (nodes.size() > 1024 && nodes.size() > 2 * liveNodes) {
+                rebuild(); // Most nodes are markers
+            }
+        }
+    }
+
+    /**
+     * Finds the names closest to a query, ignoring case.
+     *
+     * @param query       The possibly mistyped name
+     * @param maxDistance The largest edit distance to accept
+     * @param limit       The largest number of names to return
+     * @return The closest names, nearest first and then in alphabetical order
+     */
+    public List<Match> closest(String query, int maxDistance, int limit) {
+        String folded = NameIndex.fold(query);
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(folded, node.name);
+            if (distance <= maxDistance && node.count > 0) {
+                matches.add(new Match(node.name, distance));
+            }
+            // By the triangle inequality only children in this range can be close enough
+            for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+                Node child = node.children.get(d);
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+        matches.sort((a, b) -> a.distance != b.distance
+                ? Integer.compare(a.distance, b.distance) : a.name.compareTo(b.name));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Calculates the edit distance between two strings: the number of single-character
+     * insertions, deletions and substitutions needed to turn one into the other.
+     *
+     * @param a The first string
+     * @param b The second string
+     * @return The edit distance
+     */
+    public static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        // Two rows of the usual dynamic-programming table, sized by the shorter string
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    // This method adds a new name to the tree and returns its node.
+    private Node insert(String folded) {
+        Node node = new Node(folded);
+        nodes.put(folded, node);
+        if (root == null) {
+            root = node;
+            return node;
+        }
+        Node parent = root;
+        while (true) {
+            int distance = distance(folded, parent.name);
+            Node child = parent.children.get(distance);
+            if (child == null) {
+                parent.children.put(distance, node);
+                return node;
+            }
+            parent = child;
+        }
+    }
+
+    // This method builds a new tree holding only the names still in use.
+    private void rebuild() {
+        List<Node> live = new ArrayList<>(liveNodes);
+        for (Node node : nodes.values()) {
+            if (node.count > 0) {
+                live.add(node);
+            }
+        }
+        root = null;
+        nodes.clear();
+        for (Node old : live) {
+            insert(old.name).count = old.count;
+        }
+    }
+}
@@ -1,37 +1,85 @@
-// Import ArrayList for dynamic array functionality 
-import java.util.ArrayList;
-// Import List interface for list operations
-import java.util.List;
-// Import objects for null-safe operations and comparasions
-import java.util.Objects;
+// Import Arrays for searching and copying the task ID array
+import java.util.Arrays;
+// Import AtomicInteger for handing out goal IDs
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  *
  * Description:
- * The Goal class represents a specific goal that contains a list of tasks to be accomplished.
- * Each goal has a name, a list of tasks, and a status indicating whether the goal is complete.
+ * The Goal class represents a specific goal that contains a set of tasks to be accomplished.
+ * Each goal has a name, the IDs of its tasks, and a status indicating whether the goal is complete.
  * The class provides methods to manage tasks, check the goal's status, and convert the goal to
- * and from a string representation. Additionally, the class overrides equals and hashCode 
- * methods for comparison and hashing purposes.
+ * and from a string representation. Task IDs are kept in a sorted array, so checking whether
+ * a task belongs to the goal is a binary search. Each goal has a numeric ID that never
+ * changes, and equals and hashCode compare IDs.
  */
 public class Goal {
+    // The highest goal ID handed out or seen so far
+    private static final AtomicInteger lastId = new AtomicInteger();
+
     // Private attributes of the Goal class
+    private final int id;            // The ID of the goal, which never changes
     private String name;             // The name of the goal
-    private List<Task> tasks;        // A list of tasks associated with the goal
+    private int[] taskIds;           // IDs of the tasks associated with the goal, sorted; only the first taskCount are used
+    private int taskCount;           // Number of tasks associated with the goal
     private boolean isComplete;      // A flag indicating whether the goal is complete
 
     /**
-     * Constructs a Goal object with the specified name.
+     * Constructs a Goal object with the specified name and a new ID.
      * The goal is initially marked as incomplete and contains no tasks.
      *
      * @param name The name of the goal
      */
     public Goal(String name) {
+        this(lastId.incrementAndGet(), name);
+    }
+
+    /**
+     * Constructs a Goal object with a known ID, such as one read back from the data file.
+     * New goals created afterwards get higher IDs.
+     *
+     * @param id   The ID of the goal, greater than zero
+     * @param name The name of the goal
+     * @throws IllegalArgumentException if the ID is not valid
+     */
+    public Goal(int id, String name) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Invalid goal ID: " + id);
+        }
+        reserveIds(id);
+        this.id = id;                    // Initialize the id attribute
         this.name = name;                // Initialize the name attribute
-        this.tasks = new ArrayList<>();  // Initialize the tasks list as an empty ArrayList
+        this.taskIds = new int[0];       // Start with no tasks
         this.isComplete = false;         // By default, the goal is not complete
     }
 
+    /**
+     * Gets the ID of the goal.
+     *
+     * @return The ID of the goal
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Makes sure IDs up to the given one are never handed out to new goals.
+     *
+     * @param id The highest ID already in use
+     */
+    public static void reserveIds(int id) {
+        lastId.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Gets the highest goal ID handed out or seen so far.
+     *
+     * @return The highest goal ID in use
+     */
+    public static int getLastId() {
+        return lastId.get();
+    }
+
     /**
      * Gets the name of the goal.
      *
@@ -42,12 +90,31 @@ public class Goal {
     }
 
     /**
-     * Gets the list of tasks associated with the goal.
+     * Gets the IDs of the tasks associated with the goal.
      *
-     * @return A list of Task objects associated with the goal
+     * @return A new array of task IDs in ascending order
      */
-    public List<Task> getTasks() {
-        return tasks;
+    public int[] getTaskIds() {
+        return Arrays.copyOf(taskIds, taskCount);
+    }
+
+    /**
+     * Gets the number of tasks associated with the goal.
+     *
+     * @return The number of tasks
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Checks whether a task is associated with the goal.
+     *
+     * @param taskId The ID of the task
+     * @return True if the task belongs to the goal, otherwise false
+     */
+    public boolean containsTask(int taskId) {
+        return Arrays.binarySearch(taskIds, 0, taskCount, taskId) >= 0;
     }
 
     /**
@@ -69,22 +136,61 @@ public class Goal {
     }
 
     /**
-     * Adds a task to the goal's list of tasks.
+     * Adds a task to the goal.
      *
      * @param task The Task object to be added to the goal
+     * @return True if the task was added, false if it already belonged to the goal
      */
-    public void addTask(Task task) {
-        this.tasks.add(task); // Add the provided task to the tasks list
+    public boolean addTask(Task task) {
+        return addTaskId(task.getId());
+    }
+
+    /**
+     * Adds a task to the goal by its ID.
+     *
+     * @param taskId The ID of the task
+     * @return True if the task was added, false if it already belonged to the goal
+     */
+    public boolean addTaskId(int taskId) {
+        int position = Arrays.binarySearch(taskIds, 0, taskCount, taskId);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        if (taskCount == taskIds.length) {
+            taskIds = Arrays.copyOf(taskIds, Math.max(4, taskCount * 2)); // Grow the array
+        }
+        System.arraycopy(taskIds, position, taskIds, position + 1, taskCount - position);
+        taskIds[position] = taskId;
+        taskCount++;
+        return true;
+    }
+
+    /**
+     * Removes a task from the goal by its ID.
+     *
+     * @param taskId The ID of the task
+     * @return True if the task was removed, false if it did not belong to the goal
+     */
+    public boolean removeTaskId(int taskId) {
+        int position = Arrays.binarySearch(taskIds, 0, taskCount, taskId);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(taskIds, position + 1, taskIds, position, taskCount - position - 1);
+        taskCount--;
+        return true;
     }
 
     /**
-     * Returns a string representation of the goal, including its name and completion status.
+     * Returns a string representation of the goal, including its name, completion status,
+     * ID and the IDs of its tasks.
      *
      * @return A string representation of the goal
      */
     @Override
     public String toString() {
-        return "Goal:" + name + "," + isComplete;
+        return RecordCodec.encodeGoal(this);
     }
 
     /**
@@ -95,19 +201,16 @@ public class Goal {
      * @throws IllegalArgumentException if the input string is invalid
      */
     public static Goal fromString(String goalString) {
-        String[] parts = goalString.split(",");
-        if (parts.length < 2) {
+        Goal goal = RecordCodec.decodeGoal(goalString);
+        if (goal == null) {
             throw new IllegalArgumentException("Invalid goal string: " + goalString);
         }
-        // Extract the goal's name and completion status from the string
-        Goal goal = new Goal(parts[0].substring(5));
-        goal.setComplete(Boolean.parseBoolean(parts[1]));
         return goal;
     }
 
     /**
      * Compares this Goal object with another object for equality.
-     * Two goals are considered equal if they have the same name, tasks, and completion status.
+     * Two goals are considered equal if they have the same ID.
      *
      * @param o The object to compare with this Goal
      * @return True if the goals are equal, otherwise false
@@ -116,21 +219,17 @@ public class Goal {
     public boolean equals(Object o) {
         if (this == o) return true; // Check if the objects are the same
         if (o == null || getClass() != o.getClass()) return false; // Check if the other object is a Goal
-        Goal goal = (Goal) o;
-        // Compare the name, tasks, and completion status for equality
-        return isComplete == goal.isComplete &&
-                Objects.equals(name, goal.name) &&
-                Objects.equals(tasks, goal.tasks);
+        return id == ((Goal) o).id;
     }
 
     /**
      * Returns a hash code value for the Goal object.
-     * This is used to efficiently store and retrieve goals in data structures like hash maps.
+     * It depends only on the ID, so it does not change when tasks are added.
      *
      * @return The hash code value for this Goal
      */
     @Override
     public int hashCode() {
-        return Objects.hash(name, tasks, isComplete);
+        return Integer.hashCode(id);
     }
 }
@@ -42,6 +42,15 @@ public class Item implements Serializable {
         return name;
     }
 
+    /**
+     * Gets the description of the item.
+     *
+     * @return The description of the item
+     */
+    public String getDescription() {
+        return description;
+    }
+
     /**
      * Gets the category of the item.
      *
@@ -86,13 +95,29 @@ public class Item implements Serializable {
     }
 
     /**
-     * Returns a string representation of the item, including its name, category,
-     * and completion status.
+     * Returns a string representation of the item, including its name, description,
+     * category, and completion status.
+     * Commas and other delimiters inside a field are escaped by RecordCodec.
      *
      * @return A string representation of the item
      */
     @Override
     public String toString() {
-        return "Name: " + name + ", Category: " + category + ", Completed: " + isComplete;
+        return RecordCodec.encodeItem(this);
+    }
+
+    /**
+     * Creates an Item object from its string representation.
+     *
+     * @param itemString The string representation of the item
+     * @return An Item object created from the string representation
+     * @throws IllegalArgumentException if the input string is invalid
+     */
+    public static Item fromString(String itemString) {
+        Item item = RecordCodec.decodeItem(itemString);
+        if (item == null) {
+            throw new IllegalArgumentException("Invalid item string: " + itemString);
+        }
+        return item;
     }
 }
@@ -0,0 +1,183 @@
+import java.io.IOException; // Importing exception thrown when a compaction fails
+import java.util.concurrent.Executors; // Importing factory for the background scheduler
+import java.util.concurrent.ScheduledExecutorService; // Importing scheduler that runs the periodic check
+import java.util.concurrent.TimeUnit; // Importing time units for the check interval
+
+/**
+ *
+ * Description:
+ * The JournalCompactor class runs in the background and folds the journal into a fresh
+ * snapshot once the journal grows past a configured size or number of records. The snapshot
+ * itself is written by a Compaction callback supplied by TaskManager; this class decides
+ * when to run it and keeps counters for the time spent and the journal bytes reclaimed.
+ * When the journal's fsync policy is INTERVAL, the same thread also forces the journal once
+ * per interval, so records appended just before a quiet period still reach the disk in time.
+ */
+public class JournalCompactor {
+
+    /**
+     * Callback that writes a snapshot and drops the journal records it contains.
+     */
+    public interface Compaction {
+        /**
+         * Writes a snapshot of the current data and discards the journal records it covers.
+         *
+         * @return The number of journal bytes reclaimed
+         * @throws IOException if the snapshot or journal cannot be written
+         */
+        long run() throws IOException;
+    }
+
+    // The journal whose size and record count are checked
+    private final TaskJournal journal;
+    // The callback that performs the compaction
+    private final Compaction compaction;
+    // Compact once the journal reaches this many bytes
+    private final long maxJournalBytes;
+    // Compact once the journal holds this many records
+    private final int maxJournalRecords;
+    // Time between two threshold checks
+    private final long checkIntervalMillis;
+    // Scheduler running the periodic check; null until started
+    private ScheduledExecutorService scheduler;
+
+    // Number of compactions performed
+    private volatile int compactionCount;
+    // Total time spent compacting, in milliseconds
+    private volatile long totalCompactionMillis;
+    // Time spent on the most recent compaction, in milliseconds
+    private volatile long lastCompactionMillis;
+    // Total journal bytes reclaimed by compactions
+    private volatile long bytesReclaimed;
+
+    /**
+     * Constructs a JournalCompactor with the given thresholds.
+     *
+     * @param journal             The journal whose growth is watched
+     * @param compaction          The callback that performs the compaction
+     * @param maxJournalBytes     Compact once the journal reaches this many bytes
+     * @param maxJournalRecords   Compact once the journal holds this many records
+     * @param checkIntervalMillis Time between two threshold checks
+     */
+    public JournalCompactor(TaskJournal journal, Compaction compaction, long maxJournalBytes,
+                            int maxJournalRecords, long checkIntervalMillis) {
+        this.journal = journal;
+        this.compaction = compaction;
+        this.maxJournalBytes = maxJournalBytes;
+        this.maxJournalRecords = maxJournalRecords;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    /**
+     * Creates a JournalCompactor configured from system properties.
+     * "taskmanager.compact.bytes" (default 1048576), "taskmanager.compact.records"
+     * (default 10000) and "taskmanager.compact.interval" in milliseconds (default 5000).
+     *
+     * @param journal    The journal whose growth is watched
+     * @param compaction The callback that performs the compaction
+     * @return A configured JournalCompactor
+     */
+    public static JournalCompactor fromSystemProperties(TaskJournal journal, Compaction compaction) {
+        return new JournalCompactor(journal, compaction,
+                Long.getLong("taskmanager.compact.bytes", 1024L * 1024L),
+                Integer.getInteger("taskmanager.compact.records", 10000),
+                Long.getLong("taskmanager.compact.interval", 5000L));
+    }
+
+    /**
+     * Starts the background thread that checks the thresholds periodically and, under the
+     * INTERVAL fsync policy, forces the journal once per interval.
+     */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compactor");
+            thread.setDaemon(true); // Do not keep the program alive on exit
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactIfNeeded, checkIntervalMillis,
+                checkIntervalMillis, TimeUnit.MILLISECONDS);
+        if (journal.getFsyncPolicy() == TaskJournal.FsyncPolicy.INTERVAL) {
+            long interval = Math.max(1L, journal.getFsyncIntervalMillis());
+            scheduler.scheduleAtFixedRate(this::forceJournal, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the background thread, waiting for a running compaction to finish.
+     */
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Preserve the interrupt for the caller
+        }
+    }
+
+    /**
+     * Runs a compaction if the journal has reached either threshold.
+     *
+     * @return True if a compaction was run, otherwise false
+     */
+    public boolean compactIfNeeded() {
+        if (journal.getSize() < maxJournalBytes && journal.getRecordCount() < maxJournalRecords) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    /**
+     * Runs a compaction now and updates the counters.
+     */
+    public void compact() {
+        long start = System.nanoTime();
+        try {
+            long reclaimed = compaction.run();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            synchronized (this) {
+                compactionCount++;
+                lastCompactionMillis = elapsed;
+                totalCompactionMillis += elapsed;
+                bytesReclaimed += reclaimed;
+            }
+        } catch (IOException e) {
+            // The journal is left as it was, so no data is lost; the next check retries
+            System.out.println("Error compacting journal: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // An exception escaping a scheduled task would cancel every later check without a trace
+            System.out.println("Error compacting journal: " + e);
+        }
+    }
+
+    // This method forces records the journal has not forced yet. It catches every exception,
+    // since one escaping would cancel the later forces.
+    private void forceJournal() {
+        try {
+            journal.forceIfDue();
+        } catch (IOException e) {
+            System.out.println("Error saving change: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.out.println("Error saving change: " + e);
+        }
+    }
+
+    public int getCompactionCount() {
+        return compactionCount;
+    }
+
+    public long getTotalCompactionMillis() {
+        return totalCompactionMillis;
+    }
+
+    public long getLastCompactionMillis() {
+        return lastCompactionMillis;
+    }
+
+    public long getBytesReclaimed() {
+        return bytesReclaimed;
+    }
+}
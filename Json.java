@@ -0,0 +1,283 @@
+// Import ArrayList for JSON arrays
+import java.util.ArrayList;
+// Import LinkedHashMap for JSON objects, which keeps their keys in order
+import java.util.LinkedHashMap;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+
+/**
+ *
+ * Description:
+ * The Json class reads and writes the small JSON documents TaskServer exchanges, without
+ * needing a library. parse turns a document into Maps (objects, keys in order), Lists (arrays),
+ * Strings, Longs (whole numbers), Doubles (other numbers), Booleans and nulls. Output is built
+ * by the caller in a StringBuilder; quote writes a string with the escapes JSON requires.
+ */
+public class Json {
+
+    // The document being parsed and the position reached
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a JSON document.
+     *
+     * @param text The document
+     * @return The value it holds
+     * @throws IllegalArgumentException if the document is not valid JSON
+     */
+    public static Object parse(String text) {
+        Json parser = new Json(text);
+        Object value = parser.value();
+        parser.skipSpace();
+        if (parser.position < text.length()) {
+            throw parser.error("Unexpected text after the value");
+        }
+        return value;
+    }
+
+    /**
+     * Appends a string to a JSON document in quotes, escaping quotes, backslashes and
+     * control characters.
+     *
+     * @param out   The document being written
+     * @param value The string, or null to write null
+     * @return The document, for chaining
+     */
+    public static StringBuilder quote(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    // This method parses the value starting at the current position.
+    private Object value() {
+        skipSpace();
+        if (position >= text.length()) {
+            throw error("Unexpected end of the document");
+        }
+        char c = text.charAt(position);
+        switch (c) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return number();
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    // This method parses an object; the position is at its '{'.
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipSpace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipSpace();
+            if (peek() != '"') {
+                throw error("Expected a key in quotes");
+            }
+            String key = string();
+            skipSpace();
+            expect(':');
+            object.put(key, value());
+            skipSpace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    // This method parses an array; the position is at its '['.
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipSpace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipSpace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    // This method parses a string; the position is at its opening quote.
+    private String string() {
+        StringBuilder value = new StringBuilder();
+        position++;
+        while (true) {
+            if (position >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    value.append(escaped);
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("Incomplete \\u escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid \\u escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    throw error("Invalid escape \\" + escaped);
+            }
+        }
+    }
+
+    // This method parses a number, as a Long if it is whole and fits, otherwise as a Double.
+    private Object number() {
+        int start = position;
+        boolean whole = true;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                whole = false;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            if (whole) {
+                try {
+                    return Long.parseLong(number);
+                } catch (NumberFormatException e) {
+                    // Too large for a long
+                }
+            }
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number " + number);
+        }
+    }
+
+    // This method parses true, false or null.
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, position)) {
+            throw error("Unexpected text");
+        }
+        position += word.length();
+        return value;
+    }
+
+    // This method skips spaces, tabs and line breaks.
+    private void skipSpace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    // This method gets the character at the current position, or 0 at the end.
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    // This method checks that the current character is the expected one and moves past it.
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    // This method builds the error for a problem at the current position.
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of the JSON.");
+    }
+}
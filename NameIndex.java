@@ -0,0 +1,139 @@
+// Import ArrayList for the lists of records sharing a name
+import java.util.ArrayList;
+// Import Collections for the empty result list
+import java.util.Collections;
+// Import HashMap for the name-to-records table
+import java.util.HashMap;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+// Import Function for reading the name of a record
+import java.util.function.Function;
+
+/**
+ *
+ * Description:
+ * The NameIndex class maps names to records for case-insensitive lookups in constant time.
+ * Names are case-folded the same way String.equalsIgnoreCase compares them. Several records
+ * may share a name; they are kept in the order they were added, so findFirst returns the
+ * same record a front-to-back scan of the list would. A record must be removed from the index
+ * before its name changes and added again afterwards.
+ *
+ * @param <T> The type of record indexed, such as Task or Goal
+ */
+public class NameIndex<T> {
+    // Reads the name of a record
+    private final Function<T, String> nameOf;
+    // Case-folded name to the records with that name, in insertion order
+    private final Map<String, List<T>> index = new HashMap<>();
+
+    /**
+     * Constructs an empty NameIndex.
+     *
+     * @param nameOf Function that reads the name of a record
+     */
+    public NameIndex(Function<T, String> nameOf) {
+        this.nameOf = nameOf;
+    }
+
+    /**
+     * Adds a record under its current name.
+     *
+     * @param record The record to add
+     */
+    public void add(T record) {
+        index.computeIfAbsent(fold(nameOf.apply(record)), key -> new ArrayList<>(1)).add(record);
+    }
+
+    /**
+     * Removes a record from under its current name. The record itself is removed, not
+     * another record that happens to be equal to it.
+     *
+     * @param record The record to remove
+     */
+    public void remove(T record) {
+        String key = fold(nameOf.apply(record));
+        List<T> records = index.get(key);
+        if (records == null) {
+            return;
+        }
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i) == record) {
+                records.remove(i);
+                break;
+            }
+        }
+        if (records.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Removes every record from the index.
+     */
+    public void clear() {
+        index.clear();
+    }
+
+    /**
+     * Finds the first record added with the given name, ignoring case.
+     *
+     * @param name The name to look up
+     * @return The first matching record, or null if there is none
+     */
+    public T findFirst(String name) {
+        List<T> records = index.get(fold(name));
+        return records == null ? null : records.get(0);
+    }
+
+    /**
+     * Finds every record with the given name, ignoring case, in the order they were added.
+     *
+     * @param name The name to look up
+     * @return A copy of the list of matching records, empty if there are none
+     */
+    public List<T> findAll(String name) {
+        List<T> records = index.get(fold(name));
+        // Copy the list, so callers can keep it after the lock guarding this index is released
+        return records == null ? Collections.emptyList() : new ArrayList<>(records);
+    }
+
+    /**
+     * Checks whether any record has the given name, ignoring case.
+     *
+     * @param name The name to look up
+     * @return True if at least one record has the name, otherwise false
+     */
+    public boolean contains(String name) {
+        return index.containsKey(fold(name));
+    }
+
+    /**
+     * Case-folds a name so that two names are equal after folding exactly when
+     * String.equalsIgnoreCase considers them equal.
+     *
+     * @param name The name to fold
+     * @return The folded name
+     */
+    public static String fold(String name) {
+        // Most names need no change, so avoid copying them
+        int i = 0;
+        while (i < name.length()) {
+            char c = name.charAt(i);
+            if (c >= 0x80 || (c >= 'A' && c <= 'Z')) {
+                break;
+            }
+            i++;
+        }
+        if (i == name.length()) {
+            return name;
+        }
+
+        StringBuilder folded = new StringBuilder(name.length()).append(name, 0, i);
+        for (; i < name.length(); i++) {
+            folded.append(Character.toLowerCase(Character.toUpperCase(name.charAt(i))));
+        }
+        return folded.toString();
+    }
+}
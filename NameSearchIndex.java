@@ -0,0 +1,386 @@
+// Import ArrayList for the result lists
+import java.util.ArrayList;
+// Import Arrays for searching and growing the posting lists
+import java.util.Arrays;
+// Import Collections for the empty result list
+import java.util.Collections;
+// Import Comparator for ordering tasks that share a name by ID
+import java.util.Comparator;
+// Import HashMap for the trigram and character tables
+import java.util.HashMap;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+// Import NavigableMap for prefix ranges of the name tree
+import java.util.NavigableMap;
+// Import TreeMap for keeping names in sorted order
+import java.util.TreeMap;
+
+/**
+ *
+ * Description:
+ * The NameSearchIndex class answers "starts with" and "contains" searches over task names,
+ * ignoring case. Prefix searches use a tree of case-folded names, so the matches are one
+ * contiguous range of the tree. Substring searches use posting lists: every distinct name gets
+ * a small number, and every three-character piece (trigram) and every character of a name
+ * lists the numbers of the names containing it, kept sorted in an int array. A search
+ * intersects the lists of the query's trigrams, starting from the rarest, or of its characters
+ * when it is shorter than three characters, and checks only the names left. The sorted matches
+ * of the last query are kept until the index changes, so paging through them costs only the
+ * page. Name numbers are handed out in increasing order, so adding a name appends to the end
+ * of each list. Removing a name only frees its number; the lists keep the stale number, which
+ * searches skip, until enough numbers are free that one pass renumbers the names and rewrites
+ * every list. Adding and removing a task therefore cost the length of its name, not the length
+ * of the lists it is on. Tasks sharing a name are listed by ID. A task must be removed before its name changes
+ * and added again afterwards. Searches may run on several threads at once, but not while the
+ * index is being changed.
+ */
+public class NameSearchIndex {
+
+    /**
+     * One page of search results.
+     */
+    public static class Page {
+        private final List<Task> tasks; // The tasks on this page
+        private final int offset;       // Position of the first task on this page among all matches
+        private final int total;        // Number of matches on all pages
+
+        Page(List<Task> tasks, int offset, int total) {
+            this.tasks = tasks;
+            this.offset = offset;
+            this.total = total;
+        }
+
+        /**
+         * Gets the tasks on this page.
+         *
+         * @return The tasks, in result order
+         */
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Gets the position of the first task on this page among all matches.
+         *
+         * @return The zero-based offset of the page
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Gets the number of matches on all pages.
+         *
+         * @return The total number of matches
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Checks whether there are matches after this page.
+         *
+         * @return True if another page follows, otherwise false
+         */
+        public boolean hasMore() {
+            return offset + tasks.size() < total;
+        }
+    }
+
+    /**
+     * One distinct case-folded name and the tasks that have it.
+     */
+    private static class Name {
+        final String folded;                       // The case-folded name
+        int number;                                // The name's number in the posting lists
+        final List<Task> tasks = new ArrayList<>(1); // The tasks with this name, by ID
+
+        Name(String folded, int number) {
+            this.folded = folded;
+            this.number = number;
+        }
+    }
+
+    /**
+     * A sorted list of name numbers, stored in an int array.
+     */
+    private static class Postings {
+        int[] numbers = new int[4];
+        int size;
+
+        void add(int number) {
+            if (size == 0 || numbers[size - 1] < number) {
+                // New numbers are the largest, so they almost always go at the end
+                if (size == numbers.length) {
+                    numbers = Arrays.copyOf(numbers, size * 2);
+                }
+                numbers[size++] = number;
+                return;
+            }
+            int at = Arrays.binarySearch(numbers, 0, size, number);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == numbers.length) {
+                numbers = Arrays.copyOf(numbers, size * 2);
+            }
+            System.arraycopy(numbers, at, numbers, at + 1, size - at);
+            numbers[at] = number;
+            size++;
+        }
+
+        boolean contains(int number) {
+            return Arrays.binarySearch(numbers, 0, size, number) >= 0;
+        }
+    }
+
+    /**
+     * The sorted matches of one substring query, valid until the index changes.
+     */
+    private static class Matches {
+        final String query;   // The case-folded query
+        final long version;   // The index version the matches were found in
+        final Name[] names;   // The matching names, in name order
+        final int[] ends;     // ends[i] is the number of tasks in names[0] to names[i]
+
+        Matches(String query, long version, Name[] names, int[] ends) {
+            this.query = query;
+            this.version = version;
+            this.names = names;
+            this.ends = ends;
+        }
+
+        int total() {
+            return ends.length == 0 ? 0 : ends[ends.length - 1];
+        }
+    }
+
+    // Length of the pieces names are split into for substring search
+    private static final int GRAM = 3;
+    // Fewest free numbers before the names are renumbered
+    private static final int MIN_FREE_TO_RENUMBER = 1024;
+    // Orders tasks that share a name
+    private static final Comparator<Task> BY_ID = Comparator.comparingInt(Task::getId);
+
+    // Case-folded name to the tasks with that name
+    private final TreeMap<String, Name> names = new TreeMap<>();
+    // Name number to name; null for numbers of removed names, which may still be on the lists
+    private List<Name> numbered = new ArrayList<>();
+    // Number of null entries in numbered
+    private int freeNumbers;
+    // Trigram, packed into a long, to the names containing it
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+    // Character to the names containing it, for queries shorter than a trigram
+    private final Map<Character, Postings> characters = new HashMap<>();
+    // Changed on every add and remove, so cached matches are not used after a change
+    private long version;
+    // The matches of the last substring query
+    private volatile Matches lastMatches;
+
+    /**
+     * Adds a task under its current name.
+     *
+     * @param task The task to add
+     */
+    public void add(Task task) {
+        version++;
+        String folded = NameIndex.fold(task.getName());
+        Name name = names.get(folded);
+        if (name == null) {
+            name = newName(folded);
+            names.put(folded, name);
+            for (int i = 0; i + GRAM <= folded.length(); i++) {
+                trigrams.computeIfAbsent(trigram(folded, i), key -> new Postings()).add(name.number);
+            }
+            for (int i = 0; i < folded.length(); i++) {
+                characters.computeIfAbsent(folded.charAt(i), key -> new Postings()).add(name.number);
+            }
+        }
+        int at = Collections.binarySearch(name.tasks, task, BY_ID);
+        name.tasks.add(at < 0 ? -at - 1 : at, task);
+    }
+
+    /**
+     * Removes a task from under its current name.
+     *
+     * @param task The task to remove
+     */
+    public void remove(Task task) {
+        version++;
+        String folded = NameIndex.fold(task.getName());
+        Name name = names.get(folded);
+        if (name == null || !name.tasks.remove(task)) {
+            return;
+        }
+        if (!name.tasks.isEmpty()) {
+            return;
+        }
+        // The last task with this name is gone. Its number stays on the lists until the next
+        // renumbering, and searches skip it meanwhile.
+        names.remove(folded);
+        numbered.set(name.number, null);
+        freeNumbers++;
+        if (freeNumbers >= MIN_FREE_TO_RENUMBER && freeNumbers > names.size()) {
+            renumber();
+        }
+    }
+
+    /**
+     * Finds tasks whose names start with the given text, ignoring case, in name order.
+     *
+     * @param prefix The text names must start with
+     * @param offset Number of matches to skip, for later pages
+     * @param limit  Largest number of tasks to return
+     * @return One page of matching tasks
+     */
+    public Page startingWith(String prefix, int offset, int limit) {
+        String folded = NameIndex.fold(prefix);
+        // Every name starting with the prefix sorts between the prefix and the prefix followed
+        // by the largest character
+        NavigableMap<String, Name> range = names.subMap(folded, true, folded + Character.MAX_VALUE, false);
+        List<Task> page = new ArrayList<>(Math.min(limit, 64));
+        int total = 0;
+        for (Name name : range.values()) {
+            int size = name.tasks.size();
+            // Only names overlapping the page are looked into
+            for (int i = Math.max(0, offset - total); i < size && page.size() < limit; i++) {
+                page.add(name.tasks.get(i));
+            }
+            total += size;
+        }
+        return new Page(page, offset, total);
+    }
+
+    /**
+     * Finds tasks whose names contain the given text, ignoring case, in name order.
+     *
+     * @param text   The text names must contain
+     * @param offset Number of matches to skip, for later pages
+     * @param limit  Largest number of tasks to return
+     * @return One page of matching tasks
+     */
+    public Page containing(String text, int offset, int limit) {
+        String folded = NameIndex.fold(text);
+        if (folded.isEmpty()) {
+            return startingWith(text, offset, limit); // Every name contains the empty string
+        }
+
+        Matches matches = lastMatches;
+        if (matches == null || matches.version != version || !matches.query.equals(folded)) {
+            matches = findMatches(folded);
+            lastMatches = matches;
+        }
+
+        List<Task> page = new ArrayList<>(Math.min(limit, 64));
+        // Find the first name holding a task at the offset, then read tasks from there
+        int first = Arrays.binarySearch(matches.ends, offset);
+        first = first >= 0 ? first + 1 : -first - 1;
+        for (int n = first; n < matches.names.length && page.size() < limit; n++) {
+            List<Task> tasks = matches.names[n].tasks;
+            int skip = n == first ? offset - (n == 0 ? 0 : matches.ends[n - 1]) : 0;
+            for (int i = Math.max(0, skip); i < tasks.size() && page.size() < limit; i++) {
+                page.add(tasks.get(i));
+            }
+        }
+        return new Page(page, offset, matches.total());
+    }
+
+    // This method finds and sorts every name containing a case-folded query.
+    private Matches findMatches(String folded) {
+        // Gather the posting lists every match must be on
+        List<Postings> lists = new ArrayList<>();
+        if (folded.length() >= GRAM) {
+            for (int i = 0; i + GRAM <= folded.length(); i++) {
+                lists.add(trigrams.get(trigram(folded, i)));
+            }
+        } else {
+            for (int i = 0; i < folded.length(); i++) {
+                lists.add(characters.get(folded.charAt(i)));
+            }
+        }
+        if (lists.contains(null)) {
+            return new Matches(folded, version, new Name[0], new int[0]);
+        }
+
+        // Walk the shortest list and keep the numbers every other list holds too
+        lists.sort(Comparator.comparingInt((Postings postings) -> postings.size));
+        Postings rarest = lists.get(0);
+        List<Name> found = new ArrayList<>();
+        for (int i = 0; i < rarest.size; i++) {
+            int number = rarest.numbers[i];
+            boolean onAll = true;
+            for (int l = 1; l < lists.size() && onAll; l++) {
+                onAll = lists.get(l).contains(number);
+            }
+            // The pieces may sit apart in the name, so check the name itself; removed names are null
+            Name name = numbered.get(number);
+            if (onAll && name != null && name.folded.contains(folded)) {
+                found.add(name);
+            }
+        }
+
+        found.sort(Comparator.comparing((Name name) -> name.folded));
+        Name[] sorted = found.toArray(new Name[0]);
+        int[] ends = new int[sorted.length];
+        int total = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            total += sorted[i].tasks.size();
+            ends[i] = total;
+        }
+        return new Matches(folded, version, sorted, ends);
+    }
+
+    // This method gives a new name the next number, which is larger than every number in use.
+    private Name newName(String folded) {
+        Name name = new Name(folded, numbered.size());
+        numbered.add(name);
+        return name;
+    }
+
+    // This method numbers the names left from 0 up, in their old order, and rewrites every
+    // posting list in one pass, dropping the numbers of removed names and lists left empty.
+    // Keeping the old order keeps every list sorted.
+    private void renumber() {
+        int[] newNumbers = new int[numbered.size()];
+        List<Name> renumbered = new ArrayList<>(names.size());
+        for (int number = 0; number < numbered.size(); number++) {
+            Name name = numbered.get(number);
+            if (name == null) {
+                newNumbers[number] = -1;
+            } else {
+                name.number = renumbered.size();
+                newNumbers[number] = name.number;
+                renumbered.add(name);
+            }
+        }
+        numbered = renumbered;
+        freeNumbers = 0;
+        rewritePostings(trigrams, newNumbers);
+        rewritePostings(characters, newNumbers);
+        lastMatches = null; // The cached matches hold the old names
+    }
+
+    // This method maps every number on a set of posting lists to its new number, dropping
+    // numbers that map to -1 and lists left empty.
+    private static <K> void rewritePostings(Map<K, Postings> lists, int[] newNumbers) {
+        lists.values().removeIf(postings -> {
+            int kept = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int number = newNumbers[postings.numbers[i]];
+                if (number >= 0) {
+                    postings.numbers[kept++] = number;
+                }
+            }
+            postings.size = kept;
+            return kept == 0;
+        });
+    }
+
+    // This method packs the three characters starting at an index into a long.
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
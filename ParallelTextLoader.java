@@ -0,0 +1,224 @@
+import java.io.*; // Importing classes for file input/output operations
+import java.nio.ByteBuffer; // Importing class used for positional reads
+import java.nio.channels.FileChannel; // Importing class used to read byte ranges of the file
+import java.nio.charset.StandardCharsets; // Importing the charset used for the text file
+import java.nio.file.StandardOpenOption; // Importing options used to open the file
+import java.util.ArrayList; // Importing ArrayList for the chunk and result lists
+import java.util.List; // Importing List interface for list operations
+import java.util.concurrent.ForkJoinPool; // Importing the pool the chunks are parsed on
+import java.util.concurrent.ForkJoinTask; // Importing class representing a submitted chunk
+import java.util.concurrent.TimeUnit; // Importing time units for the phase timings
+
+/**
+ *
+ * Description:
+ * The ParallelTextLoader class loads a text data file on all cores. The file is split into
+ * byte ranges that end on a newline, each range is read and parsed on a fork-join pool, and
+ * the parsed tasks and goals are merged back in file order. Whether the records are escaped is
+ * read from the header before the ranges are parsed. The time spent in each phase is
+ * kept so it can be reported after the load.
+ */
+public class ParallelTextLoader {
+
+    // Smallest range handed to one worker; smaller files are parsed as a single range
+    private static final int MIN_CHUNK_BYTES = 1024 * 1024;
+    // Largest range handed to one worker, so one range always fits in a byte array
+    private static final int MAX_CHUNK_BYTES = 64 * 1024 * 1024;
+    // Prefix of the header line holding the journal sequence number
+    private static final String HEADER = "Snapshot:";
+
+    // The pool the ranges are parsed on
+    private final ForkJoinPool pool;
+    // Time spent finding the newline-aligned ranges, in nanoseconds
+    private long splitNanos;
+    // Time spent reading and parsing the ranges, in nanoseconds
+    private long parseNanos;
+    // Time spent merging the parsed ranges, in nanoseconds
+    private long mergeNanos;
+    // Number of ranges the last file was split into
+    private int chunkCount;
+
+    /**
+     * Result of parsing one range of the file.
+     */
+    private static class Chunk {
+        final List<Task> tasks = new ArrayList<>(); // Tasks in the range, in file order
+        final List<Goal> goals = new ArrayList<>(); // Goals in the range, in file order
+        final TaskStore store = new TaskStore();    // Holds the fields of the tasks in the range
+        long sequence = -1;                         // Header sequence, if the range holds the header
+        boolean hasIds;                             // True if the range holds a header listing IDs
+        int rejected;                               // Invalid task or goal lines in the range
+    }
+
+    /**
+     * Constructs a ParallelTextLoader that parses on the given pool.
+     *
+     * @param pool The fork-join pool the ranges are parsed on
+     */
+    public ParallelTextLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Loads a text data file. Task or goal lines that fail validation are skipped and counted.
+     *
+     * @param file The file to load
+     * @return The tasks, goals and sequence number read from the file
+     * @throws IOException if the file cannot be read
+     */
+    public SnapshotContents load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // Phase 1: split the file into newline-aligned ranges
+            long start = System.nanoTime();
+            boolean escaped = TextSnapshot.hasEscapes(file);
+            List<long[]> ranges = split(channel);
+            chunkCount = ranges.size();
+            splitNanos = System.nanoTime() - start;
+
+            // Phase 2: read and parse every range on the pool
+            start = System.nanoTime();
+            List<ForkJoinTask<Chunk>> pending = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                pending.add(pool.submit(() -> parse(channel, range[0], range[1], escaped)));
+            }
+            List<Chunk> chunks = new ArrayList<>(pending.size());
+            try {
+                for (ForkJoinTask<Chunk> task : pending) {
+                    chunks.add(task.join());
+                }
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw new IOException("Error parsing " + file + ": " + cause.getMessage(), cause);
+            }
+            parseNanos = System.nanoTime() - start;
+
+            // Phase 3: merge the ranges in file order
+            start = System.nanoTime();
+            int taskCount = 0;
+            int goalCount = 0;
+            for (Chunk chunk : chunks) {
+                taskCount += chunk.tasks.size();
+                goalCount += chunk.goals.size();
+            }
+            List<Task> tasks = new ArrayList<>(taskCount);
+            List<Goal> goals = new ArrayList<>(goalCount);
+            long sequence = 0;
+            boolean hasIds = false;
+            int rejected = 0;
+            for (Chunk chunk : chunks) {
+                rejected += chunk.rejected;
+                tasks.addAll(chunk.tasks);
+                goals.addAll(chunk.goals);
+                if (chunk.sequence >= 0) {
+                    sequence = chunk.sequence;
+                    hasIds = chunk.hasIds;
+                }
+            }
+            mergeNanos = System.nanoTime() - start;
+            return new SnapshotContents(sequence, tasks, goals, rejected, hasIds);
+        }
+    }
+
+    /**
+     * Describes how long each phase of the last load took.
+     *
+     * @return A one-line summary of the phase timings
+     */
+    public String getTimingReport() {
+        return "split " + TimeUnit.NANOSECONDS.toMillis(splitNanos) + " ms, parse "
+                + TimeUnit.NANOSECONDS.toMillis(parseNanos) + " ms (" + chunkCount + " chunk(s) on "
+                + pool.getParallelism() + " thread(s)), merge " + TimeUnit.NANOSECONDS.toMillis(mergeNanos) + " ms";
+    }
+
+    public long getSplitNanos() {
+        return splitNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getMergeNanos() {
+        return mergeNanos;
+    }
+
+    // This method splits the file into ranges of roughly equal size.
+    // Each range except the last ends just after a newline, so no line spans two ranges.
+    private List<long[]> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = Math.max(MIN_CHUNK_BYTES, size / (pool.getParallelism() * 4L));
+        target = Math.min(target, MAX_CHUNK_BYTES / 2);
+
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + target, size);
+            // Move the end forward to just after the next newline
+            while (end < size) {
+                window.clear();
+                int read = channel.read(window, end);
+                int newline = -1;
+                for (int i = 0; i < read && newline < 0; i++) {
+                    if (window.get(i) == '\n') {
+                        newline = i;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            if (end - start > MAX_CHUNK_BYTES) {
+                throw new IOException("Line too long near byte " + start);
+            }
+            ranges.add(new long[] {start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    // This method reads one range of the file and parses every line in it.
+    // Records are decoded straight out of the decoded range, without copying each line first.
+    private static Chunk parse(FileChannel channel, long start, long end, boolean escaped) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+
+        Chunk chunk = new Chunk();
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            int contentEnd = lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (text.startsWith(RecordCodec.TASK_PREFIX, lineStart)) {
+                Task task = RecordCodec.decodeTask(text, lineStart, contentEnd, chunk.store, escaped);
+                if (task != null) {
+                    chunk.tasks.add(task);
+                } else {
+                    chunk.rejected++;
+                }
+            } else if (text.startsWith(RecordCodec.GOAL_PREFIX, lineStart)) {
+                Goal goal = RecordCodec.decodeGoal(text, lineStart, contentEnd, escaped);
+                if (goal != null) {
+                    chunk.goals.add(goal);
+                } else {
+                    chunk.rejected++;
+                }
+            } else if (text.startsWith(HEADER, lineStart)) {
+                String header = text.substring(lineStart + HEADER.length(), contentEnd);
+                chunk.sequence = TextSnapshot.parseHeader(header);
+                chunk.hasIds = TextSnapshot.headerHasIds(header);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ *
+ * Description:
+ * The Priority enum lists the priority levels a task can have, from most to least urgent.
+ * Its ordinal gives the ordering, so High sorts before Medium and Medium before Low, and
+ * each level keeps the label shown to the user and stored in the data file.
+ */
+public enum Priority {
+    HIGH("High"),     // Most urgent
+    MEDIUM("Medium"), // Normal urgency
+    LOW("Low");       // Least urgent
+
+    // The label shown to the user and stored in the data file
+    private final String label;
+
+    Priority(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the label of the priority, such as "High".
+     *
+     * @return The label of the priority
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Finds the priority with the given label, ignoring case.
+     *
+     * @param label The label to look up, such as "high"
+     * @return The matching priority, or null if the label is not a priority
+     */
+    public static Priority parse(CharSequence label) {
+        if (label == null) {
+            return null;
+        }
+        String value = label.toString();
+        for (Priority priority : values()) {
+            if (priority.label.equalsIgnoreCase(value)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the label of the priority.
+     *
+     * @return The label of the priority
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,171 @@
+// Import ArrayList for the listing results and the buckets
+import java.util.ArrayList;
+// Import IdentityHashMap for finding the place of a task
+import java.util.IdentityHashMap;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+// Import TreeMap for buckets kept in the order tasks were added
+import java.util.TreeMap;
+
+/**
+ *
+ * Description:
+ * The PriorityBuckets class holds tasks in one bucket per Priority, each bucket keeping its
+ * tasks in the order they were added. Listing tasks by priority is a walk over the High,
+ * Medium and Low buckets in turn, with no sorting, and a second set of buckets holding only
+ * open tasks gives the next highest-priority open task from the front of a bucket. Every task
+ * gets a sequence number when it is added, and each bucket is a tree keyed by that number, so
+ * a task whose priority changes, or that is reopened, goes back to the place it was added at
+ * rather than to the end. Adding, removing and updating a task take logarithmic time. The
+ * front task of each open bucket is also kept aside, updated as tasks come and go, so the
+ * next open task is found in constant time without walking down a tree.
+ */
+public class PriorityBuckets {
+
+    /**
+     * Where a task is kept.
+     */
+    private static class Place {
+        final long sequence; // The order the task was added in
+        int bucket;          // The bucket the task is in, the Priority ordinal
+        boolean open;        // True if the task is also in the open-tasks buckets
+
+        Place(long sequence, int bucket) {
+            this.sequence = sequence;
+            this.bucket = bucket;
+        }
+    }
+
+    // Buckets of all tasks and of open tasks, indexed by Priority ordinal, keyed by sequence number
+    private final List<TreeMap<Long, Task>> all = new ArrayList<>();
+    private final List<TreeMap<Long, Task>> open = new ArrayList<>();
+    // The first task of each open bucket, or null if the bucket is empty
+    private final Task[] openHeads = new Task[Priority.values().length];
+    // The sequence number of each bucket's first task
+    private final long[] openHeadSequences = new long[openHeads.length];
+    // Task to where it is kept
+    private final Map<Task, Place> places = new IdentityHashMap<>();
+    // Sequence number given to the next task added
+    private long nextSequence;
+
+    /**
+     * Constructs empty buckets.
+     */
+    public PriorityBuckets() {
+        for (int i = 0; i < Priority.values().length; i++) {
+            all.add(new TreeMap<>());
+            open.add(new TreeMap<>());
+        }
+    }
+
+    /**
+     * Adds a task to the end of the bucket for its priority.
+     *
+     * @param task The task to add
+     */
+    public void add(Task task) {
+        Place place = new Place(nextSequence++, task.getPriorityLevel().ordinal());
+        places.put(task, place);
+        all.get(place.bucket).put(place.sequence, task);
+        if (!task.isComplete()) {
+            putOpen(place.bucket, place.sequence, task);
+            place.open = true;
+        }
+    }
+
+    /**
+     * Removes a task.
+     *
+     * @param task The task to remove
+     */
+    public void remove(Task task) {
+        Place place = places.remove(task);
+        if (place == null) {
+            return;
+        }
+        all.get(place.bucket).remove(place.sequence);
+        if (place.open) {
+            removeOpen(place.bucket, place.sequence);
+        }
+    }
+
+    /**
+     * Moves a task after its priority or completion changed. The task keeps its place among
+     * the tasks added before and after it, in its new bucket as well as its old one.
+     *
+     * @param task The task that changed
+     */
+    public void update(Task task) {
+        Place place = places.get(task);
+        if (place == null) {
+            return;
+        }
+        int bucket = task.getPriorityLevel().ordinal();
+        if (place.bucket != bucket) {
+            all.get(place.bucket).remove(place.sequence);
+            all.get(bucket).put(place.sequence, task);
+            if (place.open) {
+                removeOpen(place.bucket, place.sequence);
+                putOpen(bucket, place.sequence, task);
+            }
+            place.bucket = bucket;
+        }
+        if (place.open && task.isComplete()) {
+            removeOpen(bucket, place.sequence);
+            place.open = false;
+        } else if (!place.open && !task.isComplete()) {
+            putOpen(bucket, place.sequence, task);
+            place.open = true;
+        }
+    }
+
+    /**
+     * Lists every task from High to Low priority. Tasks with the same priority are listed
+     * in the order they were added.
+     *
+     * @return All tasks in priority order
+     */
+    public List<Task> inPriorityOrder() {
+        List<Task> result = new ArrayList<>(places.size());
+        for (TreeMap<Long, Task> bucket : all) {
+            result.addAll(bucket.values());
+        }
+        return result;
+    }
+
+    /**
+     * Finds the open task with the highest priority, the earliest added among equals.
+     *
+     * @return The next task to work on, or null if every task is complete
+     */
+    public Task nextOpenTask() {
+        for (Task head : openHeads) {
+            if (head != null) {
+                return head;
+            }
+        }
+        return null;
+    }
+
+    // This method adds a task to an open bucket, making it the front task if it was added first.
+    private void putOpen(int bucket, long sequence, Task task) {
+        open.get(bucket).put(sequence, task);
+        if (openHeads[bucket] == null || sequence < openHeadSequences[bucket]) {
+            openHeads[bucket] = task;
+            openHeadSequences[bucket] = sequence;
+        }
+    }
+
+    // This method removes a task from an open bucket, finding the new front task if it was the front.
+    private void removeOpen(int bucket, long sequence) {
+        TreeMap<Long, Task> tasks = open.get(bucket);
+        tasks.remove(sequence);
+        if (openHeads[bucket] != null && openHeadSequences[bucket] == sequence) {
+            Map.Entry<Long, Task> first = tasks.firstEntry();
+            openHeads[bucket] = first == null ? null : first.getValue();
+            openHeadSequences[bucket] = first == null ? 0 : first.getKey();
+        }
+    }
+}
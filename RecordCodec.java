@@ -0,0 +1,405 @@
+// Import LocalDate for converting validated dates to epoch days
+import java.time.LocalDate;
+
+/**
+ *
+ * Description:
+ * The RecordCodec class converts tasks, goals and items to and from the single-line records
+ * used by the text data file and the journal, for example "Task:name,description,category,
+ * 2024-05-01,High,false,17" or "Goal:name,false,3,4;17;20", where the last fields are the ID
+ * and, for a goal, the IDs of its tasks. Records written before IDs existed have no ID fields
+ * and are given new IDs when read. Commas, backslashes, tabs and line breaks inside a field are escaped
+ * with a backslash, so any name or category can be stored safely. Files written before escaping
+ * existed hold backslashes as plain text; they are decoded with escaped set to false, which
+ * splits on commas only, as Task.fromString used to. Decoding walks the record
+ * once, copying each field straight out of the input, and validates the date, priority and
+ * completion fields on the way. Invalid records are reported by returning null rather than by
+ * throwing, so loading a large file does not pay for exceptions.
+ */
+public class RecordCodec {
+
+    // Record prefixes
+    public static final String TASK_PREFIX = "Task:";
+    public static final String GOAL_PREFIX = "Goal:";
+    public static final String ITEM_PREFIX = "Item:";
+
+    // Number of fields in each record type, not counting the optional ID fields
+    private static final int TASK_FIELDS = 6;
+    private static final int GOAL_FIELDS = 2;
+    private static final int ITEM_FIELDS = 4;
+    // Number of optional ID fields after the required ones
+    private static final int TASK_ID_FIELDS = 1; // ID
+    private static final int GOAL_ID_FIELDS = 2; // ID, then task IDs separated by ';'
+
+    // Days in each month of a non-leap year
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /**
+     * Encodes a task as a record line.
+     *
+     * @param task The task to encode
+     * @return The record line, without a line terminator
+     */
+    public static String encodeTask(Task task) {
+        StringBuilder builder = new StringBuilder(64).append(TASK_PREFIX);
+        appendField(builder, task.getName()).append(',');
+        appendField(builder, task.getDescription()).append(',');
+        appendField(builder, task.getCategory()).append(',');
+        appendField(builder, task.getDeadline()).append(',');
+        appendField(builder, task.getPriority()).append(',');
+        return builder.append(task.isComplete()).append(',').append(task.getId()).toString();
+    }
+
+    /**
+     * Encodes a goal as a record line.
+     *
+     * @param goal The goal to encode
+     * @return The record line, without a line terminator
+     */
+    public static String encodeGoal(Goal goal) {
+        StringBuilder builder = new StringBuilder(32).append(GOAL_PREFIX);
+        appendField(builder, goal.getName()).append(',');
+        builder.append(goal.isComplete()).append(',').append(goal.getId()).append(',');
+        int[] taskIds = goal.getTaskIds();
+        for (int i = 0; i < taskIds.length; i++) {
+            if (i > 0) {
+                builder.append(';');
+            }
+            builder.append(taskIds[i]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Encodes an item as a record line.
+     *
+     * @param item The item to encode
+     * @return The record line, without a line terminator
+     */
+    public static String encodeItem(Item item) {
+        StringBuilder builder = new StringBuilder(48).append(ITEM_PREFIX);
+        appendField(builder, item.getName()).append(',');
+        appendField(builder, item.getDescription()).append(',');
+        appendField(builder, item.getCategory()).append(',');
+        return builder.append(item.isComplete()).toString();
+    }
+
+    /**
+     * Decodes a whole task record line.
+     *
+     * @param line The record line
+     * @return The decoded task, or null if the record is invalid
+     */
+    public static Task decodeTask(CharSequence line) {
+        return decodeTask(line, 0, line.length());
+    }
+
+    /**
+     * Decodes a task record stored in part of a larger buffer.
+     *
+     * @param buffer The buffer holding the record
+     * @param start  Index of the first character of the record
+     * @param end    Index just after the last character of the record
+     * @return The decoded task, or null if the record is invalid
+     */
+    public static Task decodeTask(CharSequence buffer, int start, int end) {
+        return decodeTask(buffer, start, end, TaskStore.forOneTask());
+    }
+
+    /**
+     * Decodes a task record stored in part of a larger buffer into a row of the given store.
+     * Readers of whole files pass one store for all their records.
+     *
+     * @param buffer The buffer holding the record
+     * @param start  Index of the first character of the record
+     * @param end    Index just after the last character of the record
+     * @param store  The store to keep the task's fields in
+     * @return The decoded task, or null if the record is invalid
+     */
+    public static Task decodeTask(CharSequence buffer, int start, int end, TaskStore store) {
+        return decodeTask(buffer, start, end, store, true);
+    }
+
+    /**
+     * Decodes a task record stored in part of a larger buffer into a row of the given store,
+     * in either the escaped format or the unescaped format of older files.
+     *
+     * @param buffer  The buffer holding the record
+     * @param start   Index of the first character of the record
+     * @param end     Index just after the last character of the record
+     * @param store   The store to keep the task's fields in
+     * @param escaped True to undo backslash escapes, false to read backslashes as plain text
+     * @return The decoded task, or null if the record is invalid
+     */
+    public static Task decodeTask(CharSequence buffer, int start, int end, TaskStore store, boolean escaped) {
+        String[] fields = new String[TASK_FIELDS + TASK_ID_FIELDS];
+        int count = splitFields(buffer, start, end, TASK_PREFIX, fields, escaped);
+        if (count < TASK_FIELDS) {
+            return null;
+        }
+        // Check the deadline, priority, completion flag and ID without throwing
+        if (!isValidDate(fields[3]) || !isValidPriority(fields[4]) || !isBoolean(fields[5])) {
+            return null;
+        }
+        int id = count > TASK_FIELDS ? parseId(fields[6]) : 0;
+        if (id < 0) {
+            return null;
+        }
+        Task task = id == 0
+                ? new Task(store, fields[0], fields[1], fields[2], fields[3], fields[4])
+                : new Task(store, id, fields[0], fields[1], fields[2], fields[3], fields[4]);
+        task.setComplete(fields[5].equalsIgnoreCase("true"));
+        return task;
+    }
+
+    /**
+     * Decodes a whole goal record line.
+     *
+     * @param line The record line
+     * @return The decoded goal, or null if the record is invalid
+     */
+    public static Goal decodeGoal(CharSequence line) {
+        return decodeGoal(line, 0, line.length());
+    }
+
+    /**
+     * Decodes a goal record stored in part of a larger buffer.
+     *
+     * @param buffer The buffer holding the record
+     * @param start  Index of the first character of the record
+     * @param end    Index just after the last character of the record
+     * @return The decoded goal, or null if the record is invalid
+     */
+    public static Goal decodeGoal(CharSequence buffer, int start, int end) {
+        return decodeGoal(buffer, start, end, true);
+    }
+
+    /**
+     * Decodes a goal record stored in part of a larger buffer, in either the escaped format
+     * or the unescaped format of older files.
+     *
+     * @param buffer  The buffer holding the record
+     * @param start   Index of the first character of the record
+     * @param end     Index just after the last character of the record
+     * @param escaped True to undo backslash escapes, false to read backslashes as plain text
+     * @return The decoded goal, or null if the record is invalid
+     */
+    public static Goal decodeGoal(CharSequence buffer, int start, int end, boolean escaped) {
+        String[] fields = new String[GOAL_FIELDS + GOAL_ID_FIELDS];
+        int count = splitFields(buffer, start, end, GOAL_PREFIX, fields, escaped);
+        if (count < GOAL_FIELDS || !isBoolean(fields[1])) {
+            return null;
+        }
+        int id = count > GOAL_FIELDS ? parseId(fields[2]) : 0;
+        if (id < 0) {
+            return null;
+        }
+        Goal goal = id == 0 ? new Goal(fields[0]) : new Goal(id, fields[0]);
+        goal.setComplete(fields[1].equalsIgnoreCase("true"));
+        if (count > GOAL_FIELDS + 1 && !fields[3].isEmpty()) {
+            // Task IDs are separated by ';'
+            int idStart = 0;
+            String taskIds = fields[3];
+            while (idStart <= taskIds.length()) {
+                int idEnd = taskIds.indexOf(';', idStart);
+                if (idEnd < 0) {
+                    idEnd = taskIds.length();
+                }
+                int taskId = parseId(taskIds.substring(idStart, idEnd));
+                if (taskId <= 0) {
+                    return null;
+                }
+                goal.addTaskId(taskId);
+                idStart = idEnd + 1;
+            }
+        }
+        return goal;
+    }
+
+    /**
+     * Decodes a whole item record line.
+     *
+     * @param line The record line
+     * @return The decoded item, or null if the record is invalid
+     */
+    public static Item decodeItem(CharSequence line) {
+        String[] fields = new String[ITEM_FIELDS];
+        if (splitFields(line, 0, line.length(), ITEM_PREFIX, fields, true) < ITEM_FIELDS || !isBoolean(fields[3])) {
+            return null;
+        }
+        Item item = new Item(fields[0], fields[1], fields[2]);
+        if (fields[3].equalsIgnoreCase("true")) {
+            item.setComplete();
+        }
+        return item;
+    }
+
+    /**
+     * Checks that a date is in yyyy-MM-dd form with a month from 1 to 12 and a day from 1 to 31,
+     * without throwing. Like the formatter the data file was first written with, a day past the
+     * end of its month, such as 2024-02-30, is accepted and means the month's last day, so files
+     * holding such dates still load.
+     *
+     * @param date The text to check
+     * @return True if the date is valid, otherwise false
+     */
+    public static boolean isValidDate(CharSequence date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return false;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        return year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31;
+    }
+
+    /**
+     * Converts a yyyy-MM-dd date to the number of days since 1970-01-01, without throwing.
+     * A day past the end of its month is moved back to the month's last day.
+     *
+     * @param date The text to convert
+     * @return The epoch day, or Long.MIN_VALUE if the date is not valid
+     */
+    public static long toEpochDay(CharSequence date) {
+        if (!isValidDate(date)) {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int maxDay = month == 2 && isLeapYear(year) ? 29 : DAYS_IN_MONTH[month - 1];
+        return LocalDate.of(year, month, Math.min(digits(date, 8, 10), maxDay)).toEpochDay();
+    }
+
+    /**
+     * Checks that a priority is High, Medium or Low, ignoring case.
+     *
+     * @param priority The text to check
+     * @return True if the priority is valid, otherwise false
+     */
+    public static boolean isValidPriority(CharSequence priority) {
+        return Priority.parse(priority) != null;
+    }
+
+    // This method splits a record into its fields in one pass, undoing the escapes if escaped is true.
+    // Fields beyond the length of the array are ignored so newer records can add fields.
+    // It returns the number of fields read, or -1 if the prefix is missing or an escape is incomplete.
+    private static int splitFields(CharSequence buffer, int start, int end, String prefix, String[] fields,
+                                   boolean escaped) {
+        int length = prefix.length();
+        if (end - start < length) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.charAt(start + i) != prefix.charAt(i)) {
+                return -1;
+            }
+        }
+
+        int field = 0;
+        int fieldStart = start + length;
+        StringBuilder unescaped = null; // Only used for fields that contain escapes
+        for (int i = fieldStart; i <= end && field < fields.length; i++) {
+            char c = i < end ? buffer.charAt(i) : ',';
+            if (c == '\\' && escaped) {
+                if (i + 1 >= end) {
+                    return -1; // A record cannot end in the middle of an escape
+                }
+                if (unescaped == null) {
+                    unescaped = new StringBuilder();
+                }
+                unescaped.append(buffer, fieldStart, i).append(unescape(buffer.charAt(++i)));
+                fieldStart = i + 1;
+            } else if (c == ',') {
+                if (unescaped != null) {
+                    fields[field++] = unescaped.append(buffer, fieldStart, i).toString();
+                    unescaped = null;
+                } else {
+                    fields[field++] = buffer.subSequence(fieldStart, i).toString();
+                }
+                fieldStart = i + 1;
+            }
+        }
+        return field;
+    }
+
+    // This method appends a field to a record, escaping the characters that have a meaning there.
+    private static StringBuilder appendField(StringBuilder builder, String value) {
+        if (value == null) {
+            return builder;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case ',':
+                    builder.append("\\,");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder;
+    }
+
+    // This method returns the character an escape sequence stands for.
+    private static char unescape(char c) {
+        switch (c) {
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            default:
+                return c; // Covers "\," and "\\"
+        }
+    }
+
+    // This method parses a run of decimal digits, returning -1 if any character is not a digit.
+    private static int digits(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Parses a task or goal ID.
+     *
+     * @param text The text to parse
+     * @return The ID, or -1 if the text is not a positive number of at most nine digits
+     */
+    public static int parseId(String text) {
+        if (text.isEmpty() || text.length() > 9) {
+            return -1; // Nine digits always fit in an int
+        }
+        int id = digits(text, 0, text.length());
+        return id > 0 ? id : -1;
+    }
+
+    // This method checks whether a year is a leap year in the Gregorian calendar.
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    // This method checks that a completion flag is "true" or "false", ignoring case.
+    private static boolean isBoolean(String value) {
+        return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false");
+    }
+}
@@ -0,0 +1,261 @@
+import java.io.*; // Importing classes for the temporary data files
+import java.nio.charset.StandardCharsets; // Importing the charset the data files are written in
+import java.nio.file.Files; // Importing class for the temporary directory
+import java.util.ArrayList; // Importing ArrayList for the records written and read
+import java.util.Arrays; // Importing class for comparing goal task IDs
+import java.util.Collections; // Importing class for the empty goal list
+import java.util.List; // Importing List interface for list operations
+import java.util.concurrent.ForkJoinPool; // Importing the pool the parallel loader parses on
+
+/**
+ *
+ * Description:
+ * The RecordCodecTest class checks RecordCodec. It encodes tasks, goals and items whose fields
+ * hold commas, colons, backslashes, tabs and line breaks and checks that they decode to the
+ * same values, both one record at a time and through a whole text data file read by
+ * TextSnapshot and ParallelTextLoader. It checks that lines from files written before
+ * escaping existed keep their backslashes, that dates past the end of their month load as the
+ * month's last day, and that invalid records are reported as null. Finally it times encoding
+ * and decoding and fails if decoding is slower than a floor, so a change that makes loading
+ * much slower is caught.
+ *
+ * Run it with, for example:
+ *   java RecordCodecTest
+ * Settings (system properties):
+ *   taskmanager.test.records    Records timed by the throughput check (default 200000)
+ *   taskmanager.test.min.rate   Fewest records decoded per second that passes (default 100000)
+ * The exit status is 1 if any check failed.
+ */
+public class RecordCodecTest {
+
+    // Number of failed checks
+    private static int failures;
+    // Number of checks run
+    private static int checks;
+
+    /**
+     * Runs every check and prints a summary.
+     *
+     * @param args Not used; the settings are system properties
+     */
+    public static void main(String[] args) throws IOException {
+        roundTripsTasks();
+        roundTripsGoalsAndItems();
+        readsLegacyLines();
+        clampsDaysPastTheEndOfTheMonth();
+        rejectsInvalidRecords();
+        roundTripsDataFiles();
+        measuresThroughput();
+        System.out.println(checks + " check(s), " + failures + " failed.");
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    // This method checks that tasks with delimiters in every text field decode unchanged.
+    private static void roundTripsTasks() {
+        String[] values = {"plain", "a,b", "key: value", "C:\\temp\\new", "two\nlines", "tab\there",
+                "carriage\r\nreturn", "trailing\\", ",", "\\,", ""};
+        for (String value : values) {
+            Task task = new Task(value, "desc " + value, "cat " + value, "2024-05-01", "High");
+            task.setComplete(true);
+            String line = RecordCodec.encodeTask(task);
+            check("task record is one line: " + line, line.indexOf('\n') < 0 && line.indexOf('\r') < 0);
+            Task decoded = RecordCodec.decodeTask(line);
+            check("task decodes: " + line, decoded != null);
+            if (decoded != null) {
+                checkEqual("task name", value, decoded.getName());
+                checkEqual("task description", "desc " + value, decoded.getDescription());
+                checkEqual("task category", "cat " + value, decoded.getCategory());
+                checkEqual("task deadline", "2024-05-01", decoded.getDeadline());
+                checkEqual("task priority", "High", decoded.getPriority());
+                checkEqual("task completion", true, decoded.isComplete());
+                checkEqual("task ID", task.getId(), decoded.getId());
+                checkEqual("task re-encodes", line, RecordCodec.encodeTask(decoded));
+            }
+        }
+    }
+
+    // This method checks that goals and items round-trip, including a goal's task IDs.
+    private static void roundTripsGoalsAndItems() {
+        Goal goal = new Goal("Move, then: C:\\home\nnext");
+        goal.addTaskId(3);
+        goal.addTaskId(17);
+        goal.setComplete(true);
+        Goal decodedGoal = Goal.fromString(goal.toString());
+        checkEqual("goal name", goal.getName(), decodedGoal.getName());
+        checkEqual("goal completion", true, decodedGoal.isComplete());
+        checkEqual("goal ID", goal.getId(), decodedGoal.getId());
+        checkEqual("goal task IDs", Arrays.toString(goal.getTaskIds()), Arrays.toString(decodedGoal.getTaskIds()));
+
+        Item item = new Item("Lamp, desk", "Path C:\\lamp\tand: more", "Home\nOffice");
+        item.setComplete();
+        Item decodedItem = Item.fromString(item.toString());
+        checkEqual("item name", item.getName(), decodedItem.getName());
+        checkEqual("item description", item.getDescription(), decodedItem.getDescription());
+        checkEqual("item category", item.getCategory(), decodedItem.getCategory());
+        checkEqual("item completion", true, decodedItem.isComplete());
+    }
+
+    // This method checks that lines written before escaping existed keep their backslashes.
+    private static void readsLegacyLines() {
+        String line = "Task:Copy files,From C:\\temp to D:\\new,Work,2024-05-01,Medium,false";
+        Task task = RecordCodec.decodeTask(line, 0, line.length(), new TaskStore(1), false);
+        check("legacy task decodes", task != null);
+        if (task != null) {
+            checkEqual("legacy backslashes kept", "From C:\\temp to D:\\new", task.getDescription());
+            checkEqual("legacy completion", false, task.isComplete());
+        }
+        String trailing = "Task:Ends in a backslash,desc\\,Work,2024-05-01,Low,true";
+        Task ends = RecordCodec.decodeTask(trailing, 0, trailing.length(), new TaskStore(1), false);
+        check("legacy field ending in a backslash decodes", ends != null);
+        if (ends != null) {
+            checkEqual("legacy trailing backslash kept", "desc\\", ends.getDescription());
+        }
+        String goalLine = "Goal:Save C:\\temp,true";
+        Goal goal = RecordCodec.decodeGoal(goalLine, 0, goalLine.length(), false);
+        check("legacy goal decodes", goal != null);
+        if (goal != null) {
+            checkEqual("legacy goal name", "Save C:\\temp", goal.getName());
+        }
+    }
+
+    // This method checks that a day past the end of its month means the month's last day,
+    // as it did when the data file was read with a SMART date formatter.
+    private static void clampsDaysPastTheEndOfTheMonth() {
+        String[][] cases = {{"2024-02-30", "2024-02-29"}, {"2023-02-29", "2023-02-28"},
+                {"2024-04-31", "2024-04-30"}, {"2024-12-31", "2024-12-31"}};
+        for (String[] c : cases) {
+            String line = "Task:Pay rent,,Home," + c[0] + ",High,false";
+            Task task = RecordCodec.decodeTask(line, 0, line.length(), new TaskStore(1), false);
+            check("task due " + c[0] + " loads", task != null);
+            if (task != null) {
+                checkEqual("deadline of " + c[0], c[1], task.getDeadline());
+            }
+        }
+        for (String date : new String[] {"2024-02-32", "2024-13-01", "2024-00-10", "2024-01-00", "24-01-01", "2024/01/01"}) {
+            check(date + " is not a date", !RecordCodec.isValidDate(date));
+        }
+    }
+
+    // This method checks that invalid records are reported as null instead of throwing.
+    private static void rejectsInvalidRecords() {
+        String[] lines = {"Task:too,few,fields", "Task:a,b,c,2024-05-01,Urgent,false",
+                "Task:a,b,c,2024-05-01,High,maybe", "Task:a,b,c,2024-05-01,High,false,-3",
+                "Task:ends in an escape\\", "Goal:name,notaboolean", "Goal:name,true,4,5;x", "Other:a,b"};
+        for (String line : lines) {
+            check("rejects " + line, RecordCodec.decodeTask(line) == null && RecordCodec.decodeGoal(line) == null);
+        }
+    }
+
+    // This method checks that whole data files read back the same through both text readers,
+    // and that a file without the escaped-format header is read as a legacy file.
+    private static void roundTripsDataFiles() throws IOException {
+        File directory = Files.createTempDirectory("record-codec-test").toFile();
+        try {
+            List<Task> tasks = new ArrayList<>();
+            tasks.add(new Task("Comma, name", "C:\\temp", "Work: Q3", "2024-05-01", "High"));
+            tasks.add(new Task("Multi\nline", "tab\there", "Home", "2024-06-15", "Low"));
+            Goal goal = new Goal("Goal, with: C:\\path");
+            goal.addTaskId(tasks.get(0).getId());
+            File file = new File(directory, "escaped.txt");
+            Files.write(file.toPath(), TextSnapshot.encode(7, tasks, Collections.singletonList(goal)));
+
+            check("saved file names the escaped format", TextSnapshot.hasEscapes(file));
+            checkSnapshot("TextSnapshot", TextSnapshot.read(file), tasks, goal);
+            checkSnapshot("ParallelTextLoader", new ParallelTextLoader(ForkJoinPool.commonPool()).load(file), tasks, goal);
+
+            File legacy = new File(directory, "legacy.txt");
+            Files.write(legacy.toPath(), ("Task:Copy,C:\\temp,Work,2024-02-30,High,false\n"
+                    + "Goal:Back up C:\\data,false\n").getBytes(StandardCharsets.UTF_8));
+            check("legacy file has no escaped-format header", !TextSnapshot.hasEscapes(legacy));
+            for (SnapshotContents contents : new SnapshotContents[] {TextSnapshot.read(legacy),
+                    new ParallelTextLoader(ForkJoinPool.commonPool()).load(legacy)}) {
+                checkEqual("legacy file rejects nothing", 0, contents.getRejectedLines());
+                checkEqual("legacy file tasks", 1, contents.getTasks().size());
+                if (!contents.getTasks().isEmpty()) {
+                    checkEqual("legacy file description", "C:\\temp", contents.getTasks().get(0).getDescription());
+                    checkEqual("legacy file deadline", "2024-02-29", contents.getTasks().get(0).getDeadline());
+                }
+                checkEqual("legacy file goals", 1, contents.getGoals().size());
+                if (!contents.getGoals().isEmpty()) {
+                    checkEqual("legacy file goal name", "Back up C:\\data", contents.getGoals().get(0).getName());
+                }
+            }
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    // This method compares what a reader loaded with the tasks and goal that were saved.
+    private static void checkSnapshot(String reader, SnapshotContents contents, List<Task> tasks, Goal goal) {
+        checkEqual(reader + " sequence", 7L, contents.getSequence());
+        checkEqual(reader + " rejected lines", 0, contents.getRejectedLines());
+        checkEqual(reader + " task count", tasks.size(), contents.getTasks().size());
+        for (int i = 0; i < Math.min(tasks.size(), contents.getTasks().size()); i++) {
+            checkEqual(reader + " task " + i, tasks.get(i).toString(), contents.getTasks().get(i).toString());
+        }
+        checkEqual(reader + " goal count", 1, contents.getGoals().size());
+        if (!contents.getGoals().isEmpty()) {
+            checkEqual(reader + " goal", goal.toString(), contents.getGoals().get(0).toString());
+        }
+    }
+
+    // This method times encoding and decoding and checks decoding against the floor.
+    private static void measuresThroughput() {
+        int records = Math.max(1, Integer.getInteger("taskmanager.test.records", 200000));
+        long minRate = Long.getLong("taskmanager.test.min.rate", 100000L);
+        TaskStore store = new TaskStore(records);
+        String[] lines = new String[records];
+        for (int i = 0; i < records; i++) {
+            Task task = new Task(store, "Task " + i + ", part " + (i % 7), "Notes: C:\\work\\" + i,
+                    i % 3 == 0 ? "Work" : "Home", "2024-0" + (1 + i % 9) + "-1" + (i % 10), i % 2 == 0 ? "High" : "Low");
+            lines[i] = RecordCodec.encodeTask(task);
+        }
+
+        // Warm up, then time each direction over every record
+        TaskStore target = new TaskStore(records);
+        for (int i = 0; i < Math.min(records, 50000); i++) {
+            RecordCodec.decodeTask(lines[i], 0, lines[i].length(), target);
+        }
+        long start = System.nanoTime();
+        int decoded = 0;
+        Task[] tasks = new Task[records];
+        target = new TaskStore(records);
+        for (String line : lines) {
+            Task task = RecordCodec.decodeTask(line, 0, line.length(), target);
+            if (task != null) {
+                tasks[decoded++] = task;
+            }
+        }
+        double decodeSeconds = (System.nanoTime() - start) / 1e9;
+        start = System.nanoTime();
+        long length = 0;
+        for (int i = 0; i < decoded; i++) {
+            length += RecordCodec.encodeTask(tasks[i]).length();
+        }
+        double encodeSeconds = (System.nanoTime() - start) / 1e9;
+
+        checkEqual("every timed record decodes", records, decoded);
+        long decodeRate = (long) (records / decodeSeconds);
+        System.out.printf("Throughput: decoded %,d records/s, encoded %,d records/s (%,d characters)%n",
+                decodeRate, (long) (records / encodeSeconds), length);
+        check("decodes at least " + minRate + " records/s (measured " + decodeRate + ")", decodeRate >= minRate);
+    }
+
+    // This method records the result of one check and prints it if it failed.
+    private static void check(String description, boolean passed) {
+        checks++;
+        if (!passed) {
+            failures++;
+            System.out.println("FAILED: " + description);
+        }
+    }
+
+    // This method checks that a value is the one expected.
+    private static void checkEqual(String description, Object expected, Object actual) {
+        check(description + ": expected <" + expected + "> but was <" + actual + ">",
+                expected == null ? actual == null : expected.equals(actual));
+    }
+}
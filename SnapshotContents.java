@@ -0,0 +1,91 @@
+// Import List interface for list operations
+import java.util.List;
+
+/**
+ *
+ * Description:
+ * The SnapshotContents class holds what was read from a saved data file: the tasks, the goals,
+ * and the sequence number of the last journal record the file contains. It is returned by
+ * the text and binary snapshot readers so TaskManager can load either format the same way.
+ */
+public class SnapshotContents {
+    private final long sequence;    // Sequence number of the last journal record in the file
+    private final List<Task> tasks; // The tasks read from the file, in file order
+    private final List<Goal> goals; // The goals read from the file, in file order
+    private final int rejectedLines; // Lines that looked like records but were invalid
+    private final boolean hasIds;   // False if the file was written before tasks and goals had IDs
+
+    /**
+     * Constructs a SnapshotContents object with the given data.
+     *
+     * @param sequence Sequence number of the last journal record in the file
+     * @param tasks    The tasks read from the file
+     * @param goals    The goals read from the file
+     */
+    public SnapshotContents(long sequence, List<Task> tasks, List<Goal> goals) {
+        this(sequence, tasks, goals, 0, true);
+    }
+
+    /**
+     * Constructs a SnapshotContents object with the given data and number of skipped lines.
+     *
+     * @param sequence      Sequence number of the last journal record in the file
+     * @param tasks         The tasks read from the file
+     * @param goals         The goals read from the file
+     * @param rejectedLines Number of invalid task or goal lines that were skipped
+     * @param hasIds        False if the file was written before tasks and goals had IDs
+     */
+    public SnapshotContents(long sequence, List<Task> tasks, List<Goal> goals, int rejectedLines, boolean hasIds) {
+        this.sequence = sequence;
+        this.tasks = tasks;
+        this.goals = goals;
+        this.rejectedLines = rejectedLines;
+        this.hasIds = hasIds;
+    }
+
+    /**
+     * Gets the sequence number of the last journal record contained in the file.
+     *
+     * @return The journal sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the tasks read from the file.
+     *
+     * @return A list of Task objects in file order
+     */
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Gets the goals read from the file.
+     *
+     * @return A list of Goal objects in file order
+     */
+    public List<Goal> getGoals() {
+        return goals;
+    }
+
+    /**
+     * Gets the number of task or goal lines that were invalid and skipped.
+     *
+     * @return The number of skipped lines
+     */
+    public int getRejectedLines() {
+        return rejectedLines;
+    }
+
+    /**
+     * Checks whether the file stored task and goal IDs. Files written before IDs existed
+     * did not, so their tasks and goals were given new IDs while being read.
+     *
+     * @return True if the IDs came from the file, otherwise false
+     */
+    public boolean hasIds() {
+        return hasIds;
+    }
+}
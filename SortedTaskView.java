@@ -0,0 +1,92 @@
+// Import ArrayList for the listing results
+import java.util.ArrayList;
+// Import Comparator for the sort key
+import java.util.Comparator;
+// Import IdentityHashMap for the insertion numbers of tasks
+import java.util.IdentityHashMap;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+// Import TreeSet for keeping tasks in sorted order
+import java.util.TreeSet;
+
+/**
+ *
+ * Description:
+ * The SortedTaskView class keeps tasks in a tree sorted by a key, such as the task name, so
+ * listing them in that order is a walk of the tree rather than a sort. Adding and removing a
+ * task cost O(log n). Tasks with equal keys are kept in the order they were added, and a task
+ * keeps that place across edits. A task must be taken out with beforeUpdate before its key
+ * changes and put back with afterUpdate afterwards, because the tree finds it by its key.
+ */
+public class SortedTaskView {
+    // Tasks ordered by key, then by insertion number
+    private final TreeSet<Task> tree;
+    // Task to its insertion number, used to order tasks with equal keys
+    private final Map<Task, Long> insertionNumbers = new IdentityHashMap<>();
+    // The insertion number given to the next task added
+    private long nextInsertionNumber = 0;
+
+    /**
+     * Constructs an empty SortedTaskView.
+     *
+     * @param key Comparator for the sort key
+     */
+    public SortedTaskView(Comparator<Task> key) {
+        this.tree = new TreeSet<>(key.thenComparingLong(insertionNumbers::get));
+    }
+
+    /**
+     * Adds a task after every task with the same key.
+     *
+     * @param task The task to add
+     */
+    public void add(Task task) {
+        insertionNumbers.put(task, nextInsertionNumber++);
+        tree.add(task);
+    }
+
+    /**
+     * Removes a task.
+     *
+     * @param task The task to remove
+     */
+    public void remove(Task task) {
+        if (insertionNumbers.containsKey(task)) {
+            tree.remove(task);
+            insertionNumbers.remove(task);
+        }
+    }
+
+    /**
+     * Takes a task out of the tree before its key changes.
+     *
+     * @param task The task about to change
+     */
+    public void beforeUpdate(Task task) {
+        if (insertionNumbers.containsKey(task)) {
+            tree.remove(task);
+        }
+    }
+
+    /**
+     * Puts a task back into the tree after its key changed, keeping its insertion number.
+     *
+     * @param task The task that changed
+     */
+    public void afterUpdate(Task task) {
+        if (insertionNumbers.containsKey(task)) {
+            tree.add(task);
+        }
+    }
+
+    /**
+     * Lists every task in key order.
+     *
+     * @return All tasks, sorted by key
+     */
+    public List<Task> inOrder() {
+        return new ArrayList<>(tree);
+    }
+}
@@ -0,0 +1,204 @@
+// Import Arrays for growing the symbol arrays
+import java.util.Arrays;
+// Import ConcurrentHashMap for looking symbols up from several loader threads
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * Description:
+ * The SymbolTable class gives each distinct string of a small vocabulary, such as the task
+ * categories, one shared String instance and a small int code. Tasks store the code instead of
+ * their own copy of the string, so a million tasks in "Work" share one "Work", and code can
+ * compare categories as ints. Every spelling also belongs to a case-insensitive group ("Work"
+ * and "work" share a group), for matching that ignores case the way the menus do.
+ *
+ * Symbols are never removed. Looking up a known symbol takes no lock, so the parallel loader
+ * threads can intern their categories at the same time; adding a new one is synchronized.
+ * To report how much memory it saves, the table counts the uses of each symbol by live tasks:
+ * stores that hold the running program's tasks call use and drop as their rows take up and let
+ * go of a code. Every use after the first would otherwise be a copy of its own, so the savings
+ * follow the tasks that exist now, not every string ever interned.
+ */
+public class SymbolTable {
+
+    /**
+     * The table shared by every task for its category.
+     */
+    public static final SymbolTable CATEGORIES = new SymbolTable();
+
+    // Spelling to code, and case-folded spelling to group
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> groups = new ConcurrentHashMap<>();
+    // Code to the shared instance of its spelling, and code to its group. A new array is
+    // published before the code is added to the map, so a reader holding a code always sees it.
+    private volatile String[] names = new String[16];
+    private volatile int[] groupOfCode = new int[16];
+    // Number of codes handed out
+    private volatile int size;
+
+    // Code to the number of live uses of it; guarded by the table's monitor
+    private int[] uses = new int[16];
+
+    /**
+     * Gets the code of a string, adding it if it is new.
+     *
+     * @param symbol The string
+     * @return The code of the string
+     */
+    public int intern(String symbol) {
+        Integer code = codes.get(symbol);
+        return code == null ? add(symbol) : code;
+    }
+
+    /**
+     * Counts one more live use of a code, for example by a task row.
+     *
+     * @param code The code
+     */
+    public synchronized void use(int code) {
+        if (code >= uses.length) {
+            uses = Arrays.copyOf(uses, Math.max(code + 1, uses.length * 2));
+        }
+        uses[code]++;
+    }
+
+    /**
+     * Counts one live use of a code fewer, for example when a task row lets go of it.
+     *
+     * @param code The code
+     */
+    public synchronized void drop(int code) {
+        if (code < uses.length && uses[code] > 0) {
+            uses[code]--;
+        }
+    }
+
+    /**
+     * Gets the code of a string without adding it.
+     *
+     * @param symbol The string, exactly as written
+     * @return The code, or -1 if the string is not in the table
+     */
+    public int codeOf(String symbol) {
+        Integer code = codes.get(symbol);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Gets the shared instance of the string a code stands for.
+     *
+     * @param code The code
+     * @return The string
+     */
+    public String name(int code) {
+        return names[code];
+    }
+
+    /**
+     * Gets the case-insensitive group of a code.
+     *
+     * @param code The code
+     * @return The group, shared by every spelling that differs only in case
+     */
+    public int groupOf(int code) {
+        return groupOfCode[code];
+    }
+
+    /**
+     * Gets the case-insensitive group of a string without adding it.
+     *
+     * @param symbol The string, in any case
+     * @return The group, or -1 if no spelling of the string is in the table
+     */
+    public int groupOf(String symbol) {
+        Integer group = groups.get(NameIndex.fold(symbol));
+        return group == null ? -1 : group;
+    }
+
+    /**
+     * Gets the number of distinct strings in the table, which is its cardinality.
+     *
+     * @return The number of strings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of case-insensitive groups in the table.
+     *
+     * @return The number of groups
+     */
+    public int groupCount() {
+        return groups.size();
+    }
+
+    /**
+     * Gets the number of live uses that share an instance instead of holding their own copy,
+     * which is every use of a string after its first.
+     *
+     * @return The number of duplicates shared now
+     */
+    public synchronized long getDuplicateCount() {
+        long duplicates = 0;
+        for (int code = 0; code < uses.length; code++) {
+            duplicates += Math.max(0, uses[code] - 1);
+        }
+        return duplicates;
+    }
+
+    /**
+     * Gets the memory the shared duplicates would take as copies of their own, estimated for
+     * a 64-bit JVM with compressed pointers.
+     *
+     * @return The bytes saved now
+     */
+    public synchronized long getBytesSaved() {
+        String[] current = names;
+        long bytesSaved = 0;
+        for (int code = 0; code < uses.length; code++) {
+            if (uses[code] > 1) {
+                bytesSaved += (uses[code] - 1) * stringBytes(current[code]);
+            }
+        }
+        return bytesSaved;
+    }
+
+    // This method adds a new string, unless another thread added it first.
+    private synchronized int add(String symbol) {
+        Integer existing = codes.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        int code = size;
+        if (code == names.length) {
+            names = Arrays.copyOf(names, code * 2);
+            groupOfCode = Arrays.copyOf(groupOfCode, code * 2);
+        }
+        names[code] = symbol;
+        String folded = NameIndex.fold(symbol);
+        Integer group = groups.get(folded);
+        if (group == null) {
+            group = groups.size();
+            groups.put(folded, group);
+        }
+        groupOfCode[code] = group;
+        size = code + 1;
+        codes.put(symbol, code);
+        return code;
+    }
+
+    // This method estimates the heap a string takes: a 24-byte String object and a byte array
+    // with a 16-byte header, rounded up to 8 bytes. Strings hold one byte per character unless
+    // some character needs two.
+    private static long stringBytes(String symbol) {
+        int length = symbol.length();
+        for (int i = 0; i < symbol.length(); i++) {
+            if (symbol.charAt(i) > 0xFF) {
+                length = symbol.length() * 2;
+                break;
+            }
+        }
+        return 24 + ((16 + length + 7) & ~7);
+    }
+}
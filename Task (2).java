@@ -1,5 +1,7 @@
-// Import objects for null-safe operations and comparasions
-import java.util.Objects;
+// Import LocalDate for converting the stored deadline back to text
+import java.time.LocalDate;
+// Import AtomicInteger for handing out task IDs, which may happen on several loader threads
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  *
@@ -7,35 +9,168 @@ import java.util.Objects;
  * The Task class represents an individual task with attributes such as name, description, 
  * category, deadline, priority, and completion status. This class provides methods to 
  * manage and modify the task's properties, as well as to convert the task to and from 
- * a string representation. Additionally, the class overrides equals and hashCode 
- * methods for comparison and hashing purposes.
+ * a string representation. Each task has a numeric ID that never changes, and equals and
+ * hashCode compare IDs, so a task keeps its hash code while it is edited.
+ *
+ * A Task only holds its ID and where its fields are kept: a row of a TaskStore, which keeps
+ * the fields of many tasks in columns. A task created on its own gets a store of its own;
+ * the store of the task list takes it over when it is added to the list.
  */
 public class Task {
+    // The highest task ID handed out or seen so far
+    private static final AtomicInteger lastId = new AtomicInteger();
+    // Day numbers of the first and last deadline that can be written as YYYY-MM-DD
+    private static final int FIRST_DAY = (int) LocalDate.of(0, 1, 1).toEpochDay();
+    private static final int LAST_DAY = (int) LocalDate.of(9999, 12, 31).toEpochDay();
+
     // Private attributes of the Task class
-    private String name;           // The name of the task
-    private String description;    // A brief description of the task
-    private String category;       // The category to which the task belongs
-    private String deadline;       // The deadline by which the task should be completed
-    private String priority;       // The priority level of the task
-    private boolean isComplete;    // A flag indicating whether the task is complete
+    private final int id;          // The ID of the task, which never changes
+    private TaskStore store;       // The store holding the name, description, category, deadline, priority and completion
+    private int row;               // The row of the task in the store
 
     /**
-     * Constructs a Task object with the specified attributes.
+     * Constructs a Task object with the specified attributes and a new ID.
      * The task is initially marked as incomplete.
      *
      * @param name        The name of the task
      * @param description A brief description of the task
      * @param category    The category to which the task belongs
-     * @param deadline    The deadline by which the task should be completed
-     * @param priority    The priority level of the task
+     * @param deadline    The deadline by which the task should be completed, in YYYY-MM-DD format
+     * @param priority    The priority level of the task (High, Medium or Low, ignoring case)
+     * @throws IllegalArgumentException if the deadline or priority is not valid
      */
     public Task(String name, String description, String category, String deadline, String priority) {
-        this.name = name;                   // Initialize the name attribute
-        this.description = description;     // Initialize the description attribute
-        this.category = category;           // Initialize the category attribute
-        this.deadline = deadline;           // Initialize the deadline attribute
-        this.priority = priority;           // Initialize the priority attribute
-        this.isComplete = false;            // By default, the task is not complete
+        this(lastId.incrementAndGet(), name, description, category, deadline, priority);
+    }
+
+    /**
+     * Constructs a Task object with a known ID, such as one read back from the data file.
+     * New tasks created afterwards get higher IDs.
+     *
+     * @param id          The ID of the task, greater than zero
+     * @param name        The name of the task
+     * @param description A brief description of the task
+     * @param category    The category to which the task belongs
+     * @param deadline    The deadline by which the task should be completed, in YYYY-MM-DD format
+     * @param priority    The priority level of the task (High, Medium or Low, ignoring case)
+     * @throws IllegalArgumentException if the ID, deadline or priority is not valid
+     */
+    public Task(int id, String name, String description, String category, String deadline, String priority) {
+        this(TaskStore.forOneTask(), id, name, description, category, deadline, priority);
+    }
+
+    /**
+     * Constructs a Task object with a new ID in a row of the given store.
+     * The task is initially marked as incomplete.
+     *
+     * @param store       The store to keep the task's fields in
+     * @param name        The name of the task
+     * @param description A brief description of the task
+     * @param category    The category to which the task belongs
+     * @param deadline    The deadline by which the task should be completed, in YYYY-MM-DD format
+     * @param priority    The priority level of the task (High, Medium or Low, ignoring case)
+     * @throws IllegalArgumentException if the deadline or priority is not valid
+     */
+    public Task(TaskStore store, String name, String description, String category, String deadline, String priority) {
+        this(store, lastId.incrementAndGet(), name, description, category, deadline, priority);
+    }
+
+    /**
+     * Constructs a Task object with a known ID in a row of the given store, such as the store
+     * a file is read into, so reading many tasks does not create a store for each one.
+     *
+     * @param store       The store to keep the task's fields in
+     * @param id          The ID of the task, greater than zero
+     * @param name        The name of the task
+     * @param description A brief description of the task
+     * @param category    The category to which the task belongs
+     * @param deadline    The deadline by which the task should be completed, in YYYY-MM-DD format
+     * @param priority    The priority level of the task (High, Medium or Low, ignoring case)
+     * @throws IllegalArgumentException if the ID, deadline or priority is not valid
+     */
+    public Task(TaskStore store, int id, String name, String description, String category, String deadline, String priority) {
+        this(store, id, name, description, category, toEpochDay(deadline), toPriority(priority));
+    }
+
+    /**
+     * Constructs a Task object with a known ID in a row of the given store, from a deadline
+     * already kept as a day number, such as one read from the binary data file, so it is not
+     * turned into text and parsed again.
+     *
+     * @param store       The store to keep the task's fields in
+     * @param id          The ID of the task, greater than zero
+     * @param name        The name of the task
+     * @param description A brief description of the task
+     * @param category    The category to which the task belongs
+     * @param epochDay    The deadline in days since 1970-01-01, in years 0000 to 9999
+     * @param priority    The priority level of the task
+     * @throws IllegalArgumentException if the ID, deadline or priority is not valid
+     */
+    Task(TaskStore store, int id, String name, String description, String category, int epochDay, Priority priority) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Invalid task ID: " + id);
+        }
+        if (epochDay < FIRST_DAY || epochDay > LAST_DAY) {
+            throw new IllegalArgumentException("Invalid deadline: day " + epochDay);
+        }
+        if (priority == null) {
+            throw new IllegalArgumentException("Invalid priority: null");
+        }
+        reserveIds(id);
+        this.id = id;                       // Initialize the id attribute
+        this.store = store;                 // Keep the other attributes in a new row of the store
+        this.row = store.addRow(this, name, description, category, epochDay, priority); // By default, the task is not complete
+    }
+
+    /**
+     * Gets the ID of the task.
+     *
+     * @return The ID of the task
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Makes sure IDs up to the given one are never handed out to new tasks.
+     *
+     * @param id The highest ID already in use
+     */
+    public static void reserveIds(int id) {
+        lastId.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Gets the highest task ID handed out or seen so far.
+     *
+     * @return The highest task ID in use
+     */
+    public static int getLastId() {
+        return lastId.get();
+    }
+
+    /**
+     * Gets the store holding the task's fields.
+     *
+     * @return The store of the task
+     */
+    public TaskStore getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the row of the task in its store.
+     *
+     * @return The row of the task
+     */
+    public int getRow() {
+        return row;
+    }
+
+    // This method points the task at its new row after TaskStore has moved its fields.
+    void moveTo(TaskStore store, int row) {
+        this.store = store;
+        this.row = row;
     }
 
     /**
@@ -44,7 +179,7 @@ public class Task {
      * @return The name of the task
      */
     public String getName() {
-        return name;
+        return store.name(row);
     }
 
     /**
@@ -53,7 +188,7 @@ public class Task {
      * @param name The new name for the task
      */
     public void setName(String name) {
-        this.name = name; // Update the name attribute
+        store.setName(row, name); // Update the name attribute
     }
 
     /**
@@ -62,7 +197,7 @@ public class Task {
      * @return The description of the task
      */
     public String getDescription() {
-        return description;
+        return store.description(row);
     }
 
     /**
@@ -71,7 +206,7 @@ public class Task {
      * @param description The new description for the task
      */
     public void setDescription(String description) {
-        this.description = description; // Update the description attribute
+        store.setDescription(row, description); // Update the description attribute
     }
 
     /**
@@ -80,7 +215,17 @@ public class Task {
      * @return The category of the task
      */
     public String getCategory() {
-        return category;
+        return store.category(row);
+    }
+
+    /**
+     * Gets the code of the task's category in SymbolTable.CATEGORIES, for comparing and
+     * indexing categories as numbers.
+     *
+     * @return The category code
+     */
+    public int getCategoryCode() {
+        return store.categoryCodeAt(row);
     }
 
     /**
@@ -89,43 +234,63 @@ public class Task {
      * @param category The new category for the task
      */
     public void setCategory(String category) {
-        this.category = category; // Update the category attribute
+        store.setCategory(row, category); // Update the category attribute
     }
 
     /**
      * Gets the deadline of the task.
      *
-     * @return The deadline of the task
+     * @return The deadline of the task in YYYY-MM-DD format
      */
     public String getDeadline() {
-        return deadline;
+        return LocalDate.ofEpochDay(store.deadline(row)).toString();
+    }
+
+    /**
+     * Gets the deadline of the task as a day number, for comparing and indexing deadlines.
+     *
+     * @return The deadline in days since 1970-01-01
+     */
+    public int getDeadlineEpochDay() {
+        return store.deadline(row);
     }
 
     /**
      * Sets the deadline of the task.
      *
-     * @param deadline The new deadline for the task
+     * @param deadline The new deadline for the task, in YYYY-MM-DD format
+     * @throws IllegalArgumentException if the deadline is not a valid YYYY-MM-DD date
      */
     public void setDeadline(String deadline) {
-        this.deadline = deadline; // Update the deadline attribute
+        store.setDeadline(row, toEpochDay(deadline)); // Update the deadline attribute
     }
 
     /**
      * Gets the priority level of the task.
      *
-     * @return The priority level of the task
+     * @return The priority level of the task, such as "High"
      */
     public String getPriority() {
-        return priority;
+        return store.priority(row).getLabel();
+    }
+
+    /**
+     * Gets the priority level of the task as a Priority, for ordering and indexing.
+     *
+     * @return The priority level of the task
+     */
+    public Priority getPriorityLevel() {
+        return store.priority(row);
     }
 
     /**
      * Sets the priority level of the task.
      *
-     * @param priority The new priority level for the task
+     * @param priority The new priority level for the task (High, Medium or Low, ignoring case)
+     * @throws IllegalArgumentException if the priority is not valid
      */
     public void setPriority(String priority) {
-        this.priority = priority; // Update the priority attribute
+        store.setPriority(row, toPriority(priority)); // Update the priority attribute
     }
 
     /**
@@ -134,7 +299,7 @@ public class Task {
      * @return True if the task is complete, otherwise false
      */
     public boolean isComplete() {
-        return isComplete;
+        return store.isComplete(row);
     }
 
     /**
@@ -143,18 +308,19 @@ public class Task {
      * @param isComplete True to mark the task as complete, false otherwise
      */
     public void setComplete(boolean isComplete) {
-        this.isComplete = isComplete; // Update the isComplete flag based on the parameter
+        store.setComplete(row, isComplete); // Update the isComplete flag based on the parameter
     }
 
     /**
      * Returns a string representation of the task, including its name, description, 
-     * category, deadline, priority, and completion status.
+     * category, deadline, priority, completion status and ID.
+     * Commas and other delimiters inside a field are escaped by RecordCodec.
      *
      * @return A string representation of the task
      */
     @Override
     public String toString() {
-        return "Task:" + name + "," + description + "," + category + "," + deadline + "," + priority + "," + isComplete;
+        return RecordCodec.encodeTask(this);
     }
 
     /**
@@ -165,20 +331,16 @@ public class Task {
      * @throws IllegalArgumentException if the input string is invalid
      */
     public static Task fromString(String taskString) {
-        String[] parts = taskString.split(",");
-        if (parts.length < 6) {
+        Task task = RecordCodec.decodeTask(taskString);
+        if (task == null) {
             throw new IllegalArgumentException("Invalid task string: " + taskString);
         }
-        // Extract the task's attributes from the string and create a new Task object
-        Task task = new Task(parts[0].substring(5), parts[1], parts[2], parts[3], parts[4]);
-        task.setComplete(Boolean.parseBoolean(parts[5]));
         return task;
     }
 
     /**
      * Compares this Task object with another object for equality.
-     * Two tasks are considered equal if they have the same name, description, 
-     * category, deadline, priority, and completion status.
+     * Two tasks are considered equal if they have the same ID.
      *
      * @param o The object to compare with this Task
      * @return True if the tasks are equal, otherwise false
@@ -187,24 +349,35 @@ public class Task {
     public boolean equals(Object o) {
         if (this == o) return true; // Check if the objects are the same
         if (o == null || getClass() != o.getClass()) return false; // Check if the other object is a Task
-        Task task = (Task) o;
-        // Compare the task's attributes for equality
-        return isComplete == task.isComplete &&
-                Objects.equals(name, task.name) &&
-                Objects.equals(description, task.description) &&
-                Objects.equals(category, task.category) &&
-                Objects.equals(deadline, task.deadline) &&
-                Objects.equals(priority, task.priority);
+        return id == ((Task) o).id;
     }
 
     /**
      * Returns a hash code value for the Task object.
-     * This is used to efficiently store and retrieve tasks in data structures like hash maps.
+     * It depends only on the ID, so it does not change when the task is edited.
      *
      * @return The hash code value for this Task
      */
     @Override
     public int hashCode() {
-        return Objects.hash(name, description, category, deadline, priority, isComplete);
+        return Integer.hashCode(id);
+    }
+
+    // This method converts a priority label to its Priority.
+    private static Priority toPriority(String priority) {
+        Priority level = Priority.parse(priority);
+        if (level == null) {
+            throw new IllegalArgumentException("Invalid priority: " + priority);
+        }
+        return level;
+    }
+
+    // This method converts a YYYY-MM-DD deadline to the day number it is stored as.
+    private static int toEpochDay(String deadline) {
+        long epochDay = RecordCodec.toEpochDay(deadline);
+        if (epochDay == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Invalid deadline: " + deadline);
+        }
+        return (int) epochDay;
     }
 }
@@ -0,0 +1,286 @@
+// Import ArrayList for the slot table
+import java.util.ArrayList;
+// Import BitSet for the per-value bitmaps
+import java.util.BitSet;
+// Import EnumMap for the priority bitmaps
+import java.util.EnumMap;
+// Import HashMap for the category bitmaps
+import java.util.HashMap;
+// Import IdentityHashMap for finding the slot of a task
+import java.util.IdentityHashMap;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+// Import Predicate for matching tasks on fields that have no bitmap
+import java.util.function.Predicate;
+
+/**
+ *
+ * Description:
+ * The TaskFilterIndex class keeps one bitmap per category, per priority and for the completion
+ * flag. Each task owns one bit position (its slot), handed out in the order tasks are added,
+ * so a filter is answered by combining bitmaps with AND, OR and NOT instead of testing every
+ * task. Bitmaps are updated as tasks are added, edited and removed. When many slots belong to
+ * removed tasks, the slots are renumbered to keep the bitmaps small.
+ *
+ * Deadlines have no bitmaps of their own: one bitmap per day would cost a bit per task for
+ * every distinct day. Date ranges are read from the DeadlineIndex the tasks are also kept in,
+ * which walks only the days in the range, and the tasks found are turned into a bitmap.
+ */
+public class TaskFilterIndex {
+    // Slot to task; null for slots of removed tasks
+    private final List<Task> slots = new ArrayList<>();
+    // Task to its slot
+    private final Map<Task, Integer> slotOf = new IdentityHashMap<>();
+    // Values each slot was indexed under, so bits can be cleared after the task changes
+    private final List<Integer> slotCategory = new ArrayList<>();
+    private final List<Priority> slotPriority = new ArrayList<>();
+
+    // Slots in use
+    private final BitSet live = new BitSet();
+    // Slots of completed tasks
+    private final BitSet complete = new BitSet();
+    // Case-insensitive category group in SymbolTable.CATEGORIES to its slots
+    private final Map<Integer, BitSet> categories = new HashMap<>();
+    // Priority to its slots
+    private final Map<Priority, BitSet> priorities = new EnumMap<>(Priority.class);
+    // The tasks by deadline, kept up to date by the owner of both indexes
+    private final DeadlineIndex deadlines;
+
+    /**
+     * Constructs an empty index that answers date ranges from a deadline index. The caller
+     * must add, remove and update every task in both indexes.
+     *
+     * @param deadlines The index holding the same tasks by deadline
+     */
+    public TaskFilterIndex(DeadlineIndex deadlines) {
+        this.deadlines = deadlines;
+    }
+
+    /**
+     * Adds a task to the index.
+     *
+     * @param task The task to add
+     */
+    public void add(Task task) {
+        int slot = slots.size();
+        slots.add(task);
+        slotCategory.add(null);
+        slotPriority.add(null);
+        slotOf.put(task, slot);
+        live.set(slot);
+        setBits(slot, task);
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove
+     */
+    public void remove(Task task) {
+        Integer slot = slotOf.remove(task);
+        if (slot == null) {
+            return;
+        }
+        clearBits(slot);
+        live.clear(slot);
+        slots.set(slot, null);
+        if (slots.size() > 1024 && slots.size() > 2 * slotOf.size()) {
+            renumber(); // Most slots belong to removed tasks
+        }
+    }
+
+    /**
+     * Takes a task out of the bitmaps before its fields change. The task keeps its slot,
+     * so it keeps its place in filter results.
+     *
+     * @param task The task about to change
+     */
+    public void beforeUpdate(Task task) {
+        Integer slot = slotOf.get(task);
+        if (slot != null) {
+            clearBits(slot);
+        }
+    }
+
+    /**
+     * Puts a task back into the bitmaps after its fields changed.
+     *
+     * @param task The task that changed
+     */
+    public void afterUpdate(Task task) {
+        Integer slot = slotOf.get(task);
+        if (slot != null) {
+            setBits(slot, task);
+        }
+    }
+
+    /**
+     * Gets the slots of every task in the index.
+     *
+     * @return A new bitmap of all slots in use
+     */
+    public BitSet all() {
+        return (BitSet) live.clone();
+    }
+
+    /**
+     * Gets the slots of completed tasks.
+     *
+     * @return A new bitmap of completed tasks
+     */
+    public BitSet complete() {
+        return (BitSet) complete.clone();
+    }
+
+    /**
+     * Gets the slots of tasks in a category, ignoring case. The category is looked up in the
+     * symbol table once; the bitmaps are keyed by its case-insensitive group.
+     *
+     * @param category The category to match
+     * @return A new bitmap of matching tasks
+     */
+    public BitSet category(String category) {
+        int group = SymbolTable.CATEGORIES.groupOf(category);
+        return group < 0 ? new BitSet() : copyOf(categories.get(group));
+    }
+
+    /**
+     * Gets the slots of tasks with a priority, ignoring case.
+     *
+     * @param priority The priority to match
+     * @return A new bitmap of matching tasks
+     */
+    public BitSet priority(String priority) {
+        Priority level = Priority.parse(priority);
+        return level == null ? new BitSet() : copyOf(priorities.get(level));
+    }
+
+    /**
+     * Gets the slots of tasks due between two days, inclusive.
+     *
+     * @param fromEpochDay First day of the range
+     * @param toEpochDay   Last day of the range
+     * @return A new bitmap of matching tasks
+     */
+    public BitSet dueBetween(long fromEpochDay, long toEpochDay) {
+        return toSlots(deadlines.dueBetween(clampDay(fromEpochDay), clampDay(toEpochDay), false));
+    }
+
+    /**
+     * Gets the slots of tasks due before a day.
+     *
+     * @param epochDay The day deadlines must fall before
+     * @return A new bitmap of matching tasks
+     */
+    public BitSet dueBefore(long epochDay) {
+        if (epochDay <= Integer.MIN_VALUE) {
+            return new BitSet();
+        }
+        return toSlots(deadlines.dueBetween(Integer.MIN_VALUE, clampDay(epochDay - 1), false));
+    }
+
+    /**
+     * Gets the slots of tasks passing a test. Used for fields that have no bitmap, such as
+     * the name; every task is tested.
+     *
+     * @param test The test tasks must pass
+     * @return A new bitmap of matching tasks
+     */
+    public BitSet matching(Predicate<Task> test) {
+        BitSet result = new BitSet();
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            if (test.test(slots.get(slot))) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts a bitmap of slots into the tasks they belong to, in slot order.
+     *
+     * @param bits The bitmap to convert
+     * @return The matching tasks
+     */
+    public List<Task> toTasks(BitSet bits) {
+        List<Task> result = new ArrayList<>(bits.cardinality());
+        for (int slot = bits.nextSetBit(0); slot >= 0; slot = bits.nextSetBit(slot + 1)) {
+            Task task = slot < slots.size() ? slots.get(slot) : null;
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    // This method sets the bits of a slot for the task's current values and records them.
+    private void setBits(int slot, Task task) {
+        int category = SymbolTable.CATEGORIES.groupOf(task.getCategoryCode());
+        Priority priority = task.getPriorityLevel();
+
+        categories.computeIfAbsent(category, key -> new BitSet()).set(slot);
+        priorities.computeIfAbsent(priority, key -> new BitSet()).set(slot);
+        complete.set(slot, task.isComplete());
+
+        slotCategory.set(slot, category);
+        slotPriority.set(slot, priority);
+    }
+
+    // This method clears the bits of a slot for the values it was last indexed under.
+    private void clearBits(int slot) {
+        clearBit(categories, slotCategory.get(slot), slot);
+        clearBit(priorities, slotPriority.get(slot), slot);
+        complete.clear(slot);
+    }
+
+    // This method clears one bit and drops the bitmap once no task uses the value.
+    private static <K> void clearBit(Map<K, BitSet> bitmaps, K key, int slot) {
+        BitSet bits = bitmaps.get(key);
+        if (bits != null) {
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    // This method gives the remaining tasks consecutive slots, keeping their order.
+    private void renumber() {
+        List<Task> remaining = toTasks(live);
+        slots.clear();
+        slotOf.clear();
+        slotCategory.clear();
+        slotPriority.clear();
+        live.clear();
+        complete.clear();
+        categories.clear();
+        priorities.clear();
+        for (Task task : remaining) {
+            add(task);
+        }
+    }
+
+    // This method turns tasks into a bitmap of their slots.
+    private BitSet toSlots(List<Task> tasks) {
+        BitSet result = new BitSet();
+        for (Task task : tasks) {
+            Integer slot = slotOf.get(task);
+            if (slot != null) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    // This method limits an epoch day to the range of the deadline index's int days.
+    private static int clampDay(long epochDay) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, epochDay));
+    }
+
+    // This method copies a bitmap so callers can combine it freely.
+    private static BitSet copyOf(BitSet bits) {
+        return bits == null ? new BitSet() : (BitSet) bits.clone();
+    }
+}
@@ -0,0 +1,406 @@
+import java.io.*; // Importing classes for file input/output operations
+import java.nio.ByteBuffer; // Importing class for wrapping bytes written to the channel
+import java.nio.channels.FileChannel; // Importing class for appending to and forcing the journal file
+import java.nio.charset.StandardCharsets; // Importing the UTF-8 charset used for journal records
+import java.nio.file.Files; // Importing class used to swap in a compacted journal
+import java.nio.file.StandardCopyOption; // Importing options used for the atomic rename
+import java.nio.file.StandardOpenOption; // Importing options used to open the journal for appending
+import java.util.zip.CRC32; // Importing checksum class used to detect torn records
+
+/**
+ *
+ * Description:
+ * The TaskJournal class is an append-only write-ahead log of changes made to tasks and goals.
+ * Instead of rewriting the whole data file after every change, TaskManager appends one small
+ * record per mutation. On startup the journal is replayed over the last saved snapshot.
+ * Every record carries a sequence number, so records already contained in a snapshot are
+ * skipped, and a checksum, so a record torn by a crash is detected and discarded.
+ * How often the journal is forced to disk is controlled by the FsyncPolicy. Under the INTERVAL
+ * policy, forceIfDue is also called on a timer, so a record written after the last force does
+ * not wait for the next append to reach the disk. The methods that touch the file are
+ * synchronized, because that timer runs on another thread than the appends.
+ */
+public class TaskJournal {
+
+    /**
+     * The kinds of mutations that can be recorded in the journal.
+     */
+    public enum Operation {
+        ADD_TASK,       // Payload: the task line
+        UPDATE_TASK,    // Payload: the new task line, which holds the task ID
+        COMPLETE_TASK,  // Payload: ID of the task
+        REMOVE_TASK,    // Payload: ID of the task
+        ADD_GOAL,       // Payload: the goal line
+        COMPLETE_GOAL,  // Payload: ID of the goal
+        REMOVE_GOAL,    // Payload: ID of the goal
+        LINK_TASK,      // Payload: ID of the goal, a tab, and ID of the task added to it
+        BULK_UPDATE     // Payload: the BulkAction, a tab, task IDs separated by ';', a tab, and the new value
+    }
+
+    /**
+     * Controls when appended records are forced to the storage device.
+     */
+    public enum FsyncPolicy {
+        ALWAYS,   // Force after every record (safest, slowest)
+        INTERVAL, // Force at most once per interval; up to one interval of records may be lost on power failure
+        NEVER     // Leave flushing to the operating system
+    }
+
+    /**
+     * A single record read back from the journal.
+     */
+    public static class Record {
+        private final long sequence;       // The sequence number of the record
+        private final Operation operation; // The mutation the record describes
+        private final String payload;      // The operation-specific payload
+
+        Record(long sequence, Operation operation, String payload) {
+            this.sequence = sequence;
+            this.operation = operation;
+            this.payload = payload;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Callback used to apply replayed records to the in-memory lists.
+     */
+    public interface RecordHandler {
+        void apply(Record record);
+    }
+
+    // The file the records are appended to
+    private final File journalFile;
+    // When appended records are forced to disk
+    private final FsyncPolicy fsyncPolicy;
+    // Minimum time between two forces when the policy is INTERVAL
+    private final long fsyncIntervalMillis;
+    // Channel the records are appended through; opened after replay
+    private FileChannel channel;
+    // Sequence number of the last record written or replayed
+    private long lastSequence;
+    // Time of the last force, used by the INTERVAL policy
+    private long lastForceMillis;
+    // True when records were written since the last force
+    private boolean unforced;
+    // Current size of the journal in bytes, read by the background compactor
+    private volatile long size;
+    // Number of records currently in the journal, read by the background compactor
+    private volatile int recordCount;
+
+    /**
+     * Constructs a TaskJournal for the given file.
+     *
+     * @param journalFile         The file the records are appended to
+     * @param fsyncPolicy         When appended records are forced to disk
+     * @param fsyncIntervalMillis Minimum time between forces when the policy is INTERVAL
+     */
+    public TaskJournal(File journalFile, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        this.journalFile = journalFile;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+    }
+
+    /**
+     * Creates a TaskJournal configured from system properties.
+     * "taskmanager.fsync" selects the policy (always, interval or never, default always) and
+     * "taskmanager.fsync.interval" the interval in milliseconds (default 1000).
+     *
+     * @param journalFile The file the records are appended to
+     * @return A configured TaskJournal
+     */
+    public static TaskJournal fromSystemProperties(File journalFile) {
+        String policy = System.getProperty("taskmanager.fsync", "always");
+        long interval = Long.getLong("taskmanager.fsync.interval", 1000L);
+        return new TaskJournal(journalFile, FsyncPolicy.valueOf(policy.trim().toUpperCase()), interval);
+    }
+
+    /**
+     * Gets the sequence number of the last record written or replayed.
+     *
+     * @return The last sequence number
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Gets the current size of the journal file in bytes.
+     *
+     * @return The size of the journal in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of records currently in the journal.
+     *
+     * @return The number of records in the journal
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Replays every valid record with a sequence number greater than the given one, then
+     * opens the journal for appending. A torn or corrupt record ends the replay, and the
+     * file is cut back to the last valid record so new records are not appended after it.
+     *
+     * @param afterSequence Sequence number already contained in the loaded snapshot
+     * @param handler       Callback that applies each record
+     * @return The number of records applied
+     * @throws IOException if the journal cannot be read or opened
+     */
+    public synchronized int replay(long afterSequence, RecordHandler handler) throws IOException {
+        lastSequence = afterSequence;
+        long validLength = 0;
+        int valid = 0;
+        int applied = 0;
+
+        if (journalFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Record record = parse(line);
+                    if (record == null) {
+                        break; // Stop at the first torn or corrupt record
+                    }
+                    validLength += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    valid++;
+                    if (record.getSequence() > afterSequence) {
+                        handler.apply(record);
+                        applied++;
+                    }
+                    lastSequence = Math.max(lastSequence, record.getSequence());
+                }
+            }
+        }
+
+        openChannel();
+        if (channel.size() > validLength) {
+            channel.truncate(validLength); // Drop the torn tail
+        } else if (channel.size() < validLength) {
+            // The last record is complete but its newline was never written
+            channel.write(ByteBuffer.wrap(new byte[] {'\n'}), channel.size());
+        }
+        channel.position(validLength);
+        size = validLength;
+        recordCount = valid;
+        return applied;
+    }
+
+    /**
+     * Appends one record to the journal and forces it according to the fsync policy.
+     *
+     * @param operation The mutation being recorded
+     * @param payload   The operation-specific payload
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void append(Operation operation, String payload) throws IOException {
+        if (channel != null && !channel.isOpen()) {
+            // A failed compaction could not reopen the journal; try again before giving up
+            openChannel();
+            channel.position(channel.size());
+        }
+        long sequence = lastSequence + 1;
+        String body = sequence + "\t" + operation + "\t" + payload;
+        String line = body + "\t" + Long.toHexString(checksum(body)) + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        lastSequence = sequence;
+        size += buffer.limit();
+        recordCount++;
+        unforced = true;
+
+        long now = System.currentTimeMillis();
+        if (fsyncPolicy == FsyncPolicy.ALWAYS
+                || (fsyncPolicy == FsyncPolicy.INTERVAL && now - lastForceMillis >= fsyncIntervalMillis)) {
+            force();
+            lastForceMillis = now;
+        }
+    }
+
+    /**
+     * Gets when appended records are forced to disk.
+     *
+     * @return The fsync policy
+     */
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Gets the longest time records may wait to be forced when the policy is INTERVAL.
+     *
+     * @return The interval in milliseconds
+     */
+    public long getFsyncIntervalMillis() {
+        return fsyncIntervalMillis;
+    }
+
+    /**
+     * Forces records written since the last force if the policy is INTERVAL. Called once per
+     * interval on a timer, so a record stays unforced for at most one interval even when no
+     * further records are appended.
+     *
+     * @throws IOException if the journal cannot be forced
+     */
+    public synchronized void forceIfDue() throws IOException {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && unforced && channel != null && channel.isOpen()) {
+            force();
+            lastForceMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Forces any records written since the last force to the storage device.
+     *
+     * @throws IOException if the journal cannot be forced
+     */
+    public synchronized void force() throws IOException {
+        if (unforced && fsyncPolicy != FsyncPolicy.NEVER) {
+            channel.force(false);
+        }
+        unforced = false;
+    }
+
+    /**
+     * Removes every record from the journal. Called after a snapshot containing all
+     * records up to getLastSequence() has been written.
+     *
+     * @throws IOException if the journal cannot be truncated
+     */
+    public synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        size = 0;
+        recordCount = 0;
+        unforced = true;
+        force();
+    }
+
+    /**
+     * Removes the records stored before the given position, keeping any appended after it.
+     * The remaining records are copied to a temporary file that then replaces the journal,
+     * so a crash leaves either the old or the new journal. Called after a snapshot containing
+     * every record before the position has been written.
+     *
+     * @param position Journal size at the time the snapshot was taken
+     * @return The number of bytes removed from the journal
+     * @throws IOException if the journal cannot be rewritten
+     */
+    public synchronized long discardThrough(long position) throws IOException {
+        if (position >= size) {
+            truncate();
+            return position;
+        }
+
+        File tempFile = new File(journalFile.getPath() + ".tmp");
+        int remaining = 0;
+        try (FileChannel temp = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long offset = position;
+            while (offset < size) {
+                buffer.clear();
+                int read = channel.read(buffer, offset);
+                if (read < 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        remaining++; // Count the records that are kept
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    temp.write(buffer);
+                }
+                offset += read;
+            }
+            temp.force(false);
+        }
+
+        channel.close();
+        boolean moved = false;
+        try {
+            Files.move(tempFile.toPath(), journalFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } finally {
+            // Reopen whichever journal is in place, so appends keep working even if the move failed
+            openChannel();
+            channel.position(channel.size());
+            size = channel.size();
+        }
+        if (moved) {
+            recordCount = remaining;
+            unforced = false;
+        }
+        return position;
+    }
+
+    /**
+     * Forces outstanding records and closes the journal.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // This method opens the channel records are appended through.
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // This method parses a journal line into a Record.
+    // It returns null if the line is torn, has a bad checksum or an unknown operation.
+    private static Record parse(String line) {
+        int lastTab = line.lastIndexOf('\t');
+        int firstTab = line.indexOf('\t');
+        int secondTab = firstTab < 0 ? -1 : line.indexOf('\t', firstTab + 1);
+        if (firstTab < 0 || secondTab < 0 || lastTab <= secondTab) {
+            return null;
+        }
+        String body = line.substring(0, lastTab);
+        try {
+            if (Long.parseLong(line.substring(lastTab + 1), 16) != checksum(body)) {
+                return null;
+            }
+            long sequence = Long.parseLong(line.substring(0, firstTab));
+            Operation operation = Operation.valueOf(line.substring(firstTab + 1, secondTab));
+            return new Record(sequence, operation, body.substring(secondTab + 1));
+        } catch (IllegalArgumentException e) {
+            // Covers NumberFormatException and unknown operation names
+            return null;
+        }
+    }
+
+    // This method computes the CRC32 checksum of a record body.
+    private static long checksum(String body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -1,8 +1,11 @@
 import java.io.*; // Importing classes for file input/output operations
-import java.time.LocalDate; // Importing class for handling date operations
-import java.time.format.DateTimeFormatter; // Importing class for formatting date strings
-import java.time.format.DateTimeParseException; // Importing class to handle exceptions during date parsing
+import java.net.InetSocketAddress; // Importing class for the address the HTTP API listens on
+import java.nio.charset.StandardCharsets; // Importing the charset used for batch commands and results
+import java.nio.file.Files; // Importing class used to rename the saved data file into place
+import java.nio.file.StandardCopyOption; // Importing options used for the atomic rename
+import java.time.LocalDate; // Importing class for resolving dates such as "today" in filters
 import java.util.*; // Importing utility classes like List, Scanner, Comparator, etc.
+import java.util.concurrent.ForkJoinPool; // Importing the pool text data files are parsed on
 
 /**
  *
@@ -12,44 +15,152 @@ import java.util.*; // Importing utility classes like List, Scanner, Comparator,
  * and goals from a file.
  */
 public class TaskManager {
-    // List to store Task objects
-    private List<Task> tasks;
-    // List to store Goal objects
-    private List<Goal> goals;
+    // Tasks, goals and the indexes over them, safe to read and change from several threads
+    private final TaskRepository repository = new TaskRepository();
+    // Largest number of typing mistakes a suggested name may differ by
+    private final int fuzzyDistance = Math.max(1, Integer.getInteger("taskmanager.fuzzy.distance", 2));
+    // Number of search results shown per page
+    private final int pageSize = Math.max(1, Integer.getInteger("taskmanager.page.size", 20));
+    // Number of rows a task table shows before asking whether to go on; 0 shows every row at once
+    private final int tablePageSize = Math.max(0, Integer.getInteger("taskmanager.table.page.size", 100));
+    // Formats task tables into a buffer and writes them to the console in large blocks
+    private final TaskTableRenderer tableRenderer = new TaskTableRenderer(System.out);
+    // Number of skipped lines an import prints before writing the rest to a report file
+    private static final int MAX_REJECTIONS_SHOWN = 10;
     // File object representing the data file where tasks and goals are saved
     private final File dataFile = new File("taskmanager_data.txt");
+    // File object representing the binary data file, which loads faster than the text file
+    private final File binaryDataFile = new File("taskmanager_data.bin");
+    // True to save in the binary format (the default), false to save in the text format
+    private final boolean binaryFormat =
+            !"text".equalsIgnoreCase(System.getProperty("taskmanager.format", "binary"));
+    // File object representing the journal that records changes made since the last save
+    private final File journalFile = new File("taskmanager_journal.txt");
+    // File object representing the saved full-text index, which matches the data file it was saved with
+    private final File searchIndexFile = new File("taskmanager_search.idx");
+    // Journal that each change is appended to instead of rewriting the data file
+    private TaskJournal journal;
+    // Background compactor that folds the journal into a fresh data file
+    private JournalCompactor compactor;
+    // Lock that lets one save or compaction write the data files at a time. It is always
+    // taken before the repository's lock, never while holding it.
+    private final Object persistLock = new Object();
     // Scanner object for reading user input
     private Scanner scanner;
-    // DateTimeFormatter object for formatting and parsing dates in "yyyy-MM-dd" format
-    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // True in batch mode, where changes are saved at checkpoints and at the end instead of journaled
+    private boolean deferPersistence;
+    // Number of changes that could not be written to the journal
+    private volatile int journalFailures;
 
     /**
      * Constructor for TaskManager class.
-     * Initializes the tasks and goals lists, and the scanner object. 
-     * Also loads existing tasks and goals from the data file.
+     * Initializes the scanner object, loads existing tasks and goals from the data file,
+     * and then records every change in the journal.
      */
     public TaskManager() {
-        tasks = new ArrayList<>(); // Initializing the tasks list
-        goals = new ArrayList<>(); // Initializing the goals list
         scanner = new Scanner(System.in); // Initializing the scanner for user input
         loadData(); // Load existing tasks and goals from the data file
+        repository.setChangeLog(this::logChange); // Journal each change from now on
+        compactor = JournalCompactor.fromSystemProperties(journal, this::compactJournal);
+        compactor.start(); // Keep the journal short in the background
     }
 
     /**
      * Main method that creates an instance of TaskManager and starts the program.
-     * @param args Command-line arguments (not used in this program)
+     * With "--batch FILE" (or "--batch -" for standard input) the commands in the file are run
+     * without menus instead; see runBatch. With "--serve [PORT]" the tasks and goals are served
+     * as a JSON HTTP API instead; see runServer.
+     * @param args Command-line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args.length > 1 ? args[1] : "-"));
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            runServer(args.length > 1 ? args[1] : null);
+            return;
+        }
         TaskManager manager = new TaskManager(); // Creating an instance of TaskManager
         manager.start(); // Starting the task manager program
     }
 
+    /**
+     * Runs the commands in a file, or on standard input for "-", without menus (see BatchMode
+     * and executeCommand for the commands). Changes are not journaled one by one; they are
+     * saved by a "checkpoint" command and when the batch ends. Messages meant for a person,
+     * such as "Data loaded successfully.", go to standard error so that standard output holds
+     * only the results.
+     *
+     * @param source The command file, or "-" for standard input
+     * @return The exit status: 0 if every command succeeded, 1 if any failed, 2 if the commands
+     *         could not be read or the data could not be saved
+     */
+    private static int runBatch(String source) {
+        PrintStream results = System.out;
+        System.setOut(System.err);
+        TaskManager manager = new TaskManager();
+        manager.deferPersistence = true;
+
+        int status;
+        try (Reader in = new InputStreamReader(source.equals("-") ? System.in : new FileInputStream(source),
+                StandardCharsets.UTF_8)) {
+            BatchMode batch = new BatchMode(in, new OutputStreamWriter(results, StandardCharsets.UTF_8));
+            status = batch.run(manager::executeCommand) > 0 ? 1 : 0;
+        } catch (IOException e) {
+            System.out.println("Error reading commands: " + e.getMessage());
+            status = 2;
+        }
+        manager.compactor.stop();
+        if (!manager.saveData()) {
+            status = 2;
+        }
+        manager.closeJournal();
+        return status;
+    }
+
+    /**
+     * Serves the tasks and goals as a JSON HTTP API (see TaskServer) until the program is
+     * stopped with Ctrl+C or a kill signal, when the server finishes its running requests and
+     * the data is saved. Changes are journaled as they are made, as in the menus.
+     * The server listens on 127.0.0.1 unless -Dtaskmanager.http.host says otherwise, and on
+     * the given port, or -Dtaskmanager.http.port, or 8080.
+     *
+     * @param port The port to listen on, or null for the default
+     */
+    private static void runServer(String port) {
+        TaskManager manager = new TaskManager();
+        String host = System.getProperty("taskmanager.http.host", "127.0.0.1");
+        TaskServer server;
+        try {
+            int portNumber = port != null ? Integer.parseInt(port) : Integer.getInteger("taskmanager.http.port", 8080);
+            server = new TaskServer(manager.repository, new InetSocketAddress(host, portNumber));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error starting the server: " + e.getMessage());
+            manager.compactor.stop();
+            manager.closeJournal();
+            System.exit(2);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(5); // Let running requests finish
+            manager.compactor.stop();
+            manager.saveData();
+            manager.closeJournal();
+        }));
+        server.start();
+        System.out.println("Serving tasks on http://" + host + ":" + server.getPort() + "/ ("
+                + (server.usesVirtualThreads() ? "a virtual thread" : "a pooled thread")
+                + " per request). Press Ctrl+C to stop.");
+    }
+
     /**
      * Starts the task manager by displaying the main menu and saving data upon exit.
      */
     public void start() {
         showMainMenu(); // Display the main menu
+        compactor.stop(); // Let a running compaction finish first
         saveData(); // Save tasks and goals data when exiting the program
+        closeJournal(); // Release the journal file
     }
 
     /**
@@ -61,8 +172,10 @@ public class TaskManager {
             System.out.println("1. Task Management");
             System.out.println("2. Goal Management");
             System.out.println("3. View Task Statistics");
-            System.out.println("4. Exit");
-            System.out.print("Please select an option (1-4): ");
+            System.out.println("4. Export Data to Text File");
+            System.out.println("5. Import Data from Text or CSV File");
+            System.out.println("6. Exit");
+            System.out.print("Please select an option (1-6): ");
 
             int choice = getIntInput(); // Get user input as an integer
 
@@ -77,6 +190,12 @@ public class TaskManager {
                     displayStats(); // Display statistics about tasks and goals
                     break;
                 case 4:
+                    exportData(); // Write all tasks and goals to a text file
+                    break;
+                case 5:
+                    importData(); // Add the tasks and goals from a text file
+                    break;
+                case 6:
                     System.out.println("Thank you for using the Task Manager Program! Goodbye!");
                     return; // Exit the program
                 default:
@@ -101,8 +220,14 @@ public class TaskManager {
             System.out.println("8. Sort by Name");
             System.out.println("9. Sort by Deadline");
             System.out.println("10. Sort by Priority");
-            System.out.println("11. Return to Main Menu");
-            System.out.print("Please select an option (1-11): ");
+            System.out.println("11. Advanced Filter");
+            System.out.println("12. View Tasks by Due Date");
+            System.out.println("13. Next Highest-Priority Task");
+            System.out.println("14. Most Urgent Tasks");
+            System.out.println("15. Search Names and Descriptions");
+            System.out.println("16. Bulk Update Tasks");
+            System.out.println("17. Return to Main Menu");
+            System.out.print("Please select an option (1-17): ");
 
             int choice = getIntInput(); // Get user input as an integer
 
@@ -138,6 +263,24 @@ public class TaskManager {
                     sortByPriority(); // Sort tasks by priority
                     break;
                 case 11:
+                    advancedFilter(); // Filter tasks by a combination of conditions
+                    break;
+                case 12:
+                    viewTasksByDueDate(); // Show overdue tasks or tasks due in a date range
+                    break;
+                case 13:
+                    showNextTask(); // Show the open task to work on next
+                    break;
+                case 14:
+                    showMostUrgentTasks(); // Show the open tasks ranked by priority and deadline
+                    break;
+                case 15:
+                    searchFullText(); // Search the words in task names and descriptions
+                    break;
+                case 16:
+                    bulkUpdateTasks(); // Change every task matching a filter at once
+                    break;
+                case 17:
                     return; // Return to the main menu
                 default:
                     System.out.println("Invalid option. Please try again.");
@@ -192,6 +335,12 @@ public class TaskManager {
         while (true) {
             System.out.print("Enter Task Name: ");
             String name = scanner.nextLine().trim(); // Get task name from user
+            if (repository.hasTaskNamed(name) && !confirmDuplicateName("task", name)) {
+                continue; // Ask for a different name
+            }
+
+            System.out.print("Enter Task Description (optional): ");
+            String description = scanner.nextLine().trim(); // Get task description from user
 
             System.out.print("Enter Task Category (e.g., Work, Personal, School): ");
             String category = scanner.nextLine().trim(); // Get task category from user
@@ -214,10 +363,8 @@ public class TaskManager {
                 }
             } while (!isValidDate(deadline)); // Validate date input
 
-            Task task = new Task(name, "", category, deadline, priority); // Create a new Task object
-            tasks.add(task); // Add the task to the tasks list
-
-            saveData(); // Save the updated tasks list
+            Task task = new Task(name, description, category, deadline, priority); // Create a new Task object
+            repository.addTask(task); // Add the task to the tasks list and record it
             System.out.println("Task \"" + name + "\" has been added successfully!");
 
             System.out.print("Do you want to add another task? (y/n): ");
@@ -232,19 +379,39 @@ public class TaskManager {
      * Displays all tasks in a formatted list.
      */
     public void viewAllTasks() {
+        List<Task> allTasks = repository.tasks(); // A copy, so the user may page through it while tasks change
         System.out.println("All Tasks:");
-        System.out.printf("%-4s%-20s%-15s%-15s%-10s%-10s%n", "No", "Name", "Category", "Deadline", "Priority", "Completed");
-        System.out.println("-------------------------------------------------------------------------");
+        printTaskTable(allTasks);
+    }
 
-        int index = 1;
-        for (Task task : tasks) {
-            System.out.printf("%-4d%-20s%-15s%-15s%-10s%-10s%n",
-                    index++,
-                    task.getName(),
-                    task.getCategory(),
-                    task.getDeadline(),
-                    task.getPriority(),
-                    task.isComplete() ? "Yes" : "No"); // Display task details
+    /**
+     * Displays the given tasks in a formatted table. A list longer than the table page size
+     * is shown one page at a time, and the user can stop, go on, or show the rest at once.
+     * Each page is formatted under the read lock, so no task is changed or moved while its
+     * row is read, but the lock is not held while the user decides whether to go on.
+     *
+     * @param tasks The tasks to display, in display order
+     */
+    private void printTaskTable(List<Task> tasks) {
+        tableRenderer.header();
+        int shown = 0;
+        int rowsPerPage = tablePageSize == 0 ? tasks.size() : tablePageSize;
+        while (true) {
+            int from = shown;
+            int to = shown + rowsPerPage;
+            shown = repository.read(() -> tableRenderer.rows(tasks, from, to));
+            tableRenderer.flush();
+            if (shown >= tasks.size()) {
+                return;
+            }
+            System.out.print("Showing 1-" + shown + " of " + tasks.size()
+                    + ". Show the next page? (y/n, or a to show the rest): ");
+            String answer = scanner.nextLine().trim();
+            if (answer.equalsIgnoreCase("a")) {
+                rowsPerPage = tasks.size();
+            } else if (!answer.equalsIgnoreCase("y")) {
+                return;
+            }
         }
     }
 
@@ -253,9 +420,14 @@ public class TaskManager {
      */
     private void viewTasksNamesOnly () {
         System.out.println("\nAll Task Names:");
-        for (int i = 0; i < tasks.size(); i++) {
-            System.out.println((i + 1) + ". " + tasks.get(i).getName());
-        }
+        // Read the names under the read lock, so no task is changed or moved while they are listed
+        repository.read(() -> {
+            List<Task> tasks = repository.tasks();
+            for (int i = 0; i < tasks.size(); i++) {
+                System.out.println((i + 1) + ". " + tasks.get(i).getName());
+            }
+            return null;
+        });
     }
 
     /**
@@ -268,11 +440,9 @@ public class TaskManager {
         System.out.print("Enter the name of the task to mark as complete: ");
         String name = scanner.nextLine().trim();
 
-        Task task = findTaskByName(name);
-        if (task != null) {
-            task.setComplete(true);
-            saveData(); // Save data after marking the task as complete
-            System.out.println("Task \"" + name + "\" has been marked as complete!");
+        Task task = selectTaskByName(name);
+        if (task != null && repository.completeTask(task)) { // The change is recorded so it survives a restart
+            System.out.println("Task \"" + repository.read(task::getName) + "\" has been marked as complete!");
         } else {
             System.out.println("Task not found.");
         }
@@ -288,11 +458,9 @@ public class TaskManager {
         System.out.print("Enter exactly the name of the task to remove:  ");
         String name = scanner.nextLine().trim();
 
-        Task task = findTaskByName(name);
-        if (task != null) {
-            tasks.remove(task);
-            saveData(); // Save data after removing the task
-            System.out.println("Task \"" + name + "\" has been removed successfully!");
+        Task task = selectTaskByName(name);
+        if (task != null && repository.removeTask(task)) { // The removal is recorded
+            System.out.println("Task \"" + repository.read(task::getName) + "\" has been removed successfully!");
         } else {
             System.out.println("Task not found.");
         }
@@ -307,32 +475,34 @@ public class TaskManager {
         System.out.print("Enter the name of the task you want to edit: ");
         String name = scanner.nextLine().trim();
 
-        Task task = findTaskByName(name);
+        Task task = selectTaskByName(name);
         if (task != null) {
             // Edit Task Name
             System.out.print("Enter new task name (Leave blank to keep current): ");
             String newName = scanner.nextLine().trim();
-            if (!newName.isEmpty()) {
-                task.setName(newName);
+            if (!newName.isEmpty() && !newName.equalsIgnoreCase(repository.read(task::getName))
+                    && repository.hasTaskNamed(newName) && !confirmDuplicateName("task", newName)) {
+                newName = ""; // Keep the current name
             }
 
 
+            // Edit Task Description
+            System.out.print("Enter new task description (Leave blank to keep current): ");
+            String newDescription = scanner.nextLine().trim();
+
             // Edit Task Category
             System.out.print("Enter new task category (Leave blank to keep current): ");
             String newCategory = scanner.nextLine().trim();
-            if (!newCategory.isEmpty()) {
-                task.setCategory(newCategory);
-            }
 
             // Edit Task Deadline with Validation
+            String newDeadline;
             while (true) {
                 System.out.print("Enter new deadline (YYYY-MM-DD, leave blank to keep current): ");
-                String newDeadline = scanner.nextLine().trim();
+                newDeadline = scanner.nextLine().trim();
                 if (newDeadline.isEmpty()) {
                     break;  // Keep current deadline
                 }
                 if (isValidDate(newDeadline)) {
-                    task.setDeadline(newDeadline);
                     break;
                 } else {
                     System.out.println("Invalid date format. Please enter the date in YYYY-MM-DD format.");
@@ -340,41 +510,132 @@ public class TaskManager {
             }
 
             // Edit Task Priority with Validation
+            String newPriority;
             while (true) {
                 System.out.print("Enter new priority (High, Medium, Low, leave blank to keep current): ");
-                String newPriority = scanner.nextLine().trim();
+                newPriority = scanner.nextLine().trim();
                 if (newPriority.isEmpty()) {
                     break;  // Keep current priority
                 }
                 if (isValidPriority(newPriority)) {
-                    task.setPriority(newPriority);
                     break;
                 } else {
                     System.out.println("Invalid priority. Please enter 'High', 'Medium', or 'Low'.");
                 }
             }
 
-            System.out.println("Task \"" + task.getName() + "\" has been updated successfully!");
+            // Apply the changes together so no one sees a half-edited task; the edited task
+            // is recorded so it survives a restart
+            String editedName = newName;
+            String editedDeadline = newDeadline;
+            String editedPriority = newPriority;
+            boolean updated = repository.updateTask(task, edited -> {
+                if (!editedName.isEmpty()) {
+                    edited.setName(editedName);
+                }
+                if (!newDescription.isEmpty()) {
+                    edited.setDescription(newDescription);
+                }
+                if (!newCategory.isEmpty()) {
+                    edited.setCategory(newCategory);
+                }
+                if (!editedDeadline.isEmpty()) {
+                    edited.setDeadline(editedDeadline);
+                }
+                if (!editedPriority.isEmpty()) {
+                    edited.setPriority(editedPriority);
+                }
+            });
+            if (updated) {
+                System.out.println("Task \"" + repository.read(task::getName) + "\" has been updated successfully!");
+            } else {
+                System.out.println("Task not found."); // Removed while it was being edited
+            }
         } else {
             System.out.println("Task not found.");
         }
-
-        saveData();  // Save changes
     }
 
     /**
      * Searches for a task by its name and displays its details.
      */
     private void searchTaskByName() {
+        System.out.println("1. Exact Name");
+        System.out.println("2. Name Starts With");
+        System.out.println("3. Name Contains");
+        System.out.print("Please select a search type (1-3): ");
+        int type = getIntInput();
+        if (type < 1 || type > 3) {
+            System.out.println("Invalid option.");
+            return;
+        }
+
         System.out.print("Enter the name of the task to search for: ");
         String name = scanner.nextLine().trim(); // Get search name from user
 
-        Task task = findTaskByName(name);
-        if (task != null) {
-            System.out.println("Task found: " + task); // Display the found task
-        } else {
-            System.out.println("Task not found.");
+        if (type == 1) {
+            // Find and show the tasks under one read lock, so none is changed while it is shown
+            repository.read(() -> {
+                List<Task> matches = repository.tasksNamed(name);
+                if (matches.isEmpty()) {
+                    System.out.println("Task not found.");
+                }
+                for (Task task : matches) {
+                    System.out.println("Task found: " + task); // Display every task with the name
+                }
+                return null;
+            });
+            return;
+        }
+
+        // Show the matches one page at a time
+        int offset = 0;
+        while (true) {
+            NameSearchIndex.Page page = type == 2
+                    ? repository.tasksStartingWith(name, offset, pageSize)
+                    : repository.tasksContaining(name, offset, pageSize);
+            if (page.getTotal() == 0) {
+                System.out.println("Task not found.");
+                return;
+            }
+            System.out.println("Matches " + (offset + 1) + "-" + (offset + page.getTasks().size())
+                    + " of " + page.getTotal() + ":");
+            printTaskTable(page.getTasks());
+            if (!page.hasMore()) {
+                return;
+            }
+            System.out.print("Show the next page? (y/n): ");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                return;
+            }
+            offset += page.getTasks().size();
+        }
+    }
+
+    /**
+     * Searches the words in task names and descriptions and shows the best matches first.
+     */
+    private void searchFullText() {
+        System.out.println("All words must appear; join alternatives with OR, e.g. \"budget report OR invoice\".");
+        System.out.print("Enter the words to search for: ");
+        String query = scanner.nextLine().trim();
+
+        List<Task> matches = repository.search(query, pageSize);
+        if (matches.isEmpty()) {
+            System.out.println("No tasks match.");
+            return;
         }
+        System.out.println("Best matches:");
+        printTaskTable(matches);
+        repository.read(() -> {
+            for (int i = 0; i < matches.size(); i++) {
+                String description = matches.get(i).getDescription();
+                if (description != null && !description.isEmpty()) {
+                    System.out.println((i + 1) + ". " + description);
+                }
+            }
+            return null;
+        });
     }
 
     /**
@@ -384,48 +645,242 @@ public class TaskManager {
         System.out.print("Enter the category to filter by: ");
         String category = scanner.nextLine().trim(); // Get category from user
 
-        List<Task> filteredTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.getCategory().equalsIgnoreCase(category)) {
-                filteredTasks.add(task); // // Add matching tasks to the filteredTasks list
+        // Look up the category's bitmap instead of comparing every task's category, and show
+        // the tasks under the same read lock, so none is changed while it is shown
+        repository.read(() -> {
+            List<Task> filteredTasks = repository.inCategory(category);
+
+            if (filteredTasks.isEmpty()) {
+                System.out.println("No tasks found in this category.");
+            } else {
+                System.out.println("Tasks in category \"" + category + "\":");
+                for (Task task : filteredTasks) {
+                    System.out.println(task); // Display filtered tasks
+                }
             }
+            return null;
+        });
+    }
+
+    /**
+     * Filters tasks by a combination of category, priority, completion and deadline conditions.
+     */
+    private void advancedFilter() {
+        printFilterHelp();
+        System.out.print("Enter the filter (e.g., category:Work AND priority:High AND NOT complete AND due:week): ");
+        String filter = scanner.nextLine().trim();
+
+        TaskQuery query;
+        try {
+            query = TaskQuery.parse(filter);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid filter: " + e.getMessage());
+            return;
         }
 
-        if (filteredTasks.isEmpty()) {
-            System.out.println("No tasks found in this category.");
+        // Find and show the tasks under one read lock, so none is changed while it is shown
+        repository.read(() -> {
+            List<Task> filteredTasks = repository.find(query, LocalDate.now());
+
+            if (filteredTasks.isEmpty()) {
+                System.out.println("No tasks match this filter.");
+            } else {
+                System.out.println(filteredTasks.size() + " task(s) match \"" + filter + "\":");
+                for (Task task : filteredTasks) {
+                    System.out.println(task); // Display matching tasks
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Applies one change (complete, remove, change category or change priority) to every task
+     * matching a filter. The whole change is recorded as a single journal record, so it is
+     * saved, or lost in a crash, as one unit.
+     */
+    private void bulkUpdateTasks() {
+        printFilterHelp();
+        System.out.print("Enter the filter for the tasks to change (e.g., category:Old AND complete): ");
+        String filter = scanner.nextLine().trim();
+
+        List<Task> matches;
+        try {
+            matches = repository.find(TaskQuery.parse(filter), LocalDate.now());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid filter: " + e.getMessage());
+            return;
+        }
+        if (matches.isEmpty()) {
+            System.out.println("No tasks match this filter.");
+            return;
+        }
+
+        System.out.println(matches.size() + " task(s) match \"" + filter + "\":");
+        printTaskTable(matches.size() > pageSize ? matches.subList(0, pageSize) : matches);
+        if (matches.size() > pageSize) {
+            System.out.println("... and " + (matches.size() - pageSize) + " more.");
+        }
+
+        BulkAction[] actions = BulkAction.values();
+        for (int i = 0; i < actions.length; i++) {
+            System.out.println((i + 1) + ". " + actions[i].getLabel());
+        }
+        System.out.println((actions.length + 1) + ". Cancel");
+        System.out.print("Please select an option (1-" + (actions.length + 1) + "): ");
+        int choice = getIntInput();
+        if (choice < 1 || choice > actions.length) {
+            System.out.println("No tasks were changed.");
+            return;
+        }
+        BulkAction action = actions[choice - 1];
+
+        String value = "";
+        if (action == BulkAction.CATEGORY) {
+            System.out.print("Enter the new category: ");
+            value = scanner.nextLine().trim();
+        } else if (action == BulkAction.PRIORITY) {
+            do {
+                System.out.print("Enter the new priority (High, Medium, Low): ");
+                value = scanner.nextLine().trim();
+                if (!isValidPriority(value)) {
+                    System.out.println("Invalid priority. Please enter 'High', 'Medium', or 'Low'.");
+                }
+            } while (!isValidPriority(value)); // Validate priority input
+        }
+
+        System.out.print(action.getLabel() + " for " + matches.size() + " task(s)? (y/n): ");
+        if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+            System.out.println("No tasks were changed.");
+            return;
+        }
+
+        int changed = repository.bulkChange(action, matches, value).size();
+        System.out.println(changed + " task(s) changed.");
+    }
+
+    // This method prints the terms the task filters understand.
+    private void printFilterHelp() {
+        System.out.println("Combine terms with AND, OR, NOT and parentheses. Terms: category:NAME, "
+                + "priority:NAME, complete, open, overdue, due:today, due:week, due:YYYY-MM-DD, "
+                + "name:PATTERN (* matches any text, ? one character)");
+    }
+
+    /**
+     * Displays overdue tasks or the tasks due in a chosen date range, in deadline order.
+     */
+    private void viewTasksByDueDate() {
+        System.out.println("\nView Tasks by Due Date:");
+        System.out.println("1. Overdue Tasks");
+        System.out.println("2. Tasks Due Today");
+        System.out.println("3. Tasks Due in the Next N Days");
+        System.out.println("4. Tasks Due Between Two Dates");
+        System.out.print("Please select an option (1-4): ");
+
+        int today = (int) LocalDate.now().toEpochDay();
+        List<Task> dueTasks;
+        switch (getIntInput()) {
+            case 1:
+                dueTasks = repository.overdue(today);
+                break;
+            case 2:
+                dueTasks = repository.dueBetween(today, today);
+                break;
+            case 3:
+                System.out.print("Enter the number of days: ");
+                int days = getIntInput();
+                dueTasks = repository.dueBetween(today, today + Math.max(days, 0));
+                break;
+            case 4:
+                int from = (int) RecordCodec.toEpochDay(promptForDate("Enter the first date (YYYY-MM-DD): "));
+                int to = (int) RecordCodec.toEpochDay(promptForDate("Enter the last date (YYYY-MM-DD): "));
+                dueTasks = repository.dueBetween(from, to);
+                break;
+            default:
+                System.out.println("Invalid option.");
+                return;
+        }
+
+        if (dueTasks.isEmpty()) {
+            System.out.println("No tasks found.");
         } else {
-            System.out.println("Tasks in category \"" + category + "\":");
-            for (Task task : filteredTasks) {
-                System.out.println(task); // Display filtered tasks
+            printTaskTable(dueTasks);
+        }
+    }
+
+    // This method keeps asking for a date until a valid YYYY-MM-DD date is entered.
+    private String promptForDate(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String date = scanner.nextLine().trim();
+            if (isValidDate(date)) {
+                return date;
             }
+            System.out.println("Invalid date format. Please enter the date in YYYY-MM-DD format.");
         }
     }
 
     /**
-     * Sorts tasks by name.
+     * Lists tasks by name. The name view is kept sorted as tasks change,
+     * so the task list is not sorted or changed.
      */
     private void sortByName() {
-        tasks.sort(Comparator.comparing(Task::getName)); // Sort tasks by name
+        List<Task> byName = repository.tasksByName();
         System.out.println("Tasks sorted by name:");
-        viewAllTasks(); // Display sorted tasks
+        printTaskTable(byName);
     }
 
     /**
-     * Sorts tasks by deadline.
+     * Lists tasks by deadline. The deadline index is kept sorted as tasks change,
+     * so the task list is not sorted or changed.
      */
     private void sortByDeadline() {
-        tasks.sort(Comparator.comparing(Task::getDeadline)); // Sort tasks by deadline
+        List<Task> byDeadline = repository.tasksByDeadline();
         System.out.println("Tasks sorted by deadline:");
-        viewAllTasks(); // Display sorted tasks
+        printTaskTable(byDeadline);
     }
 
     /**
-     * Sorts tasks by priority.
+     * Lists tasks from High to Low priority. The priority buckets are already in this order,
+     * so the task list is not sorted or changed.
      */
     private void sortByPriority() {
-        tasks.sort(Comparator.comparing(Task::getPriority));
+        List<Task> byPriority = repository.tasksByPriority();
         System.out.println("Tasks sorted by priority:");
-        viewAllTasks(); // Display sorted tasks
+        printTaskTable(byPriority);
+    }
+
+    /**
+     * Shows the open task with the highest priority, the earliest added among equals.
+     */
+    private void showNextTask() {
+        Task next = repository.nextOpenTask();
+        if (next == null) {
+            System.out.println("There are no open tasks.");
+            return;
+        }
+        System.out.println("Next task:");
+        printTaskTable(Collections.singletonList(next));
+    }
+
+    /**
+     * Shows the N most urgent open tasks, ranked by deadline with extra days allowed for
+     * Medium and Low priority tasks. The task list is not sorted or changed.
+     */
+    private void showMostUrgentTasks() {
+        System.out.print("How many tasks? ");
+        int count = getIntInput();
+        if (count <= 0) {
+            System.out.println("Please enter a number greater than zero.");
+            return;
+        }
+        List<Task> urgent = repository.mostUrgent(count);
+        if (urgent.isEmpty()) {
+            System.out.println("There are no open tasks.");
+            return;
+        }
+        System.out.println("Most urgent tasks:");
+        printTaskTable(urgent);
     }
 
     /**
@@ -434,11 +889,13 @@ public class TaskManager {
     private void addGoal() {
         System.out.print("Enter Goal Name: ");
         String name = scanner.nextLine().trim(); // Get goal name from user
+        if (repository.hasGoalNamed(name) && !confirmDuplicateName("goal", name)) {
+            System.out.println("Goal not added.");
+            return;
+        }
 
         Goal goal = new Goal(name); // Create a new Goal object
-        goals.add(goal);
-
-        saveData();
+        repository.addGoal(goal); // Add the goal and record it
         System.out.println("Goal \"" + name + "\" has been added successfully!");
     }
 
@@ -447,16 +904,21 @@ public class TaskManager {
  */
 private void viewAllGoals() {
     System.out.println("\nAll Goals:");
-    // Iterate through the list of goals
-    for (Goal goal : goals) {
-        // Print goal name and completion status
-        System.out.println("- " + goal.getName() + (goal.isComplete() ? " (Complete)" : ""));
-        // Iterate through tasks associated with the goal
-        for (Task task : goal.getTasks()) {
-            // Print task name and completion status
-            System.out.println("Tasks attached to goal: " + task.getName() + (task.isComplete() ? " (Complete)" : ""));
+    // Read the goals and their tasks together, so no task is removed while they are listed
+    repository.read(() -> {
+        // Iterate through the list of goals
+        for (Goal goal : repository.goals()) {
+            // Print goal name and completion status
+            System.out.println("- " + goal.getName() + (goal.isComplete() ? " (Complete)" : ""));
+            // Iterate through tasks associated with the goal
+            for (int taskId : goal.getTaskIds()) {
+                Task task = repository.findTask(taskId);
+                // Print task name and completion status
+                System.out.println("Tasks attached to goal: " + task.getName() + (task.isComplete() ? " (Complete)" : ""));
+            }
         }
-    }
+        return null;
+    });
 }
 
 /**
@@ -472,7 +934,7 @@ private void addTaskToGoal() {
     String goalName = scanner.nextLine().trim();
 
     // Find the goal by name
-    Goal goal = findGoalByName(goalName);
+    Goal goal = selectGoalByName(goalName);
     if (goal != null) {
         // Display the names of all tasks
         viewTasksNamesOnly();
@@ -482,11 +944,14 @@ private void addTaskToGoal() {
         String taskName = scanner.nextLine().trim();
 
         // Find the task by name
-        Task task = findTaskByName(taskName);
+        Task task = selectTaskByName(taskName);
         if (task != null) {
             // Add the task to the goal
-            goal.addTask(task);
-            System.out.println("Task \"" + taskName + "\" has been added to goal \"" + goalName + "\".");
+            if (repository.linkTask(goal, task)) {
+                System.out.println("Task \"" + repository.read(task::getName) + "\" has been added to goal \"" + goalName + "\".");
+            } else {
+                System.out.println("Task \"" + repository.read(task::getName) + "\" is already part of goal \"" + goalName + "\".");
+            }
         } else {
             System.out.println("Task not found.");
         }
@@ -500,6 +965,7 @@ private void addTaskToGoal() {
  */
 private void viewGoalsNamesOnly() {
     System.out.println("\nAll Goal Names:");
+    List<Goal> goals = repository.goals();
     // Iterate through the list of goals
     for (int i = 0; i < goals.size(); i++) {
         // Print goal name with index
@@ -520,10 +986,9 @@ private void markGoalComplete() {
     String goalName = scanner.nextLine().trim();
 
     // Find the goal by name
-    Goal goal = findGoalByName(goalName);
-    if (goal != null) {
-        // Set the goal as complete
-        goal.setComplete(true);
+    Goal goal = selectGoalByName(goalName);
+    // Set the goal as complete
+    if (goal != null && repository.completeGoal(goal)) {
         System.out.println("Goal \"" + goalName + "\" has been marked as complete!");
     } else {
         System.out.println("Goal not found.");
@@ -543,10 +1008,9 @@ private void removeGoal() {
     String goalName = scanner.nextLine().trim();
 
     // Find the goal by name
-    Goal goal = findGoalByName(goalName);
-    if (goal != null) {
-        // Remove the goal from the list
-        goals.remove(goal);
+    Goal goal = selectGoalByName(goalName);
+    // Remove the goal from the list
+    if (goal != null && repository.removeGoal(goal)) {
         System.out.println("Goal \"" + goalName + "\" has been removed successfully!");
     } else {
         System.out.println("Goal not found.");
@@ -554,113 +1018,818 @@ private void removeGoal() {
 }
 
 /**
- * Calculates and displays statistics for tasks and goals.
- * It counts the total number of tasks and goals, as well as the number of completed and pending items.
+ * Displays statistics for tasks and goals.
+ * The counts are kept up to date as tasks and goals change, so nothing is counted here.
  */
 private void displayStats() {
-    int totalTasks = tasks.size(); // Total number of tasks
-    long completedTasks = tasks.stream().filter(Task::isComplete).count(); // Number of completed tasks
-
-    int totalGoals = goals.size(); // Total number of goals
-    long completedGoals = goals.stream().filter(Goal::isComplete).count(); // Number of completed goals
+    // Read every count under one hold of the read lock, so they agree with each other
+    repository.read(() -> {
+        TaskStatistics statistics = repository.getStatistics();
+        int totalTasks = statistics.getTaskCount(); // Total number of tasks
+        int completedTasks = statistics.getCompletedTaskCount(); // Number of completed tasks
+
+        int totalGoals = statistics.getGoalCount(); // Total number of goals
+        int completedGoals = statistics.getCompletedGoalCount(); // Number of completed goals
+
+        // Print task statistics
+        System.out.println("Task Statistics:");
+        System.out.println("Total Tasks: " + totalTasks);
+        System.out.println("Completed Tasks: " + completedTasks);
+        System.out.println("Pending Tasks: " + (totalTasks - completedTasks));
+
+        // Print the breakdown by priority and by category
+        System.out.println("\nBy Priority:");
+        for (Priority priority : Priority.values()) {
+            printCounts(statistics.getPriorityCounts(priority));
+        }
+        System.out.println("\nBy Category:");
+        for (TaskStatistics.Counts category : statistics.getCategoryCounts()) {
+            printCounts(category);
+        }
 
-    // Print task statistics
-    System.out.println("Task Statistics:");
-    System.out.println("Total Tasks: " + totalTasks);
-    System.out.println("Completed Tasks: " + completedTasks);
-    System.out.println("Pending Tasks: " + (totalTasks - completedTasks));
+        // Print goal statistics
+        System.out.println("\nGoal Statistics:");
+        System.out.println("Total Goals: " + totalGoals);
+        System.out.println("Completed Goals: " + completedGoals);
+        System.out.println("Pending Goals: " + (totalGoals - completedGoals));
+        for (Goal goal : repository.goals()) {
+            TaskStatistics.Counts progress = statistics.getGoalProgress(goal);
+            int percent = progress.getTotal() == 0 ? 0 : 100 * progress.getComplete() / progress.getTotal();
+            System.out.println("- " + goal.getName() + ": " + percent + "% ("
+                    + progress.getComplete() + " of " + progress.getTotal() + " tasks complete)");
+        }
+        return null;
+    });
+
+    // Print how many categories are shared through the symbol table and what that saves
+    SymbolTable symbols = SymbolTable.CATEGORIES;
+    System.out.println("\nCategory Symbol Table:");
+    System.out.println("Distinct Categories: " + symbols.size() + " (" + symbols.groupCount() + " ignoring case)");
+    System.out.println("Duplicate Copies Shared by Current Tasks: " + symbols.getDuplicateCount()
+            + " (about " + symbols.getBytesSaved() / 1024 + " KB saved)");
+
+    // Print journal statistics
+    System.out.println("\nJournal Statistics:");
+    System.out.println("Unsaved Changes: " + journal.getRecordCount() + " (" + journal.getSize() + " bytes)");
+    System.out.println("Compactions: " + compactor.getCompactionCount()
+            + " (total " + compactor.getTotalCompactionMillis() + " ms, last "
+            + compactor.getLastCompactionMillis() + " ms)");
+    System.out.println("Bytes Reclaimed: " + compactor.getBytesReclaimed());
+}
 
-    // Print goal statistics
-    System.out.println("\nGoal Statistics:");
-    System.out.println("Total Goals: " + totalGoals);
-    System.out.println("Completed Goals: " + completedGoals);
-    System.out.println("Pending Goals: " + (totalGoals - completedGoals));
+// This method prints one line of the priority or category breakdown.
+private void printCounts(TaskStatistics.Counts counts) {
+    System.out.println("- " + counts.getLabel() + ": " + counts.getTotal() + " total, "
+            + counts.getComplete() + " completed, " + counts.getPending() + " pending");
 }
 
 
 // This method searches for a task by its name (case-insensitive).
-// If found, it returns the Task object; otherwise, it returns null.
+// If found, it returns the first Task object added with that name; otherwise, it returns null.
+// The lookup goes through the name index, so it does not scan the list.
 private Task findTaskByName(String name) {
-    return tasks.stream()
-            .filter(task -> task.getName().equalsIgnoreCase(name)) // Filter tasks by name
-            .findFirst() // Get the first matching task
-            .orElse(null); // Return null if no match is found
+    return repository.firstTaskNamed(name);
 }
 
 // This method searches for a goal by its name (case-insensitive).
-// If found, it returns the Goal object; otherwise, it returns null.
+// If found, it returns the first Goal object added with that name; otherwise, it returns null.
 private Goal findGoalByName(String name) {
-    return goals.stream()
-            .filter(goal -> goal.getName().equalsIgnoreCase(name)) // Filter goals by name
-            .findFirst() // Get the first matching goal
-            .orElse(null); // Return null if no match is found
+    return repository.firstGoalNamed(name);
+}
+
+// This method finds the task the user means by a name.
+// If several tasks share the name, it lists them and asks the user to pick one.
+private Task selectTaskByName(String name) {
+    List<Task> matches = repository.tasksNamed(name);
+    if (matches.isEmpty()) {
+        String suggestion = suggestTaskName(name);
+        if (suggestion == null) {
+            return null;
+        }
+        name = suggestion;
+        matches = repository.tasksNamed(suggestion);
+    }
+    if (matches.size() <= 1) {
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+    System.out.println(matches.size() + " tasks are named \"" + name + "\":");
+    List<Task> sameName = matches;
+    repository.read(() -> {
+        for (int i = 0; i < sameName.size(); i++) {
+            Task task = sameName.get(i);
+            System.out.println((i + 1) + ". " + task.getName() + " (" + task.getCategory() + ", due "
+                    + task.getDeadline() + ", " + task.getPriority() + ")");
+        }
+        return null;
+    });
+    return matches.get(selectIndex(matches.size()));
+}
+
+// This method finds the goal the user means by a name.
+// If several goals share the name, it lists them and asks the user to pick one.
+private Goal selectGoalByName(String name) {
+    List<Goal> matches = repository.goalsNamed(name);
+    if (matches.size() <= 1) {
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+    System.out.println(matches.size() + " goals are named \"" + name + "\":");
+    for (int i = 0; i < matches.size(); i++) {
+        Goal goal = matches.get(i);
+        System.out.println((i + 1) + ". " + goal.getName() + (goal.isComplete() ? " (Complete)" : ""));
+    }
+    return matches.get(selectIndex(matches.size()));
+}
+
+// This method asks the user to pick one of the numbered entries and returns its index.
+private int selectIndex(int count) {
+    System.out.print("Select one (1-" + count + "): ");
+    while (true) {
+        int choice = getIntInput();
+        if (choice >= 1 && choice <= count) {
+            return choice - 1;
+        }
+        System.out.print("Invalid option. Please enter a number from 1 to " + count + ": ");
+    }
+}
+
+// This method offers the task names closest to a name that matched nothing, for when the
+// name was mistyped. It returns the name the user picks, or null if there is none or the
+// user picks none. Short names allow only one mistake, so suggestions stay relevant.
+private String suggestTaskName(String name) {
+    int maxDistance = name.length() <= 3 ? 1 : fuzzyDistance;
+    List<FuzzyNameIndex.Match> suggestions = repository.closestTaskNames(name, maxDistance, 5);
+    if (suggestions.isEmpty()) {
+        return null;
+    }
+    System.out.println("No task is named \"" + name + "\". Did you mean:");
+    for (int i = 0; i < suggestions.size(); i++) {
+        // Show the name as the first task with it spells it, not in folded form
+        String folded = suggestions.get(i).getName();
+        String shown = repository.read(() -> {
+            Task task = repository.firstTaskNamed(folded);
+            return task != null ? task.getName() : folded;
+        });
+        System.out.println((i + 1) + ". " + shown);
+    }
+    System.out.print("Select one (1-" + suggestions.size() + "), or 0 for none: ");
+    while (true) {
+        int choice = getIntInput();
+        if (choice == 0) {
+            return null;
+        }
+        if (choice >= 1 && choice <= suggestions.size()) {
+            return suggestions.get(choice - 1).getName();
+        }
+        System.out.print("Invalid option. Please enter a number from 0 to " + suggestions.size() + ": ");
+    }
+}
+
+// This method warns that a name is already in use and asks whether to use it anyway.
+private boolean confirmDuplicateName(String kind, String name) {
+    System.out.print("A " + kind + " named \"" + name + "\" already exists. Use this name anyway? (y/n): ");
+    return scanner.nextLine().trim().equalsIgnoreCase("y");
 }
 
 // This method saves the current list of tasks and goals to a file.
-// Each task and goal is written to the file on a new line.
-private void saveData() {
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(dataFile))) {
-        // Write each task to the file
-        for (Task task : tasks) {
-            writer.write(task.toString());
-            writer.newLine();
-        }
-        // Write each goal to the file
-        for (Goal goal : goals) {
-            writer.write(goal.toString());
-            writer.newLine();
-        }
-        System.out.println("Data saved successfully.");
+// Each task and goal is written to the file on a new line. The first line records the
+// sequence number of the last journal record included, after which the journal is emptied.
+// It returns false if the data could not be saved.
+// The files are written under the read lock, so other threads can keep reading but no change
+// can reach the journal between the snapshot and the truncate.
+private boolean saveData() {
+    synchronized (persistLock) {
+        return repository.read(() -> {
+            try {
+                long sequence = journal == null ? 0 : journal.getLastSequence();
+                writeSnapshot(encodeSnapshot(sequence));
+                writeSearchIndex(repository.encodeSearchIndex(sequence));
+            } catch (IOException e) {
+                // Handle errors that occur during file writing
+                System.out.println("Error saving data: " + e.getMessage());
+                return false; // Keep the journal, it still holds the changes
+            }
+            try {
+                if (journal != null) {
+                    journal.truncate(); // Every record is now part of the data file
+                }
+                System.out.println("Data saved successfully.");
+            } catch (IOException e) {
+                System.out.println("Error truncating journal: " + e.getMessage());
+            }
+            return true;
+        });
+    }
+}
+
+// This method is run by the background compactor. It encodes the data while holding the read
+// lock, writes the files without it so no one is blocked, and then drops the journal records
+// the snapshot contains. It returns the number of journal bytes reclaimed.
+private long compactJournal() throws IOException {
+    synchronized (persistLock) {
+        byte[][] contents = new byte[2][];
+        long journalPosition = repository.read(() -> {
+            contents[0] = encodeSnapshot(journal.getLastSequence());
+            contents[1] = repository.encodeSearchIndex(journal.getLastSequence());
+            return journal.getSize();
+        });
+        writeSnapshot(contents[0]);
+        writeSearchIndex(contents[1]);
+        // Records are appended under the write lock, so take it to drop the old ones
+        try {
+            return repository.write(() -> {
+                try {
+                    return journal.discardThrough(journalPosition);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
+
+// This method encodes every task and goal in the selected data file format.
+private byte[] encodeSnapshot(long sequence) {
+    return repository.read(() -> binaryFormat
+            ? BinarySnapshot.encode(sequence, repository.tasks(), repository.goals())
+            : TextSnapshot.encode(sequence, repository.tasks(), repository.goals()));
+}
+
+// This method writes the data file to a temporary file and renames it over the old one,
+// so a crash while saving never leaves a half-written data file behind.
+private void writeSnapshot(byte[] contents) throws IOException {
+    writeFileAtomically(binaryFormat ? binaryDataFile : dataFile, contents);
+}
+
+// This method saves the full-text index next to the data file. A failure is only reported,
+// because the index is rebuilt from the tasks when it does not match the data file.
+private void writeSearchIndex(byte[] contents) {
+    try {
+        writeFileAtomically(searchIndexFile, contents);
     } catch (IOException e) {
-        // Handle errors that occur during file writing
-        System.out.println("Error saving data: " + e.getMessage());
+        System.out.println("Error saving search index: " + e.getMessage());
+    }
+}
+
+// This method writes a file through a temporary file that is synced and renamed into place.
+private void writeFileAtomically(File file, byte[] contents) throws IOException {
+    File tempFile = new File(file.getPath() + ".tmp");
+    try (FileOutputStream out = new FileOutputStream(tempFile)) {
+        out.write(contents);
+        out.getFD().sync(); // Make sure the data is on disk before the rename
+    }
+    Files.move(tempFile.toPath(), file.toPath(),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+}
+
+// This method appends one change to the journal.
+// Only the changed record is written, so the cost does not grow with the number of tasks.
+private void logChange(TaskJournal.Operation operation, String payload) {
+    if (deferPersistence) {
+        return; // Batch mode saves everything at the next checkpoint instead
+    }
+    try {
+        journal.append(operation, payload);
+    } catch (IOException e) {
+        // Handle errors that occur during journal writing
+        journalFailures++; // Only changed under the repository's write lock
+        System.out.println("Error saving change: " + e.getMessage());
+    }
+}
+
+// This method forces outstanding journal records to disk and closes the journal.
+private void closeJournal() {
+    try {
+        journal.close();
+    } catch (IOException e) {
+        System.out.println("Error closing journal: " + e.getMessage());
     }
 }
 
 // This method loads tasks and goals from a file if it exists.
-// It reads each line and parses it into Task or Goal objects based on the prefix.
+// It reads each line and parses it into Task or Goal objects based on the prefix,
+// then replays the changes recorded in the journal since the file was written.
+// If the file cannot be read, the program stops with exit status 2 and leaves the file alone.
 private void loadData() {
-    if (!dataFile.exists()) {
-        return; // Exit if the file does not exist
+    long sequence = 0; // Sequence number of the last journal record in the data file
+    boolean upgrade = false; // True if the data file was written before tasks and goals had IDs
+    File file = chooseDataFile();
+    if (file != null) {
+        try {
+            SnapshotContents snapshot;
+            if (file == binaryDataFile) {
+                snapshot = BinarySnapshot.read(file);
+            } else {
+                // Parse the text file on all cores and report where the time went
+                ParallelTextLoader loader = new ParallelTextLoader(ForkJoinPool.commonPool());
+                snapshot = loader.load(file);
+                System.out.println("Load times: " + loader.getTimingReport());
+            }
+            int duplicates = repository.load(snapshot, readSearchIndex());
+            if (duplicates > 0) {
+                System.out.println("Skipped " + duplicates + " task(s) with a duplicate ID in the data file.");
+            }
+            sequence = snapshot.getSequence();
+            upgrade = !snapshot.hasIds() && !(snapshot.getTasks().isEmpty() && snapshot.getGoals().isEmpty());
+            if (snapshot.getRejectedLines() > 0) {
+                System.out.println("Skipped " + snapshot.getRejectedLines() + " invalid line(s) in the data file.");
+                // The next save would write the file without the skipped lines, so keep the original
+                try {
+                    File backup = backUpDataFile(file);
+                    System.out.println("The original data file was kept as " + backup.getName()
+                            + "; the skipped lines can be recovered from it.");
+                } catch (IOException e) {
+                    System.out.println("Error backing up the data file: " + e.getMessage());
+                    if (upgrade) {
+                        System.out.println("Not saving task and goal IDs, so the skipped lines are not overwritten.");
+                        upgrade = false;
+                    }
+                }
+            }
+            System.out.println("Data loaded successfully.");
+        } catch (IOException | RuntimeException e) {
+            // Starting with no tasks would overwrite the data file with an empty one on the next
+            // save and drop the journal, so stop before anything is written
+            System.out.println("Error loading data: " + e.getMessage());
+            System.out.println("The data file \"" + file + "\" and the journal were left unchanged. Repair or move the file,"
+                    + " then start the program again.");
+            System.exit(2);
+        }
     }
 
-    try (BufferedReader reader = new BufferedReader(new FileReader(dataFile))) {
-        String line;
-        // Read each line from the file
-        while ((line = reader.readLine()) != null) {
-            if (line.startsWith("Task:")) {
-                // Parse and add tasks to the list
-                tasks.add(Task.fromString(line));
-            } else if (line.startsWith("Goal:")) {
-                // Parse and add goals to the list
-                goals.add(Goal.fromString(line));
-            }
+    journal = TaskJournal.fromSystemProperties(journalFile);
+    try {
+        int replayed = journal.replay(sequence, repository::replay);
+        if (replayed > 0) {
+            System.out.println("Recovered " + replayed + " unsaved change(s) from the journal.");
         }
-        System.out.println("Data loaded successfully.");
     } catch (IOException e) {
-        // Handle errors that occur during file reading
-        System.out.println("Error loading data: " + e.getMessage());
+        // Handle errors that occur during journal reading
+        System.out.println("Error reading journal: " + e.getMessage());
+    }
+    if (upgrade) {
+        // The IDs just given out are only fixed once they are saved
+        System.out.println("Saving the data file with task and goal IDs.");
+        saveData();
+    }
+}
+
+// This method copies a data file to the first free name of the form "<file>.bak", "<file>.bak1", ...
+// so an earlier backup is never overwritten. It returns the copy.
+private File backUpDataFile(File file) throws IOException {
+    File backup = new File(file.getPath() + ".bak");
+    for (int i = 1; backup.exists(); i++) {
+        backup = new File(file.getPath() + ".bak" + i);
+    }
+    Files.copy(file.toPath(), backup.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+    return backup;
+}
+
+// This method reads the saved full-text index. It returns null if there is none or it cannot
+// be read; the repository then builds the index from the tasks, as it does when the saved
+// index does not match the data file.
+private FullTextIndex readSearchIndex() {
+    if (searchIndexFile.exists()) {
+        try {
+            return FullTextIndex.read(searchIndexFile);
+        } catch (IOException e) {
+            System.out.println("Rebuilding the search index: " + e.getMessage());
+        }
+    }
+    return null;
+}
+
+// This method decides which data file to load when both a text and a binary file exist,
+// for example after switching formats. The file holding the most journal records wins,
+// and the selected format wins a tie. It returns null if there is no data file.
+private File chooseDataFile() {
+    File preferred = binaryFormat ? binaryDataFile : dataFile;
+    File other = binaryFormat ? dataFile : binaryDataFile;
+    if (!other.exists()) {
+        return preferred.exists() ? preferred : null;
+    }
+    if (!preferred.exists()) {
+        return other;
+    }
+    try {
+        return readSequence(other) > readSequence(preferred) ? other : preferred;
+    } catch (IOException e) {
+        return preferred;
+    }
+}
+
+// This method reads the journal sequence number from the header of a data file.
+private long readSequence(File file) throws IOException {
+    return file == binaryDataFile ? BinarySnapshot.readSequence(file) : TextSnapshot.readSequence(file);
+}
+
+// This method writes every task and goal to a text file chosen by the user.
+private void exportData() {
+    System.out.print("Enter the file to export to: ");
+    File file = new File(scanner.nextLine().trim());
+
+    byte[] contents = repository.read(() ->
+            TextSnapshot.encode(journal.getLastSequence(), repository.tasks(), repository.goals()));
+    try {
+        writeFileAtomically(file, contents);
+        System.out.println("Data exported to \"" + file + "\" successfully!");
+    } catch (IOException e) {
+        System.out.println("Error exporting data: " + e.getMessage());
+    }
+}
+
+// This method adds the tasks and goals from a file chosen by the user. The file may hold
+// lines in the data file format or CSV rows (see BulkImporter); it is read in one pass and
+// invalid lines are reported instead of stopping the import.
+// Imported tasks and goals are given new IDs so they cannot clash with existing ones,
+// and the goals' task links are carried over to the new task IDs.
+// Everything is added under one hold of the write lock and then saved with a single snapshot,
+// instead of one journal record (and disk flush) per task, so a large import costs one write.
+// If that save fails, the import is written to the journal instead, so a crash cannot lose it.
+private void importData() {
+    System.out.print("Enter the file to import from: ");
+    File file = new File(scanner.nextLine().trim());
+
+    BulkImporter importer = new BulkImporter();
+    try {
+        importer.read(file);
+    } catch (IOException e) {
+        System.out.println("Error importing data: " + e.getMessage());
+        return;
+    }
+    TaskRepository.Imported imported = repository.addImported(importer);
+    String summary = imported.getTasks().size() + " task(s) and " + imported.getGoals().size() + " goal(s)";
+    if ((imported.getTasks().isEmpty() && imported.getGoals().isEmpty()) || saveData()) { // One commit for the whole import
+        System.out.println("Imported " + summary + ".");
+    } else {
+        int failuresBefore = journalFailures;
+        repository.recordImported(imported);
+        if (journalFailures == failuresBefore) {
+            System.out.println("Imported " + summary + ". The data file could not be saved, "
+                    + "so the import was written to the journal instead.");
+        } else {
+            System.out.println("Imported " + summary + ", but they could not be saved to the data file "
+                    + "or the journal. They will be lost if the program stops before a later save succeeds.");
+        }
     }
+    reportRejectedLines(file, importer);
+}
+
+// This method lists the lines an import skipped. Only the first few are printed; when
+// there are more, all of them are written to a report file next to the imported file.
+private void reportRejectedLines(File file, BulkImporter importer) {
+    List<BulkImporter.Rejection> rejections = importer.getRejections();
+    if (rejections.isEmpty()) {
+        return;
+    }
+    System.out.println("Skipped " + rejections.size() + " invalid line(s):");
+    int shown = Math.min(rejections.size(), MAX_REJECTIONS_SHOWN);
+    for (int i = 0; i < shown; i++) {
+        System.out.println("  " + rejections.get(i));
+    }
+    if (rejections.size() > shown) {
+        File report = new File(file.getPath() + ".rejected");
+        try {
+            importer.writeRejections(report);
+            System.out.println("  ... and " + (rejections.size() - shown)
+                    + " more. All skipped lines were written to " + report.getPath());
+        } catch (IOException e) {
+            System.out.println("Error writing rejected lines: " + e.getMessage());
+        }
+    }
+}
+
+// This method runs one batch command. Each change is made under one hold of the repository's
+// write lock, and each listing is written under one hold of its read lock, so other threads
+// never see a command half done. Commands and the lines they write:
+//   add NAME CATEGORY DEADLINE PRIORITY [DESCRIPTION]   ok add ID
+//   update ID FIELD VALUE                               ok update ID
+//       FIELD is name, description, category, deadline or priority
+//   complete ID, remove ID                              ok complete ID, ok remove ID
+//   list [FILTER]                                       task lines, then ok list COUNT
+//   search WORDS                                        task lines, best match first, then ok search COUNT
+//   bulk complete|remove FILTER                         ok bulk COUNT
+//   bulk category|priority VALUE FILTER                 ok bulk COUNT
+//   goal-add NAME                                       ok goal-add ID
+//   goal-link GOAL_ID TASK_ID                           ok goal-link GOAL_ID TASK_ID
+//   goal-complete ID, goal-remove ID                    ok goal-complete ID, ok goal-remove ID
+//   goals                                               goal lines, then ok goals COUNT
+//   stats                                               stat lines, a symbols line, then ok stats
+//   import FILE                                         rejected lines, then ok import TASKS GOALS REJECTED
+//   export FILE                                         ok export FILE
+//   checkpoint                                          ok checkpoint, after saving everything so far
+// A task line is: task ID NAME DESCRIPTION CATEGORY DEADLINE PRIORITY COMPLETE(true/false).
+// A goal line is: goal ID NAME COMPLETE TASK_IDS(separated by ';').
+// A stat line is: stat KEY TOTAL COMPLETE, where KEY is tasks, goals, priority:NAME,
+// category:NAME or goal:ID.
+// The symbols line is: symbols categories DISTINCT DUPLICATES_SHARED BYTES_SAVED.
+private void executeCommand(String command, List<String> args, BatchMode output) {
+    switch (command) {
+        case "add": {
+            requireArgs(args, 4, 5, "add NAME CATEGORY DEADLINE PRIORITY [DESCRIPTION]");
+            String deadline = args.get(2);
+            String priority = args.get(3);
+            if (!isValidDate(deadline)) {
+                throw new IllegalArgumentException("Invalid deadline \"" + deadline + "\"; use YYYY-MM-DD.");
+            }
+            if (!isValidPriority(priority)) {
+                throw new IllegalArgumentException("Invalid priority \"" + priority + "\"; use High, Medium or Low.");
+            }
+            Task task = new Task(args.get(0), args.size() > 4 ? args.get(4) : "", args.get(1), deadline,
+                    Priority.parse(priority).getLabel());
+            repository.addTask(task);
+            output.row("ok", command, String.valueOf(task.getId()));
+            break;
+        }
+        case "update": {
+            requireArgs(args, 3, 3, "update ID FIELD VALUE");
+            Task task = taskWithId(args.get(0));
+            String value = args.get(2);
+            String field = args.get(1).toLowerCase();
+            if (field.equals("deadline") && !isValidDate(value)) {
+                throw new IllegalArgumentException("Invalid deadline \"" + value + "\"; use YYYY-MM-DD.");
+            }
+            if (field.equals("priority") && !isValidPriority(value)) {
+                throw new IllegalArgumentException("Invalid priority \"" + value + "\"; use High, Medium or Low.");
+            }
+            if (!Arrays.asList("name", "description", "category", "deadline", "priority").contains(field)) {
+                throw new IllegalArgumentException("Unknown field \"" + args.get(1)
+                        + "\"; use name, description, category, deadline or priority.");
+            }
+            boolean updated = repository.updateTask(task, edited -> {
+                switch (field) {
+                    case "name":
+                        edited.setName(value);
+                        break;
+                    case "description":
+                        edited.setDescription(value);
+                        break;
+                    case "category":
+                        edited.setCategory(value);
+                        break;
+                    case "deadline":
+                        edited.setDeadline(value);
+                        break;
+                    default:
+                        edited.setPriority(Priority.parse(value).getLabel());
+                        break;
+                }
+            });
+            requireFound(updated, "task", args.get(0));
+            output.row("ok", command, String.valueOf(task.getId()));
+            break;
+        }
+        case "complete": {
+            requireArgs(args, 1, 1, "complete ID");
+            Task task = taskWithId(args.get(0));
+            requireFound(repository.completeTask(task), "task", args.get(0));
+            output.row("ok", command, String.valueOf(task.getId()));
+            break;
+        }
+        case "remove": {
+            requireArgs(args, 1, 1, "remove ID");
+            Task task = taskWithId(args.get(0));
+            requireFound(repository.removeTask(task), "task", args.get(0));
+            output.row("ok", command, String.valueOf(task.getId()));
+            break;
+        }
+        case "list": {
+            TaskQuery query = args.isEmpty() ? null : TaskQuery.parse(joinFilter(args, 0));
+            repository.read(() -> {
+                List<Task> matches = query == null ? repository.tasks() : repository.find(query, LocalDate.now());
+                for (Task task : matches) {
+                    writeTaskRow(task, output);
+                }
+                output.row("ok", command, String.valueOf(matches.size()));
+                return null;
+            });
+            break;
+        }
+        case "search": {
+            requireArgs(args, 1, Integer.MAX_VALUE, "search WORDS");
+            repository.read(() -> {
+                List<Task> matches = repository.search(String.join(" ", args), Integer.MAX_VALUE);
+                for (Task task : matches) {
+                    writeTaskRow(task, output);
+                }
+                output.row("ok", command, String.valueOf(matches.size()));
+                return null;
+            });
+            break;
+        }
+        case "bulk": {
+            requireArgs(args, 2, Integer.MAX_VALUE, "bulk ACTION [VALUE] FILTER");
+            BulkAction action;
+            try {
+                action = BulkAction.valueOf(args.get(0).toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown bulk action \"" + args.get(0)
+                        + "\"; use complete, remove, category or priority.");
+            }
+            String value = "";
+            if (action.needsValue()) {
+                requireArgs(args, 3, Integer.MAX_VALUE, "bulk " + args.get(0) + " VALUE FILTER");
+                value = args.get(1);
+                if (action == BulkAction.PRIORITY && !isValidPriority(value)) {
+                    throw new IllegalArgumentException("Invalid priority \"" + value + "\"; use High, Medium or Low.");
+                }
+            }
+            TaskQuery query = TaskQuery.parse(joinFilter(args, action.needsValue() ? 2 : 1));
+            List<Task> changed = repository.bulkChange(action, query, LocalDate.now(), value);
+            output.row("ok", command, String.valueOf(changed.size()));
+            break;
+        }
+        case "goal-add": {
+            requireArgs(args, 1, 1, "goal-add NAME");
+            Goal goal = new Goal(args.get(0));
+            repository.addGoal(goal);
+            output.row("ok", command, String.valueOf(goal.getId()));
+            break;
+        }
+        case "goal-link": {
+            requireArgs(args, 2, 2, "goal-link GOAL_ID TASK_ID");
+            Goal goal = goalWithId(args.get(0));
+            Task task = taskWithId(args.get(1));
+            if (!repository.linkTask(goal, task)) {
+                // Either it was already linked, which is fine, or one of them was just removed
+                requireFound(repository.findGoal(goal.getId()) == goal, "goal", args.get(0));
+                requireFound(repository.findTask(task.getId()) == task, "task", args.get(1));
+            }
+            output.row("ok", command, String.valueOf(goal.getId()), String.valueOf(task.getId()));
+            break;
+        }
+        case "goal-complete": {
+            requireArgs(args, 1, 1, "goal-complete ID");
+            Goal goal = goalWithId(args.get(0));
+            requireFound(repository.completeGoal(goal), "goal", args.get(0));
+            output.row("ok", command, String.valueOf(goal.getId()));
+            break;
+        }
+        case "goal-remove": {
+            requireArgs(args, 1, 1, "goal-remove ID");
+            Goal goal = goalWithId(args.get(0));
+            requireFound(repository.removeGoal(goal), "goal", args.get(0));
+            output.row("ok", command, String.valueOf(goal.getId()));
+            break;
+        }
+        case "goals": {
+            repository.read(() -> {
+                List<Goal> goals = repository.goals();
+                for (Goal goal : goals) {
+                    StringBuilder taskIds = new StringBuilder();
+                    for (int taskId : goal.getTaskIds()) {
+                        if (taskIds.length() > 0) {
+                            taskIds.append(';');
+                        }
+                        taskIds.append(taskId);
+                    }
+                    output.row("goal", String.valueOf(goal.getId()), goal.getName(),
+                            String.valueOf(goal.isComplete()), taskIds.toString());
+                }
+                output.row("ok", command, String.valueOf(goals.size()));
+                return null;
+            });
+            break;
+        }
+        case "stats": {
+            repository.read(() -> {
+                TaskStatistics statistics = repository.getStatistics();
+                output.row("stat", "tasks", String.valueOf(statistics.getTaskCount()),
+                        String.valueOf(statistics.getCompletedTaskCount()));
+                output.row("stat", "goals", String.valueOf(statistics.getGoalCount()),
+                        String.valueOf(statistics.getCompletedGoalCount()));
+                for (Priority priority : Priority.values()) {
+                    writeCountsRow("priority:", statistics.getPriorityCounts(priority), output);
+                }
+                for (TaskStatistics.Counts category : statistics.getCategoryCounts()) {
+                    writeCountsRow("category:", category, output);
+                }
+                for (Goal goal : repository.goals()) {
+                    TaskStatistics.Counts progress = statistics.getGoalProgress(goal);
+                    output.row("stat", "goal:" + goal.getId(), String.valueOf(progress.getTotal()),
+                            String.valueOf(progress.getComplete()));
+                }
+                return null;
+            });
+            output.row("symbols", "categories", String.valueOf(SymbolTable.CATEGORIES.size()),
+                    String.valueOf(SymbolTable.CATEGORIES.getDuplicateCount()),
+                    String.valueOf(SymbolTable.CATEGORIES.getBytesSaved()));
+            output.row("ok", command);
+            break;
+        }
+        case "import": {
+            requireArgs(args, 1, 1, "import FILE");
+            BulkImporter importer = new BulkImporter();
+            try {
+                importer.read(new File(args.get(0)));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Error importing data: " + e.getMessage());
+            }
+            repository.addImported(importer);
+            for (BulkImporter.Rejection rejection : importer.getRejections()) {
+                output.row("rejected", String.valueOf(rejection.getLineNumber()), rejection.getReason());
+            }
+            output.row("ok", command, String.valueOf(importer.getTasks().size()),
+                    String.valueOf(importer.getGoals().size()), String.valueOf(importer.getRejections().size()));
+            break;
+        }
+        case "export": {
+            requireArgs(args, 1, 1, "export FILE");
+            byte[] contents = repository.read(() ->
+                    TextSnapshot.encode(journal.getLastSequence(), repository.tasks(), repository.goals()));
+            try {
+                writeFileAtomically(new File(args.get(0)), contents);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Error exporting data: " + e.getMessage());
+            }
+            output.row("ok", command, args.get(0));
+            break;
+        }
+        case "checkpoint": {
+            requireArgs(args, 0, 0, "checkpoint");
+            if (!saveData()) {
+                throw new IllegalArgumentException("The data could not be saved.");
+            }
+            output.row("ok", command);
+            output.flush();
+            break;
+        }
+        default:
+            throw new IllegalArgumentException("Unknown command \"" + command + "\".");
+    }
+}
+
+// This method checks that a batch command was given an allowed number of arguments.
+private static void requireArgs(List<String> args, int min, int max, String usage) {
+    if (args.size() < min || args.size() > max) {
+        throw new IllegalArgumentException("Usage: " + usage);
+    }
+}
+
+// This method fails a batch command whose task or goal was removed before the change was made.
+private static void requireFound(boolean found, String kind, String id) {
+    if (!found) {
+        throw new IllegalArgumentException("No " + kind + " with ID \"" + id + "\".");
+    }
+}
+
+// This method finds the task a batch command names by ID.
+private Task taskWithId(String id) {
+    Task task = repository.findTask(RecordCodec.parseId(id));
+    if (task == null) {
+        throw new IllegalArgumentException("No task with ID \"" + id + "\".");
+    }
+    return task;
+}
+
+// This method finds the goal a batch command names by ID.
+private Goal goalWithId(String id) {
+    Goal goal = repository.findGoal(RecordCodec.parseId(id));
+    if (goal == null) {
+        throw new IllegalArgumentException("No goal with ID \"" + id + "\".");
+    }
+    return goal;
+}
+
+// This method joins the words of a batch filter back into one filter, quoting the words
+// that held spaces so they stay together (e.g. category:"Side Project").
+private static String joinFilter(List<String> args, int from) {
+    StringBuilder filter = new StringBuilder();
+    for (int i = from; i < args.size(); i++) {
+        if (filter.length() > 0) {
+            filter.append(' ');
+        }
+        String word = args.get(i);
+        boolean hasSpace = word.chars().anyMatch(Character::isWhitespace);
+        filter.append(hasSpace ? "\"" + word + "\"" : word);
+    }
+    return filter.toString();
+}
+
+// This method writes one task as a batch result line.
+private static void writeTaskRow(Task task, BatchMode output) {
+    output.row("task", String.valueOf(task.getId()), task.getName(), task.getDescription(), task.getCategory(),
+            task.getDeadline(), task.getPriority(), String.valueOf(task.isComplete()));
+}
+
+// This method writes one priority or category count as a batch result line.
+private static void writeCountsRow(String prefix, TaskStatistics.Counts counts, BatchMode output) {
+    output.row("stat", prefix + counts.getLabel(), String.valueOf(counts.getTotal()),
+            String.valueOf(counts.getComplete()));
 }
 
 // This method checks if the given priority string is one of the valid options (High, Medium, Low).
 // It returns true if the priority is valid; otherwise, it returns false.
 private boolean isValidPriority(String priority) {
-    return priority.equalsIgnoreCase("High") ||
-           priority.equalsIgnoreCase("Medium") ||
-           priority.equalsIgnoreCase("Low");
+    return RecordCodec.isValidPriority(priority);
 }
 
-// This method checks if the given date string is in a valid format.
-// It returns true if the date string can be parsed; otherwise, it returns false.
+// This method checks if the given date string is a real date in YYYY-MM-DD format.
+// It returns true if the date is valid; otherwise, it returns false. The check is done
+// without parsing exceptions, so it is also cheap enough to run on every loaded record.
 private boolean isValidDate(String dateStr) {
-    try {
-        LocalDate.parse(dateStr, dateFormatter); // Attempt to parse the date
-        return true; // Return true if parsing is successful
-    } catch (DateTimeParseException e) {
-        // Return false if parsing fails
-        return false;
-    }
+    return RecordCodec.isValidDate(dateStr);
 }
 
 // This method repeatedly prompts the user until a valid integer is entered.
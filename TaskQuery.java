@@ -0,0 +1,298 @@
+// Import LocalDate for resolving relative dates such as "today"
+import java.time.LocalDate;
+// Import DayOfWeek for finding the start of the current week
+import java.time.DayOfWeek;
+// Import DateTimeParseException for rejecting malformed dates
+import java.time.format.DateTimeParseException;
+// Import ArrayList for the token list
+import java.util.ArrayList;
+// Import BitSet for the bitmaps the query is evaluated to
+import java.util.BitSet;
+// Import List interface for list operations
+import java.util.List;
+// Import Pattern for matching names against a wildcard pattern
+import java.util.regex.Pattern;
+
+/**
+ *
+ * Description:
+ * The TaskQuery class parses a filter such as
+ * "category:Work AND priority:High AND NOT complete AND due:week" and evaluates it against a
+ * TaskFilterIndex by combining bitmaps. NOT binds tightest, then AND, then OR; parentheses
+ * group, and two terms written next to each other are joined with AND. Supported terms:
+ *   category:NAME, priority:NAME  - match a category or priority, ignoring case
+ *   complete, open                - match completed or not yet completed tasks
+ *   overdue                       - open tasks whose deadline has passed
+ *   due:today, due:week           - deadline today, or in the current Monday-to-Sunday week
+ *   due:YYYY-MM-DD                - deadline on the given day
+ *   name:PATTERN                  - the whole name matches, ignoring case, where * stands for
+ *                                   any run of characters and ? for one character
+ * Values containing spaces can be written in double quotes, as in category:"Side Project".
+ * A priority other than High, Medium or Low, a date that does not exist, or a value given to a
+ * term that takes none is rejected with an error naming the term, instead of matching nothing.
+ */
+public class TaskQuery {
+
+    /**
+     * A parsed part of the query that evaluates to a bitmap.
+     */
+    private interface Node {
+        BitSet evaluate(TaskFilterIndex index, LocalDate today);
+    }
+
+    // The root of the parsed query
+    private final Node root;
+    // The text of the query, kept for display
+    private final String text;
+
+    // Parser state: the tokens and the position of the next one
+    private List<String> tokens;
+    private int position;
+
+    private TaskQuery(String text) {
+        this.text = text;
+        this.tokens = tokenize(text);
+        this.position = 0;
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException("The filter is empty.");
+        }
+        this.root = parseOr();
+        if (position < tokens.size()) {
+            throw new IllegalArgumentException("Unexpected \"" + tokens.get(position) + "\".");
+        }
+        this.tokens = null; // Only needed while parsing
+    }
+
+    /**
+     * Parses a filter.
+     *
+     * @param text The filter to parse
+     * @return The parsed query
+     * @throws IllegalArgumentException if the filter is not valid
+     */
+    public static TaskQuery parse(String text) {
+        return new TaskQuery(text);
+    }
+
+    /**
+     * Evaluates the query to the slots of the matching tasks.
+     *
+     * @param index The index to evaluate against
+     * @param today The date relative terms such as "overdue" are resolved against
+     * @return A bitmap of matching slots
+     */
+    public BitSet evaluate(TaskFilterIndex index, LocalDate today) {
+        return root.evaluate(index, today);
+    }
+
+    /**
+     * Evaluates the query and returns the matching tasks in the order they were added.
+     *
+     * @param index The index to evaluate against
+     * @param today The date relative terms such as "overdue" are resolved against
+     * @return The matching tasks
+     */
+    public List<Task> find(TaskFilterIndex index, LocalDate today) {
+        return index.toTasks(evaluate(index, today));
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    // or := and ("OR" and)*
+    private Node parseOr() {
+        Node left = parseAnd();
+        while (peekKeyword("OR")) {
+            position++;
+            Node a = left;
+            Node b = parseAnd();
+            left = (index, today) -> {
+                BitSet bits = a.evaluate(index, today);
+                bits.or(b.evaluate(index, today));
+                return bits;
+            };
+        }
+        return left;
+    }
+
+    // and := not (["AND"] not)*
+    private Node parseAnd() {
+        Node left = parseNot();
+        while (position < tokens.size() && !peekKeyword("OR") && !tokens.get(position).equals(")")) {
+            if (peekKeyword("AND")) {
+                position++;
+            }
+            Node a = left;
+            Node b = parseNot();
+            left = (index, today) -> {
+                BitSet bits = a.evaluate(index, today);
+                bits.and(b.evaluate(index, today));
+                return bits;
+            };
+        }
+        return left;
+    }
+
+    // not := "NOT" not | "(" or ")" | term
+    private Node parseNot() {
+        if (position >= tokens.size()) {
+            throw new IllegalArgumentException("The filter ends too early.");
+        }
+        if (peekKeyword("NOT")) {
+            position++;
+            Node operand = parseNot();
+            return (index, today) -> {
+                BitSet bits = index.all();
+                bits.andNot(operand.evaluate(index, today));
+                return bits;
+            };
+        }
+        String token = tokens.get(position++);
+        if (token.equals("(")) {
+            Node inner = parseOr();
+            if (position >= tokens.size() || !tokens.get(position).equals(")")) {
+                throw new IllegalArgumentException("Missing \")\".");
+            }
+            position++;
+            return inner;
+        }
+        return parseTerm(token);
+    }
+
+    // This method turns a single term such as "priority:High" into a node.
+    private Node parseTerm(String token) {
+        int colon = token.indexOf(':');
+        String key = (colon < 0 ? token : token.substring(0, colon)).toLowerCase();
+        String value = colon < 0 ? "" : token.substring(colon + 1);
+
+        switch (key) {
+            case "category":
+                requireValue(token, value);
+                return (index, today) -> index.category(value);
+            case "priority":
+                requireValue(token, value);
+                if (Priority.parse(value) == null) {
+                    throw new IllegalArgumentException("Unknown priority in \"" + token + "\"; use High, Medium or Low.");
+                }
+                return (index, today) -> index.priority(value);
+            case "complete":
+                requireNoValue(token, colon);
+                return (index, today) -> index.complete();
+            case "open":
+                requireNoValue(token, colon);
+                return (index, today) -> {
+                    BitSet bits = index.all();
+                    bits.andNot(index.complete());
+                    return bits;
+                };
+            case "overdue":
+                requireNoValue(token, colon);
+                return (index, today) -> {
+                    BitSet bits = index.dueBefore(today.toEpochDay());
+                    bits.andNot(index.complete());
+                    return bits;
+                };
+            case "due":
+                return parseDue(token, value);
+            case "name":
+                requireValue(token, value);
+                Pattern pattern = wildcardPattern(value);
+                return (index, today) -> index.matching(task -> pattern.matcher(task.getName()).matches());
+            default:
+                throw new IllegalArgumentException("Unknown filter term \"" + token + "\".");
+        }
+    }
+
+    // This method turns a "due:" term into a node.
+    private Node parseDue(String token, String value) {
+        if (value.equalsIgnoreCase("today")) {
+            return (index, today) -> index.dueBetween(today.toEpochDay(), today.toEpochDay());
+        }
+        if (value.equalsIgnoreCase("week")) {
+            return (index, today) -> {
+                LocalDate monday = today.with(DayOfWeek.MONDAY);
+                return index.dueBetween(monday.toEpochDay(), monday.plusDays(6).toEpochDay());
+            };
+        }
+        long day;
+        try {
+            // Parsed strictly, so a day past the end of its month is an error rather than no match
+            day = LocalDate.parse(value).toEpochDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Use due:today, due:week or due:YYYY-MM-DD instead of \"" + token + "\".");
+        }
+        return (index, today) -> index.dueBetween(day, day);
+    }
+
+    // This method turns a wildcard pattern such as "report*" into a case-insensitive regular expression.
+    private static Pattern wildcardPattern(String wildcard) {
+        StringBuilder regex = new StringBuilder();
+        int literalStart = 0;
+        for (int i = 0; i < wildcard.length(); i++) {
+            char c = wildcard.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literalStart) {
+                    regex.append(Pattern.quote(wildcard.substring(literalStart, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < wildcard.length()) {
+            regex.append(Pattern.quote(wildcard.substring(literalStart)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+
+    // This method checks that a term has a value after the colon.
+    private static void requireValue(String token, String value) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("\"" + token + "\" needs a value after the colon.");
+        }
+    }
+
+    // This method checks that a term such as "complete" was not given a value.
+    private static void requireNoValue(String token, int colon) {
+        if (colon >= 0) {
+            throw new IllegalArgumentException("\"" + token + "\" does not take a value.");
+        }
+    }
+
+    // This method checks whether the next token is the given keyword, ignoring case.
+    private boolean peekKeyword(String keyword) {
+        return position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword);
+    }
+
+    // This method splits the filter into terms, keywords and parentheses.
+    // Text in double quotes is kept together and the quotes are removed.
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (Character.isWhitespace(c) || c == '(' || c == ')')) {
+                if (current.length() > 0) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+                if (c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Missing closing quote.");
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,1155 @@
+// Import LocalDate for resolving "today" in filters
+import java.time.LocalDate;
+// Import ArrayList for the task and goal lists and for results
+import java.util.ArrayList;
+// Import Collection interface for removing several tasks at once
+import java.util.Collection;
+// Import Comparator for the name-sorted view
+import java.util.Comparator;
+// Import HashMap for carrying goal links over to imported tasks
+import java.util.HashMap;
+// Import HashSet for the IDs of tasks removed together
+import java.util.HashSet;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+// Import Set interface for set operations
+import java.util.Set;
+// Import ConcurrentHashMap for looking tasks and goals up by ID without taking the lock
+import java.util.concurrent.ConcurrentHashMap;
+// Import LongAdder for the lock counters, which many threads update at once
+import java.util.concurrent.atomic.LongAdder;
+// Import ReentrantLock for the gate that lets waiting writers go before new readers
+import java.util.concurrent.locks.ReentrantLock;
+// Import StampedLock for the read, write and optimistic read locking
+import java.util.concurrent.locks.StampedLock;
+// Import Consumer for the changes applied by updateTask
+import java.util.function.Consumer;
+// Import Supplier for the code run under the lock
+import java.util.function.Supplier;
+
+/**
+ *
+ * Description:
+ * The TaskRepository class owns the tasks and goals and every index over them, and is safe
+ * to use from many threads at once. TaskManager keeps the menus, the files and the journal,
+ * and goes through this class for all data.
+ *
+ * Reads share a StampedLock read lock, so any number of them run in parallel; changes take
+ * the write lock and run one at a time. Small reads such as the task count first try an
+ * optimistic read, which takes no lock at all and is only repeated under the read lock if a
+ * change happened meanwhile. Tasks and goals are also kept in concurrent maps by ID, so
+ * looking one up by ID never waits. A writer waiting for the lock holds a gate that new
+ * readers wait at, so a steady stream of overlapping reads cannot keep changes out for good.
+ * A thread can call read and write inside each other
+ * (a read inside a write, or a read inside a read); a write inside a read is refused, since
+ * a read lock cannot be turned into a write lock.
+ *
+ * Every change is passed to a ChangeLog while the write lock is still held, so the journal
+ * records changes in the order they were made, and a snapshot taken under the read lock
+ * always matches the last journal record. Results are returned as new lists, so a caller can
+ * keep them after the lock is released; to read the fields of many tasks while no change can
+ * happen, do it inside read.
+ */
+public class TaskRepository {
+
+    /**
+     * Receives each change made to the repository, for example to write it to the journal.
+     */
+    public interface ChangeLog {
+        /**
+         * Records one change. Called while the write lock is held.
+         *
+         * @param operation The kind of change
+         * @param payload   The record of the change, in the journal's format
+         */
+        void record(TaskJournal.Operation operation, String payload);
+    }
+
+    /**
+     * The tasks and goals an import added, with the IDs they were given.
+     */
+    public static class Imported {
+        private final List<Task> tasks; // The tasks added, in file order
+        private final List<Goal> goals; // The goals added, in file order
+
+        Imported(List<Task> tasks, List<Goal> goals) {
+            this.tasks = tasks;
+            this.goals = goals;
+        }
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        public List<Goal> getGoals() {
+            return goals;
+        }
+    }
+
+    // The lock guarding everything below except the maps by ID
+    private final StampedLock lock = new StampedLock();
+    // Held by a writer from before it asks for the lock until it is done; new readers wait for it
+    private final ReentrantLock writerGate = new ReentrantLock();
+    // Locks held by the current thread: 1 for the read lock, -1 for the write lock, 0 for none
+    private final ThreadLocal<int[]> held = ThreadLocal.withInitial(() -> new int[1]);
+    // Where changes are recorded
+    private volatile ChangeLog changeLog = (operation, payload) -> { };
+
+    // Counts of lock use, and of the times a thread had to wait or retry
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder contendedReads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder contendedWrites = new LongAdder();
+    private final LongAdder optimisticReads = new LongAdder();
+    private final LongAdder optimisticRetries = new LongAdder();
+
+    // Tasks and goals in the order they were added
+    private final List<Task> tasks = new ArrayList<>();
+    private final List<Goal> goals = new ArrayList<>();
+    // Columns holding the fields of every task in the list; each Task reads its own row.
+    // Its rows count as uses of their categories, for the memory the category table reports.
+    private final TaskStore taskStore = new TaskStore(1024, true);
+    // Task ID to task and goal ID to goal, readable without the lock
+    private final Map<Integer, Task> tasksById = new ConcurrentHashMap<>();
+    private final Map<Integer, Goal> goalsById = new ConcurrentHashMap<>();
+    // Case-insensitive index from task name to the tasks with that name
+    private final NameIndex<Task> taskNames = new NameIndex<>(Task::getName);
+    // Case-insensitive index from goal name to the goals with that name
+    private final NameIndex<Goal> goalNames = new NameIndex<>(Goal::getName);
+    // BK-tree over task names used to suggest names when one is mistyped
+    private final FuzzyNameIndex fuzzyNames = new FuzzyNameIndex();
+    // Prefix and trigram index over task names used for "starts with" and "contains" searches
+    private final NameSearchIndex nameSearch = new NameSearchIndex();
+    // Inverted index over the words in task names and descriptions
+    private final FullTextIndex fullText = new FullTextIndex();
+    // Tasks ordered by deadline, used to answer due-date questions
+    private final DeadlineIndex deadlineIndex = new DeadlineIndex();
+    // Bitmaps over category, priority and completion used to answer filters, with date ranges
+    // read from the deadline index
+    private final TaskFilterIndex filterIndex = new TaskFilterIndex(deadlineIndex);
+    // Tasks bucketed by priority, used to list tasks by priority and find the next task
+    private final PriorityBuckets priorityBuckets = new PriorityBuckets();
+    // Tasks kept sorted by name, used to list tasks by name
+    private final SortedTaskView tasksByName = new SortedTaskView(Comparator.comparing(Task::getName));
+    // Counts shown on the statistics screen, kept up to date as tasks and goals change
+    private final TaskStatistics statistics = new TaskStatistics();
+    // True while a data file is being loaded, when the full-text index is restored or built separately
+    private boolean loadingSnapshot;
+
+    /**
+     * Sets where changes are recorded. Changes made by load and replay are not recorded,
+     * since they come from the data file and the journal.
+     *
+     * @param changeLog Receives every change made through this class
+     */
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    // ---------------------------------------------------------------- Locking
+
+    /**
+     * Runs code while holding the read lock, so no change can happen while it runs.
+     * Other readers are not held up.
+     *
+     * @param reader The code to run
+     * @return What the code returned
+     */
+    public <T> T read(Supplier<T> reader) {
+        int[] hold = held.get();
+        if (hold[0] != 0) {
+            return reader.get(); // This thread already holds a lock
+        }
+        if (writerGate.isLocked()) {
+            // A writer is waiting or writing; let it go first
+            contendedReads.increment();
+            writerGate.lock();
+            writerGate.unlock();
+        }
+        long stamp = lock.readLock();
+        reads.increment();
+        hold[0] = 1;
+        try {
+            return reader.get();
+        } finally {
+            hold[0] = 0;
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs code while holding the write lock, so nothing else reads or changes the repository
+     * while it runs. Used to make several changes as one.
+     *
+     * @param writer The code to run
+     * @return What the code returned
+     * @throws IllegalStateException if the thread is inside read
+     */
+    public <T> T write(Supplier<T> writer) {
+        int[] hold = held.get();
+        if (hold[0] < 0) {
+            return writer.get(); // This thread already holds the write lock
+        }
+        if (hold[0] > 0) {
+            throw new IllegalStateException("Cannot change the tasks while reading them.");
+        }
+        writerGate.lock();
+        try {
+            long stamp = lock.tryWriteLock();
+            if (stamp == 0) {
+                contendedWrites.increment();
+                stamp = lock.writeLock();
+            }
+            writes.increment();
+            hold[0] = -1;
+            try {
+                return writer.get();
+            } finally {
+                hold[0] = 0;
+                lock.unlockWrite(stamp);
+            }
+        } finally {
+            writerGate.unlock();
+        }
+    }
+
+    // This method runs a small read without locking, and runs it again under the read lock
+    // if a change happened meanwhile. The reader may see a half-made change, so it must
+    // only read fields that cannot make it fail or loop, such as counts.
+    private <T> T readOptimistic(Supplier<T> reader) {
+        if (held.get()[0] != 0) {
+            return reader.get();
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T value = reader.get();
+                if (lock.validate(stamp)) {
+                    optimisticReads.increment();
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                // Read a half-made change; read again under the lock
+            }
+        }
+        optimisticRetries.increment();
+        return read(reader);
+    }
+
+    /**
+     * Gets the number of times the read lock was taken.
+     *
+     * @return The number of locked reads
+     */
+    public long getReadCount() {
+        return reads.sum();
+    }
+
+    /**
+     * Gets the number of times a reader had to wait for a writer.
+     *
+     * @return The number of reads that waited
+     */
+    public long getContendedReadCount() {
+        return contendedReads.sum();
+    }
+
+    /**
+     * Gets the number of times the write lock was taken.
+     *
+     * @return The number of writes
+     */
+    public long getWriteCount() {
+        return writes.sum();
+    }
+
+    /**
+     * Gets the number of times a writer had to wait for readers or another writer.
+     *
+     * @return The number of writes that waited
+     */
+    public long getContendedWriteCount() {
+        return contendedWrites.sum();
+    }
+
+    /**
+     * Gets the number of optimistic reads that needed no lock.
+     *
+     * @return The number of optimistic reads that succeeded
+     */
+    public long getOptimisticReadCount() {
+        return optimisticReads.sum();
+    }
+
+    /**
+     * Gets the number of optimistic reads that had to be repeated under the read lock.
+     *
+     * @return The number of optimistic reads retried
+     */
+    public long getOptimisticRetryCount() {
+        return optimisticRetries.sum();
+    }
+
+    // ---------------------------------------------------------------- Reading
+
+    /**
+     * Gets the number of tasks, without locking unless a change is under way.
+     *
+     * @return The number of tasks
+     */
+    public int taskCount() {
+        return readOptimistic(statistics::getTaskCount);
+    }
+
+    /**
+     * Gets the number of completed tasks, without locking unless a change is under way.
+     *
+     * @return The number of completed tasks
+     */
+    public int completedTaskCount() {
+        return readOptimistic(statistics::getCompletedTaskCount);
+    }
+
+    /**
+     * Gets the number of goals, without locking unless a change is under way.
+     *
+     * @return The number of goals
+     */
+    public int goalCount() {
+        return readOptimistic(statistics::getGoalCount);
+    }
+
+    /**
+     * Gets the task and goal counts. The counts are live, so they should be read inside read
+     * to get a consistent set.
+     *
+     * @return The statistics
+     */
+    public TaskStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets every task, in the order they were added.
+     *
+     * @return A new list of the tasks
+     */
+    public List<Task> tasks() {
+        return read(() -> new ArrayList<>(tasks));
+    }
+
+    /**
+     * Gets every goal, in the order they were added.
+     *
+     * @return A new list of the goals
+     */
+    public List<Goal> goals() {
+        return read(() -> new ArrayList<>(goals));
+    }
+
+    /**
+     * Finds a task by ID without taking the lock.
+     *
+     * @param id The task ID
+     * @return The task, or null if there is none with the ID
+     */
+    public Task findTask(int id) {
+        return tasksById.get(id);
+    }
+
+    /**
+     * Finds a goal by ID without taking the lock.
+     *
+     * @param id The goal ID
+     * @return The goal, or null if there is none with the ID
+     */
+    public Goal findGoal(int id) {
+        return goalsById.get(id);
+    }
+
+    /**
+     * Checks whether a task has a name, ignoring case.
+     *
+     * @param name The name
+     * @return True if a task has the name, otherwise false
+     */
+    public boolean hasTaskNamed(String name) {
+        return read(() -> taskNames.contains(name));
+    }
+
+    /**
+     * Finds the tasks with a name, ignoring case.
+     *
+     * @param name The name
+     * @return The tasks, in the order they were added
+     */
+    public List<Task> tasksNamed(String name) {
+        return read(() -> taskNames.findAll(name));
+    }
+
+    /**
+     * Finds the first task added with a name, ignoring case.
+     *
+     * @param name The name
+     * @return The task, or null if none has the name
+     */
+    public Task firstTaskNamed(String name) {
+        return read(() -> taskNames.findFirst(name));
+    }
+
+    /**
+     * Checks whether a goal has a name, ignoring case.
+     *
+     * @param name The name
+     * @return True if a goal has the name, otherwise false
+     */
+    public boolean hasGoalNamed(String name) {
+        return read(() -> goalNames.contains(name));
+    }
+
+    /**
+     * Finds the first goal added with a name, ignoring case.
+     *
+     * @param name The name
+     * @return The goal, or null if none has the name
+     */
+    public Goal firstGoalNamed(String name) {
+        return read(() -> goalNames.findFirst(name));
+    }
+
+    /**
+     * Finds the goals with a name, ignoring case.
+     *
+     * @param name The name
+     * @return The goals, in the order they were added
+     */
+    public List<Goal> goalsNamed(String name) {
+        return read(() -> goalNames.findAll(name));
+    }
+
+    /**
+     * Finds the task names closest to a name, for suggesting a name that was mistyped.
+     *
+     * @param name        The mistyped name
+     * @param maxDistance The most typing mistakes a suggestion may differ by
+     * @param limit       The most suggestions to return
+     * @return The closest names, closest first
+     */
+    public List<FuzzyNameIndex.Match> closestTaskNames(String name, int maxDistance, int limit) {
+        return read(() -> fuzzyNames.closest(name, maxDistance, limit));
+    }
+
+    /**
+     * Gets one page of the tasks whose name starts with some text.
+     *
+     * @param prefix The text names must start with, ignoring case
+     * @param offset The number of matches to skip
+     * @param limit  The most matches to return
+     * @return The page of matches
+     */
+    public NameSearchIndex.Page tasksStartingWith(String prefix, int offset, int limit) {
+        return read(() -> nameSearch.startingWith(prefix, offset, limit));
+    }
+
+    /**
+     * Gets one page of the tasks whose name contains some text.
+     *
+     * @param text   The text names must contain, ignoring case
+     * @param offset The number of matches to skip
+     * @param limit  The most matches to return
+     * @return The page of matches
+     */
+    public NameSearchIndex.Page tasksContaining(String text, int offset, int limit) {
+        return read(() -> nameSearch.containing(text, offset, limit));
+    }
+
+    /**
+     * Searches the words in task names and descriptions.
+     *
+     * @param query The words to search for (see FullTextIndex)
+     * @param limit The most tasks to return
+     * @return The matching tasks, best match first
+     */
+    public List<Task> search(String query, int limit) {
+        return read(() -> {
+            List<Task> matches = new ArrayList<>();
+            for (int id : fullText.search(query, limit)) {
+                Task task = tasksById.get(id);
+                if (task != null) { // Only possible if the index and the tasks disagree
+                    matches.add(task);
+                }
+            }
+            return matches;
+        });
+    }
+
+    /**
+     * Finds the tasks in a category, ignoring case.
+     *
+     * @param category The category
+     * @return The tasks, in the order they were added
+     */
+    public List<Task> inCategory(String category) {
+        return read(() -> filterIndex.toTasks(filterIndex.category(category)));
+    }
+
+    /**
+     * Finds the tasks matching a filter.
+     *
+     * @param query The filter
+     * @param today The day "today", "overdue" and "due:week" are counted from
+     * @return The matching tasks, in the order they were added
+     */
+    public List<Task> find(TaskQuery query, LocalDate today) {
+        return read(() -> query.find(filterIndex, today));
+    }
+
+    /**
+     * Finds the open tasks due before a day.
+     *
+     * @param today The day as an epoch day
+     * @return The overdue tasks, in deadline order
+     */
+    public List<Task> overdue(int today) {
+        return read(() -> deadlineIndex.overdue(today));
+    }
+
+    /**
+     * Finds the tasks due between two days, inclusive.
+     *
+     * @param fromEpochDay First day of the range
+     * @param toEpochDay   Last day of the range
+     * @return The tasks, in deadline order
+     */
+    public List<Task> dueBetween(int fromEpochDay, int toEpochDay) {
+        return read(() -> deadlineIndex.dueBetween(fromEpochDay, toEpochDay, false));
+    }
+
+    /**
+     * Gets every task sorted by name.
+     *
+     * @return The tasks, by name
+     */
+    public List<Task> tasksByName() {
+        return read(tasksByName::inOrder);
+    }
+
+    /**
+     * Gets every task sorted by deadline.
+     *
+     * @return The tasks, by deadline
+     */
+    public List<Task> tasksByDeadline() {
+        return read(deadlineIndex::inDeadlineOrder);
+    }
+
+    /**
+     * Gets every task from High to Low priority.
+     *
+     * @return The tasks, by priority
+     */
+    public List<Task> tasksByPriority() {
+        return read(priorityBuckets::inPriorityOrder);
+    }
+
+    /**
+     * Gets the open task with the highest priority, the earliest added among equals.
+     *
+     * @return The task, or null if there are no open tasks
+     */
+    public Task nextOpenTask() {
+        return read(priorityBuckets::nextOpenTask);
+    }
+
+    /**
+     * Gets the most urgent open tasks (see UrgentTasks).
+     *
+     * @param count The most tasks to return
+     * @return The tasks, most urgent first
+     */
+    public List<Task> mostUrgent(int count) {
+        return read(() -> UrgentTasks.mostUrgent(tasks, count));
+    }
+
+    /**
+     * Encodes the full-text index, to save it next to the data file.
+     *
+     * @param sequence Sequence number of the last journal record in the data file
+     * @return The encoded index
+     */
+    public byte[] encodeSearchIndex(long sequence) {
+        return read(() -> fullText.encode(sequence));
+    }
+
+    // ---------------------------------------------------------------- Changing
+
+    /**
+     * Adds a task.
+     *
+     * @param task The task to add
+     */
+    public void addTask(Task task) {
+        write(() -> {
+            insertTask(task);
+            changeLog.record(TaskJournal.Operation.ADD_TASK, task.toString());
+            return null;
+        });
+    }
+
+    /**
+     * Changes the fields of a task. The task is taken out of the indexes before the change
+     * and put back after it, and no reader sees it half changed.
+     *
+     * @param task    The task to change
+     * @param changes Sets the new field values
+     * @return True if the task was changed, false if it has been removed
+     */
+    public boolean updateTask(Task task, Consumer<Task> changes) {
+        return write(() -> {
+            if (tasksById.get(task.getId()) != task) {
+                return false;
+            }
+            beforeTaskUpdate(task);
+            try {
+                changes.accept(task);
+            } finally {
+                afterTaskUpdate(task);
+            }
+            changeLog.record(TaskJournal.Operation.UPDATE_TASK, task.toString());
+            return true;
+        });
+    }
+
+    /**
+     * Marks a task as complete.
+     *
+     * @param task The task
+     * @return True if the task was marked, false if it has been removed
+     */
+    public boolean completeTask(Task task) {
+        return write(() -> {
+            if (tasksById.get(task.getId()) != task) {
+                return false;
+            }
+            beforeTaskUpdate(task);
+            task.setComplete(true);
+            afterTaskUpdate(task);
+            changeLog.record(TaskJournal.Operation.COMPLETE_TASK, String.valueOf(task.getId()));
+            return true;
+        });
+    }
+
+    /**
+     * Removes a task, and takes it out of every goal it belongs to.
+     *
+     * @param task The task
+     * @return True if the task was removed, false if it had already been removed
+     */
+    public boolean removeTask(Task task) {
+        return write(() -> {
+            if (tasksById.get(task.getId()) != task) {
+                return false;
+            }
+            deleteTask(task);
+            changeLog.record(TaskJournal.Operation.REMOVE_TASK, String.valueOf(task.getId()));
+            return true;
+        });
+    }
+
+    /**
+     * Applies one change to many tasks at once, recorded as a single change.
+     *
+     * @param action  The change
+     * @param targets The tasks to change
+     * @param value   The new category or priority, for actions that need one
+     * @return The tasks changed; tasks removed meanwhile, or that already had the value, are left out
+     */
+    public List<Task> bulkChange(BulkAction action, List<Task> targets, String value) {
+        return write(() -> {
+            List<Task> changed = applyBulkChange(action, targets, value);
+            if (!changed.isEmpty()) {
+                changeLog.record(TaskJournal.Operation.BULK_UPDATE, encodeBulkChange(action, changed, value));
+            }
+            return changed;
+        });
+    }
+
+    /**
+     * Applies one change to every task matching a filter, finding and changing them as one.
+     *
+     * @param action The change
+     * @param query  The filter the tasks must match
+     * @param today  The day the filter counts from
+     * @param value  The new category or priority, for actions that need one
+     * @return The tasks changed
+     */
+    public List<Task> bulkChange(BulkAction action, TaskQuery query, LocalDate today, String value) {
+        return write(() -> bulkChange(action, query.find(filterIndex, today), value));
+    }
+
+    /**
+     * Adds a goal.
+     *
+     * @param goal The goal to add
+     */
+    public void addGoal(Goal goal) {
+        write(() -> {
+            insertGoal(goal);
+            changeLog.record(TaskJournal.Operation.ADD_GOAL, goal.toString());
+            return null;
+        });
+    }
+
+    /**
+     * Adds a task to a goal.
+     *
+     * @param goal The goal
+     * @param task The task
+     * @return True if the task was added, false if it was already part of the goal or either
+     *         has been removed
+     */
+    public boolean linkTask(Goal goal, Task task) {
+        return write(() -> {
+            if (goalsById.get(goal.getId()) != goal || tasksById.get(task.getId()) != task
+                    || !link(goal, task)) {
+                return false;
+            }
+            changeLog.record(TaskJournal.Operation.LINK_TASK, goal.getId() + "\t" + task.getId());
+            return true;
+        });
+    }
+
+    /**
+     * Marks a goal as complete.
+     *
+     * @param goal The goal
+     * @return True if the goal was marked, false if it has been removed
+     */
+    public boolean completeGoal(Goal goal) {
+        return write(() -> {
+            if (goalsById.get(goal.getId()) != goal) {
+                return false;
+            }
+            markGoalComplete(goal);
+            changeLog.record(TaskJournal.Operation.COMPLETE_GOAL, String.valueOf(goal.getId()));
+            return true;
+        });
+    }
+
+    /**
+     * Removes a goal. Its tasks are kept.
+     *
+     * @param goal The goal
+     * @return True if the goal was removed, false if it had already been removed
+     */
+    public boolean removeGoal(Goal goal) {
+        return write(() -> {
+            if (goalsById.get(goal.getId()) != goal) {
+                return false;
+            }
+            deleteGoal(goal);
+            changeLog.record(TaskJournal.Operation.REMOVE_GOAL, String.valueOf(goal.getId()));
+            return true;
+        });
+    }
+
+    /**
+     * Adds the tasks and goals read by an importer, giving them new IDs and carrying the
+     * goals' task links over to them. The import is not recorded as changes; the caller
+     * saves the data file instead, or calls recordImported if that fails.
+     *
+     * @param importer The importer holding the tasks and goals read
+     * @return The tasks and goals added
+     */
+    public Imported addImported(BulkImporter importer) {
+        return write(() -> {
+            List<Task> importedTasks = importer.getTasks();
+            List<Goal> importedGoals = importer.getGoals();
+            List<Task> addedTasks = new ArrayList<>(importedTasks.size());
+            List<Goal> addedGoals = new ArrayList<>(importedGoals.size());
+            ((ArrayList<Task>) tasks).ensureCapacity(tasks.size() + importedTasks.size());
+            Map<Integer, Task> newTasks = new HashMap<>(importedTasks.size() * 4 / 3 + 1); // ID in the file to the added task
+            for (Task original : importedTasks) {
+                Task task = new Task(original.getName(), original.getDescription(), original.getCategory(),
+                        original.getDeadline(), original.getPriority());
+                task.setComplete(original.isComplete());
+                newTasks.put(original.getId(), task);
+                insertTask(task);
+                addedTasks.add(task);
+            }
+            for (Goal original : importedGoals) {
+                Goal goal = new Goal(original.getName());
+                goal.setComplete(original.isComplete());
+                for (int taskId : original.getTaskIds()) {
+                    Task task = newTasks.get(taskId);
+                    if (task != null) {
+                        goal.addTask(task);
+                    }
+                }
+                insertGoal(goal);
+                addedGoals.add(goal);
+            }
+            return new Imported(addedTasks, addedGoals);
+        });
+    }
+
+    /**
+     * Records the tasks and goals of an import as changes, for when the data file could not be
+     * saved after it. Each one still present is recorded as it is now, so changes made to it
+     * since the import, which were recorded before it, are not lost when the records are
+     * replayed.
+     *
+     * @param imported The tasks and goals addImported returned
+     * @return The number of changes recorded
+     */
+    public int recordImported(Imported imported) {
+        return write(() -> {
+            int recorded = 0;
+            for (Task task : imported.getTasks()) {
+                if (tasksById.get(task.getId()) == task) {
+                    changeLog.record(TaskJournal.Operation.ADD_TASK, task.toString());
+                    recorded++;
+                }
+            }
+            for (Goal goal : imported.getGoals()) {
+                if (goalsById.get(goal.getId()) == goal) {
+                    changeLog.record(TaskJournal.Operation.ADD_GOAL, goal.toString());
+                    recorded++;
+                }
+            }
+            return recorded;
+        });
+    }
+
+    /**
+     * Adds the tasks and goals read from the data file. The full-text index saved with the
+     * file is used if it matches; otherwise it is built from the tasks.
+     *
+     * @param snapshot   The contents of the data file
+     * @param savedIndex The saved full-text index, or null if there is none
+     * @return The number of tasks skipped because their ID was already in use
+     */
+    public int load(SnapshotContents snapshot, FullTextIndex savedIndex) {
+        return write(() -> {
+            int duplicates = 0;
+            loadingSnapshot = true;
+            try {
+                for (Task task : snapshot.getTasks()) {
+                    if (tasksById.containsKey(task.getId())) {
+                        duplicates++; // Only possible in a hand-edited file
+                        continue;
+                    }
+                    insertTask(task);
+                }
+            } finally {
+                loadingSnapshot = false;
+            }
+            if (savedIndex != null && savedIndex.getSequence() == snapshot.getSequence()
+                    && savedIndex.size() == tasks.size()
+                    && savedIndex.getChecksum() == FullTextIndex.checksumOf(tasks)) {
+                fullText.replaceWith(savedIndex);
+            } else {
+                fullText.addAll(tasks);
+            }
+            for (Goal goal : snapshot.getGoals()) {
+                insertGoal(goal);
+            }
+            return duplicates;
+        });
+    }
+
+    /**
+     * Applies a change read back from the journal. It mirrors the change that wrote the
+     * record, and is not recorded again. Records naming a task or goal that does not exist
+     * are skipped.
+     *
+     * @param record The journal record
+     */
+    public void replay(TaskJournal.Record record) {
+        write(() -> {
+            applyChange(record);
+            return null;
+        });
+    }
+
+    // ---------------------------------------------------------------- Helpers, called with the write lock held
+
+    // This method applies a journal record to the tasks and goals.
+    private void applyChange(TaskJournal.Record record) {
+        String payload = record.getPayload();
+        switch (record.getOperation()) {
+            case ADD_TASK:
+                insertTask(Task.fromString(payload));
+                break;
+            case UPDATE_TASK:
+                Task updated = Task.fromString(payload);
+                Task task = tasksById.get(updated.getId());
+                if (task == null) {
+                    break;
+                }
+                // Copy the edited fields onto the existing task, as updateTask does
+                beforeTaskUpdate(task);
+                task.setName(updated.getName());
+                task.setDescription(updated.getDescription());
+                task.setCategory(updated.getCategory());
+                task.setDeadline(updated.getDeadline());
+                task.setPriority(updated.getPriority());
+                task.setComplete(updated.isComplete());
+                afterTaskUpdate(task);
+                break;
+            case COMPLETE_TASK:
+                Task completed = tasksById.get(Integer.parseInt(payload));
+                if (completed != null) {
+                    beforeTaskUpdate(completed);
+                    completed.setComplete(true);
+                    afterTaskUpdate(completed);
+                }
+                break;
+            case REMOVE_TASK:
+                Task removed = tasksById.get(Integer.parseInt(payload));
+                if (removed != null) {
+                    deleteTask(removed);
+                }
+                break;
+            case ADD_GOAL:
+                insertGoal(Goal.fromString(payload));
+                break;
+            case COMPLETE_GOAL:
+                Goal goal = goalsById.get(Integer.parseInt(payload));
+                if (goal != null) {
+                    markGoalComplete(goal);
+                }
+                break;
+            case REMOVE_GOAL:
+                Goal removedGoal = goalsById.get(Integer.parseInt(payload));
+                if (removedGoal != null) {
+                    deleteGoal(removedGoal);
+                }
+                break;
+            case BULK_UPDATE:
+                int actionEnd = payload.indexOf('\t');
+                int idsEnd = payload.indexOf('\t', actionEnd + 1);
+                List<Task> targets = new ArrayList<>();
+                for (String id : payload.substring(actionEnd + 1, idsEnd).split(";")) {
+                    Task target = tasksById.get(Integer.parseInt(id));
+                    if (target != null) {
+                        targets.add(target);
+                    }
+                }
+                applyBulkChange(BulkAction.valueOf(payload.substring(0, actionEnd)), targets,
+                        payload.substring(idsEnd + 1));
+                break;
+            case LINK_TASK:
+                int tab = payload.indexOf('\t');
+                Goal linkedGoal = goalsById.get(Integer.parseInt(payload.substring(0, tab)));
+                Task linkedTask = tasksById.get(Integer.parseInt(payload.substring(tab + 1)));
+                if (linkedGoal != null && linkedTask != null) {
+                    link(linkedGoal, linkedTask);
+                }
+                break;
+        }
+    }
+
+    // This method adds a task to the end of the list and to the indexes.
+    private void insertTask(Task task) {
+        taskStore.adopt(task); // Move the task's fields into the columns of the list
+        tasks.add(task);
+        tasksById.put(task.getId(), task);
+        indexTask(task);
+    }
+
+    // This method removes a task from the list, the indexes and every goal it belongs to.
+    private void deleteTask(Task task) {
+        // Only the goals the task is attached to are looked at, not every goal
+        for (Goal goal : statistics.goalsOfTask(task.getId())) {
+            if (goal.removeTaskId(task.getId())) {
+                statistics.taskUnlinked(goal, task);
+            }
+        }
+        tasks.remove(task);
+        tasksById.remove(task.getId());
+        unindexTask(task);
+        taskStore.release(task); // Free the row; the task keeps its values for whoever still holds it
+    }
+
+    // This method removes several tasks from the list, the indexes and the goals they belong to.
+    // The list is compacted in one pass instead of being shifted once per removed task.
+    private void deleteTasks(Collection<Task> removed) {
+        Set<Integer> ids = new HashSet<>(removed.size() * 4 / 3 + 1);
+        for (Task task : removed) {
+            ids.add(task.getId());
+        }
+        for (Task task : removed) {
+            for (Goal goal : statistics.goalsOfTask(task.getId())) {
+                if (goal.removeTaskId(task.getId())) {
+                    statistics.taskUnlinked(goal, task);
+                }
+            }
+        }
+        tasks.removeIf(task -> ids.contains(task.getId()));
+        for (Task task : removed) {
+            tasksById.remove(task.getId());
+            unindexTask(task);
+            taskStore.release(task);
+        }
+    }
+
+    // This method applies a bulk change to the given tasks and returns the tasks it changed.
+    // Tasks that no longer exist, or already have the new value, are left out.
+    private List<Task> applyBulkChange(BulkAction action, List<Task> targets, String value) {
+        List<Task> changed = new ArrayList<>(targets.size());
+        for (Task task : targets) {
+            if (tasksById.get(task.getId()) != task) {
+                continue; // Removed since it was matched
+            }
+            switch (action) {
+                case COMPLETE:
+                    if (task.isComplete()) {
+                        continue;
+                    }
+                    break;
+                case CATEGORY:
+                    if (task.getCategory().equals(value)) {
+                        continue;
+                    }
+                    break;
+                case PRIORITY:
+                    if (task.getPriorityLevel() == Priority.parse(value)) {
+                        continue;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            changed.add(task);
+        }
+
+        if (action == BulkAction.REMOVE) {
+            deleteTasks(changed);
+            return changed;
+        }
+        for (Task task : changed) {
+            beforeTaskUpdate(task);
+            if (action == BulkAction.COMPLETE) {
+                task.setComplete(true);
+            } else if (action == BulkAction.CATEGORY) {
+                task.setCategory(value);
+            } else {
+                task.setPriority(Priority.parse(value).getLabel());
+            }
+            afterTaskUpdate(task);
+        }
+        return changed;
+    }
+
+    // This method encodes a bulk change as a journal payload: the action, a tab, the task IDs
+    // separated by ';', a tab, and the new value. The value comes last so it may hold tabs.
+    private static String encodeBulkChange(BulkAction action, List<Task> changed, String value) {
+        StringBuilder payload = new StringBuilder(action.name()).append('\t');
+        for (int i = 0; i < changed.size(); i++) {
+            if (i > 0) {
+                payload.append(';');
+            }
+            payload.append(changed.get(i).getId());
+        }
+        return payload.append('\t').append(value).toString();
+    }
+
+    // This method adds a goal to the end of the list and to the indexes.
+    // Links to tasks that no longer exist are dropped.
+    private void insertGoal(Goal goal) {
+        goals.add(goal);
+        goalsById.put(goal.getId(), goal);
+        goalNames.add(goal);
+        statistics.goalAdded(goal);
+        for (int taskId : goal.getTaskIds()) {
+            Task task = tasksById.get(taskId);
+            if (task != null) {
+                statistics.taskLinked(goal, task);
+            } else {
+                goal.removeTaskId(taskId);
+            }
+        }
+    }
+
+    // This method removes a goal from the list and the indexes.
+    private void deleteGoal(Goal goal) {
+        goals.remove(goal);
+        goalsById.remove(goal.getId());
+        goalNames.remove(goal);
+        statistics.goalRemoved(goal);
+    }
+
+    // This method adds a task to a goal and updates the statistics.
+    // It returns false if the task was already part of the goal.
+    private boolean link(Goal goal, Task task) {
+        if (!goal.addTask(task)) {
+            return false;
+        }
+        statistics.taskLinked(goal, task);
+        return true;
+    }
+
+    // This method marks a goal as complete and updates the statistics.
+    private void markGoalComplete(Goal goal) {
+        statistics.beforeGoalUpdate(goal);
+        goal.setComplete(true);
+        statistics.afterGoalUpdate(goal);
+    }
+
+    // This method adds a task to every index. It is called when a task is added.
+    private void indexTask(Task task) {
+        taskNames.add(task);
+        fuzzyNames.add(task.getName());
+        nameSearch.add(task);
+        if (!loadingSnapshot) {
+            fullText.add(task);
+        }
+        tasksByName.add(task);
+        statistics.taskAdded(task);
+        filterIndex.add(task);
+        deadlineIndex.add(task);
+        priorityBuckets.add(task);
+    }
+
+    // This method removes a task from every index. It is called when a task is removed.
+    private void unindexTask(Task task) {
+        taskNames.remove(task);
+        fuzzyNames.remove(task.getName());
+        nameSearch.remove(task);
+        fullText.remove(task);
+        tasksByName.remove(task);
+        statistics.taskRemoved(task);
+        filterIndex.remove(task);
+        deadlineIndex.remove(task);
+        priorityBuckets.remove(task);
+    }
+
+    // This method takes a task out of the indexes before its fields change,
+    // while the indexes can still find it under its old values.
+    private void beforeTaskUpdate(Task task) {
+        taskNames.remove(task);
+        fuzzyNames.remove(task.getName());
+        nameSearch.remove(task);
+        fullText.remove(task);
+        tasksByName.beforeUpdate(task);
+        statistics.beforeTaskUpdate(task);
+        filterIndex.beforeUpdate(task);
+        deadlineIndex.remove(task);
+    }
+
+    // This method puts a task back into the indexes after its fields changed.
+    private void afterTaskUpdate(Task task) {
+        taskNames.add(task);
+        fuzzyNames.add(task.getName());
+        nameSearch.add(task);
+        fullText.add(task);
+        tasksByName.afterUpdate(task);
+        statistics.afterTaskUpdate(task);
+        filterIndex.afterUpdate(task);
+        deadlineIndex.add(task);
+        priorityBuckets.update(task);
+    }
+}
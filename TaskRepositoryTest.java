@@ -0,0 +1,352 @@
+import java.util.ArrayList; // Importing ArrayList for the tasks each thread adds
+import java.util.List; // Importing List interface for list operations
+import java.util.concurrent.CountDownLatch; // Importing the latch that starts the threads together
+import java.util.concurrent.TimeUnit; // Importing the unit of the time limits
+import java.util.concurrent.atomic.AtomicBoolean; // Importing the flags the threads raise when something is wrong
+import java.util.concurrent.atomic.AtomicInteger; // Importing the counters the threads share
+import java.util.concurrent.atomic.AtomicReference; // Importing the holder for the first error a thread hit
+
+/**
+ *
+ * Description:
+ * The TaskRepositoryTest class checks that TaskRepository is safe to use from many threads.
+ * Several writer threads add, change, complete and remove tasks at once, and the counts,
+ * the lists and the change log must come out exactly as if the changes had run one after
+ * another. Reader threads check, under the read lock, that they never see a task half
+ * changed or a count that disagrees with the list, while a writer keeps changing the tasks.
+ * A writer must get through while readers keep the read lock busy, so readers cannot keep
+ * changes out. It also checks the lock counters, nested locking, and that a removed task
+ * keeps its values after its row is given to another task.
+ *
+ * Run it with, for example:
+ *   java TaskRepositoryTest
+ * Settings (system properties):
+ *   taskmanager.test.threads   Threads per side in the concurrent checks (default 4)
+ *   taskmanager.test.changes   Changes each writer thread makes (default 2000)
+ * The exit status is 1 if any check failed.
+ */
+public class TaskRepositoryTest {
+
+    /**
+     * The work one test thread does.
+     */
+    private interface ThreadWork {
+        void run(int thread) throws Exception;
+    }
+
+    // Number of failed checks
+    private static int failures;
+    // Number of checks run
+    private static int checks;
+    // Threads per side in the concurrent checks
+    private static final int THREADS = Integer.getInteger("taskmanager.test.threads", 4);
+    // Changes each writer thread makes
+    private static final int CHANGES = Integer.getInteger("taskmanager.test.changes", 2000);
+
+    /**
+     * Runs every check and prints a summary.
+     *
+     * @param args Not used; the settings are system properties
+     */
+    public static void main(String[] args) throws InterruptedException {
+        countsLockUse();
+        nestsLocks();
+        keepsRemovedTaskValues();
+        copiesNameLookups();
+        appliesConcurrentWrites();
+        readersNeverSeeHalfChanges();
+        writerIsNotStarvedByReaders();
+        System.out.println(checks + " check(s), " + failures + " failed.");
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    // This method checks the read, write and optimistic read counters.
+    private static void countsLockUse() {
+        TaskRepository repository = new TaskRepository();
+        repository.addTask(newTask("first", 0));
+        repository.addTask(newTask("second", 1));
+        checkEqual("writes counted", 2L, repository.getWriteCount());
+        checkEqual("uncontended writes", 0L, repository.getContendedWriteCount());
+
+        long reads = repository.getReadCount();
+        repository.read(() -> repository.read(() -> repository.tasks()));
+        checkEqual("a nested read takes the lock once", reads + 1, repository.getReadCount());
+
+        long optimistic = repository.getOptimisticReadCount() + repository.getOptimisticRetryCount();
+        checkEqual("optimistic task count", 2, repository.taskCount());
+        checkEqual("optimistic read counted", optimistic + 1,
+                repository.getOptimisticReadCount() + repository.getOptimisticRetryCount());
+    }
+
+    // This method checks which locks a thread may take inside each other.
+    private static void nestsLocks() {
+        TaskRepository repository = new TaskRepository();
+        Task task = newTask("nested", 0);
+        repository.write(() -> {
+            repository.addTask(task);
+            checkEqual("read inside write sees the change", 1, repository.read(() -> repository.tasks().size()));
+            return null;
+        });
+        boolean refused = false;
+        try {
+            repository.read(() -> repository.removeTask(task));
+        } catch (IllegalStateException e) {
+            refused = true;
+        }
+        check("write inside read is refused", refused);
+        checkEqual("refused write changed nothing", 1, repository.taskCount());
+        check("write works after a refused write", repository.removeTask(task));
+    }
+
+    // This method checks that a removed task keeps its values when its row is reused.
+    private static void keepsRemovedTaskValues() {
+        TaskRepository repository = new TaskRepository();
+        Task removed = newTask("removed", 0);
+        repository.addTask(removed);
+        repository.removeTask(removed);
+        repository.addTask(newTask("reused", 1));
+        checkEqual("removed task name", "removed", removed.getName());
+        checkEqual("removed task description", "removed", removed.getDescription());
+        checkEqual("row reused by the new task", "reused", repository.tasks().get(0).getName());
+    }
+
+    // This method checks that a list of tasks found by name does not change with later writes.
+    private static void copiesNameLookups() {
+        TaskRepository repository = new TaskRepository();
+        repository.addTask(newTask("same", 0));
+        List<Task> named = repository.tasksNamed("same");
+        repository.addTask(newTask("same", 1));
+        checkEqual("tasks found before the add", 1, named.size());
+        checkEqual("tasks found after the add", 2, repository.tasksNamed("same").size());
+    }
+
+    // This method runs several writers at once and checks that every change was applied once,
+    // and that the change log saw the changes one at a time.
+    private static void appliesConcurrentWrites() throws InterruptedException {
+        TaskRepository repository = new TaskRepository();
+        AtomicInteger logged = new AtomicInteger();
+        AtomicBoolean logging = new AtomicBoolean();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        repository.setChangeLog((operation, payload) -> {
+            if (!logging.compareAndSet(false, true)) {
+                overlapped.set(true);
+            }
+            logged.incrementAndGet();
+            logging.set(false);
+        });
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        runTogether(THREADS, thread -> {
+            List<Task> added = new ArrayList<>();
+            for (int i = 0; i < CHANGES; i++) {
+                Task task = newTask("writer " + thread + " task " + i, i);
+                repository.addTask(task);
+                added.add(task);
+            }
+            // Every writer completes its even tasks, removes every fourth one and renames the rest
+            for (int i = 0; i < added.size(); i++) {
+                Task task = added.get(i);
+                if (i % 4 == 0) {
+                    repository.removeTask(task);
+                } else if (i % 2 == 0) {
+                    repository.completeTask(task);
+                } else {
+                    repository.updateTask(task, changed -> changed.setName(changed.getName() + " renamed"));
+                }
+            }
+        }, error);
+        check("writers finished without errors: " + error.get(), error.get() == null);
+
+        int removed = (CHANGES + 3) / 4;
+        int completed = (CHANGES + 1) / 2 - removed;
+        int expectedTasks = THREADS * (CHANGES - removed);
+        checkEqual("task count", expectedTasks, repository.taskCount());
+        checkEqual("task list size", expectedTasks, repository.tasks().size());
+        checkEqual("completed task count", THREADS * completed, repository.completedTaskCount());
+        checkEqual("changes logged", THREADS * CHANGES * 2, logged.get());
+        checkEqual("writes counted", (long) THREADS * CHANGES * 2, repository.getWriteCount());
+        check("change log was never called by two writers at once", !overlapped.get());
+        int renamed = repository.read(() -> {
+            int count = 0;
+            for (Task task : repository.tasks()) {
+                if (task.getName().endsWith(" renamed")) {
+                    count++;
+                }
+                if (repository.findTask(task.getId()) != task) {
+                    return -1;
+                }
+            }
+            return count;
+        });
+        checkEqual("renamed tasks, each found by ID", THREADS * (CHANGES / 2), renamed);
+        checkEqual("renamed tasks found by name search", THREADS * (CHANGES / 2),
+                repository.tasksContaining("renamed", 0, 1).getTotal());
+    }
+
+    // This method checks that readers never see a task half changed while a writer runs.
+    // The writer always gives a task the same name and description, so a reader that finds
+    // them different saw a change in the middle.
+    private static void readersNeverSeeHalfChanges() throws InterruptedException {
+        TaskRepository repository = new TaskRepository();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Task task = newTask("value 0", i);
+            repository.addTask(task);
+            tasks.add(task);
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger torn = new AtomicInteger();
+        AtomicInteger readsDone = new AtomicInteger();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 1; i <= CHANGES; i++) {
+                    String value = "value " + i;
+                    Task task = tasks.get(i % tasks.size());
+                    repository.updateTask(task, changed -> {
+                        changed.setName(value);
+                        changed.setDescription(value);
+                    });
+                    // Swap a task out and back in, so rows are freed and reused while readers run
+                    Task replaced = tasks.get((i * 7) % tasks.size());
+                    repository.removeTask(replaced);
+                    Task replacement = newTask(value, i);
+                    repository.addTask(replacement);
+                    tasks.set((i * 7) % tasks.size(), replacement);
+                }
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            } finally {
+                writing.set(false);
+            }
+        });
+        writer.start();
+        runTogether(THREADS, thread -> {
+            while (writing.get()) {
+                boolean consistent = repository.read(() -> {
+                    List<Task> all = repository.tasks();
+                    if (all.size() != repository.taskCount()) {
+                        return false;
+                    }
+                    for (Task task : all) {
+                        if (!task.getName().equals(task.getDescription())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+                if (!consistent) {
+                    torn.incrementAndGet();
+                }
+                readsDone.incrementAndGet();
+            }
+        }, error);
+        writer.join();
+        check("readers and writer finished without errors: " + error.get(), error.get() == null);
+        check("readers read while the writer ran", readsDone.get() > 0);
+        checkEqual("reads that saw a half-made change", 0, torn.get());
+        checkEqual("task count after the changes", tasks.size(), repository.taskCount());
+    }
+
+    // This method keeps the read lock busy with overlapping readers and checks that a writer
+    // still gets through in good time.
+    private static void writerIsNotStarvedByReaders() throws InterruptedException {
+        TaskRepository repository = new TaskRepository();
+        repository.addTask(newTask("busy", 0));
+        AtomicBoolean reading = new AtomicBoolean(true);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (reading.get()) {
+                        // Each read holds the lock for a while, so the reads overlap
+                        repository.read(() -> {
+                            sleep(2);
+                            return repository.tasks().size();
+                        });
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        sleep(50); // Let the readers get going
+        int writes = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < writes; i++) {
+            repository.addTask(newTask("written " + i, i));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        reading.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        check("readers finished without errors: " + error.get(), error.get() == null);
+        checkEqual("every write applied", writes + 1, repository.taskCount());
+        // Each write waits for at most the reads already holding the lock, about 2 ms
+        check("writes got through in " + elapsedMillis + " ms", elapsedMillis < 5000);
+        check("readers waited for the writer", repository.getContendedReadCount() > 0
+                || repository.getContendedWriteCount() > 0);
+    }
+
+    // This method runs the same work on several threads started together and waits for them.
+    // The first error any thread hit is kept in the error holder.
+    private static void runTogether(int threads, ThreadWork work, AtomicReference<Throwable> error)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> started = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    work.run(thread);
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            worker.start();
+            started.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : started) {
+            worker.join();
+        }
+    }
+
+    // This method creates a task whose name and description are the same.
+    private static Task newTask(String name, int number) {
+        String[] priorities = {"High", "Medium", "Low"};
+        return new Task(name, name, "Category " + (number % 5), "2025-01-" + (10 + number % 20),
+                priorities[number % 3]);
+    }
+
+    // This method sleeps, treating an interrupt as the end of the sleep.
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // This method records the result of one check and prints it if it failed.
+    private static void check(String description, boolean passed) {
+        checks++;
+        if (!passed) {
+            failures++;
+            System.out.println("FAILED: " + description);
+        }
+    }
+
+    // This method checks that a value is the one expected.
+    private static void checkEqual(String description, Object expected, Object actual) {
+        check(description + ": expected <" + expected + "> but was <" + actual + ">",
+                expected == null ? actual == null : expected.equals(actual));
+    }
+}
@@ -0,0 +1,671 @@
+// Import HttpExchange for reading a request and writing its response
+import com.sun.net.httpserver.HttpExchange;
+// Import HttpServer for the JDK's built-in HTTP server
+import com.sun.net.httpserver.HttpServer;
+// Import IOException for errors reading requests and writing responses
+import java.io.IOException;
+// Import OutputStream for writing response bodies
+import java.io.OutputStream;
+// Import InetSocketAddress for the address the server listens on
+import java.net.InetSocketAddress;
+// Import URLDecoder for decoding query parameters
+import java.net.URLDecoder;
+// Import StandardCharsets for the UTF-8 request and response bodies
+import java.nio.charset.StandardCharsets;
+// Import LocalDate for resolving "today" in filters
+import java.time.LocalDate;
+// Import HashMap for the query parameters
+import java.util.HashMap;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+// Import ExecutorService for the threads requests are handled on
+import java.util.concurrent.ExecutorService;
+// Import Executors for creating the request executor
+import java.util.concurrent.Executors;
+// Import TimeUnit for waiting for running requests when stopping
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Description:
+ * The TaskServer class serves the tasks and goals of a TaskRepository as a JSON HTTP API, on
+ * the JDK's built-in com.sun.net.httpserver. Each request runs on its own virtual thread when
+ * the JVM has them (Java 21 and later), and on a pooled platform thread otherwise. Requests
+ * only meet at the repository's locks, which are java.util.concurrent locks, so a virtual
+ * thread waiting for one does not hold up the carrier thread it runs on.
+ *
+ * Changes go through the repository, so they are journaled like changes made in the menus.
+ * Every response is rendered while holding the repository's read lock, so a task is never
+ * shown half changed. Request and response bodies are UTF-8 JSON. Errors are returned as
+ * {"error": "message"} with status 400 (bad request), 404 (no such task, goal or path),
+ * 405 (method not allowed) or 413 (body over 1 MB).
+ *
+ * Endpoints:
+ *   GET    /tasks?filter=F&offset=O&limit=L  {"total", "offset", "tasks"}; F as in the Advanced Filter menu
+ *   POST   /tasks                            201 and the task; body: name, category, deadline,
+ *                                            priority, and optionally description
+ *   GET    /tasks/ID                         the task
+ *   PATCH  /tasks/ID (or PUT)                the task; body: any of name, description, category,
+ *                                            deadline, priority, complete
+ *   DELETE /tasks/ID                         204
+ *   GET    /search?q=WORDS&limit=L           {"tasks"}, words in names and descriptions, best match first
+ *   GET    /search?prefix=TEXT (or contains=TEXT)&offset=O&limit=L
+ *                                            {"total", "offset", "tasks"}, matching task names
+ *   GET    /top?k=K                          {"tasks"}, the K most urgent open tasks
+ *   GET    /stats                            task, priority, category and goal counts, and lock counters
+ *   GET    /goals                            {"goals"}
+ *   POST   /goals                            201 and the goal; body: name
+ *   GET    /goals/ID                         the goal
+ *   PATCH  /goals/ID (or PUT)                the goal; body: {"complete": true}
+ *   DELETE /goals/ID                         204
+ *   POST   /goals/ID/tasks                   the goal; body: {"taskId": ID}
+ * A task is {"id", "name", "description", "category", "deadline", "priority", "complete"}.
+ * A goal is {"id", "name", "complete", "taskIds"}.
+ */
+public class TaskServer {
+
+    // Largest request body accepted
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    // Number of tasks a list returns when no limit is given, and the most it returns
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10000;
+
+    /**
+     * An error that is returned to the client with an HTTP status.
+     */
+    private static class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // The tasks and goals served
+    private final TaskRepository repository;
+    // The HTTP server
+    private final HttpServer server;
+    // The threads requests are handled on
+    private final ExecutorService executor;
+    // True if each request runs on its own virtual thread
+    private final boolean virtualThreads;
+
+    /**
+     * Constructs a server for a repository. It does not accept requests until start is called.
+     *
+     * @param repository The tasks and goals to serve
+     * @param address    The address to listen on; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public TaskServer(TaskRepository repository, InetSocketAddress address) throws IOException {
+        this.repository = repository;
+        // The JDK's server writes a response's headers and body separately; with Nagle's algorithm
+        // on, the body waits for the client's delayed ACK and every request takes about 40 ms.
+        // The setting is read once, when the first server is created, and can still be overridden
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(address, 0);
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits for the running ones to finish.
+     *
+     * @param delaySeconds The most seconds to wait for running requests
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the port the server listens on, which is useful when it was started on port 0.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Tells whether requests run on virtual threads or on pooled platform threads.
+     *
+     * @return True for virtual threads
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // This method creates an executor that starts a virtual thread per task. It is looked up
+    // by reflection so the program still runs on Java versions without virtual threads, where
+    // it returns null.
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // This method handles one request: it routes it by path and method and writes the response.
+    private void handle(HttpExchange exchange) throws IOException {
+        int status;
+        String body;
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+            String method = exchange.getRequestMethod();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            switch (path[0]) {
+                case "tasks":
+                    if (path.length == 1) {
+                        if (method.equals("GET")) {
+                            status = 200;
+                            body = listTasks(query);
+                        } else if (method.equals("POST")) {
+                            status = 201;
+                            body = addTask(readBody(exchange));
+                        } else {
+                            throw notAllowed();
+                        }
+                    } else if (path.length == 2) {
+                        Task task = taskWithId(path[1]);
+                        status = 200;
+                        if (method.equals("GET")) {
+                            body = repository.read(() -> taskJson(new StringBuilder(), task).toString());
+                        } else if (method.equals("PATCH") || method.equals("PUT")) {
+                            body = updateTask(task, readBody(exchange));
+                        } else if (method.equals("DELETE")) {
+                            requireFound(repository.removeTask(task), "task", path[1]);
+                            status = 204;
+                            body = null;
+                        } else {
+                            throw notAllowed();
+                        }
+                    } else {
+                        throw notFound();
+                    }
+                    break;
+                case "search":
+                    requireGet(method, path);
+                    status = 200;
+                    body = search(query);
+                    break;
+                case "top":
+                    requireGet(method, path);
+                    status = 200;
+                    int k = intParameter(query, "k", 10, 1, MAX_LIMIT);
+                    body = repository.read(() -> tasksJson(repository.mostUrgent(k)));
+                    break;
+                case "stats":
+                    requireGet(method, path);
+                    status = 200;
+                    body = stats();
+                    break;
+                case "goals":
+                    status = 200;
+                    body = handleGoals(exchange, method, path);
+                    if (method.equals("DELETE")) {
+                        status = 204;
+                    } else if (method.equals("POST") && path.length == 1) {
+                        status = 201;
+                    }
+                    break;
+                default:
+                    throw notFound();
+            }
+        } catch (HttpError e) {
+            status = e.status;
+            body = errorJson(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = errorJson(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = errorJson("Internal error: " + e);
+        }
+        send(exchange, status, body);
+    }
+
+    // This method handles the requests under /goals and returns the response body.
+    private String handleGoals(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                return repository.read(() -> {
+                    StringBuilder out = new StringBuilder("{\"goals\":[");
+                    List<Goal> goals = repository.goals();
+                    for (int i = 0; i < goals.size(); i++) {
+                        goalJson(i > 0 ? out.append(',') : out, goals.get(i));
+                    }
+                    return out.append("]}").toString();
+                });
+            }
+            if (method.equals("POST")) {
+                Map<String, Object> fields = readObject(exchange);
+                Goal goal = new Goal(requireString(fields, "name"));
+                repository.addGoal(goal);
+                return repository.read(() -> goalJson(new StringBuilder(), goal).toString());
+            }
+            throw notAllowed();
+        }
+        Goal goal = goalWithId(path[1]);
+        if (path.length == 2) {
+            switch (method) {
+                case "GET":
+                    break;
+                case "PATCH":
+                case "PUT":
+                    Object complete = readObject(exchange).get("complete");
+                    if (complete != null && !(complete instanceof Boolean)) {
+                        throw new IllegalArgumentException("\"complete\" must be true or false.");
+                    }
+                    if (Boolean.FALSE.equals(complete) && goal.isComplete()) {
+                        throw new IllegalArgumentException("A completed goal cannot be reopened.");
+                    }
+                    if (Boolean.TRUE.equals(complete)) {
+                        requireFound(repository.completeGoal(goal), "goal", path[1]);
+                    }
+                    break;
+                case "DELETE":
+                    requireFound(repository.removeGoal(goal), "goal", path[1]);
+                    return null;
+                default:
+                    throw notAllowed();
+            }
+            return repository.read(() -> goalJson(new StringBuilder(), goal).toString());
+        }
+        if (path.length == 3 && path[2].equals("tasks")) {
+            if (!method.equals("POST")) {
+                throw notAllowed();
+            }
+            Object taskId = readObject(exchange).get("taskId");
+            if (!(taskId instanceof Long)) {
+                throw new IllegalArgumentException("\"taskId\" must be a task ID.");
+            }
+            Task task = taskWithId(String.valueOf(taskId));
+            if (!repository.linkTask(goal, task)) {
+                // Either it was already linked, which is fine, or one of them was just removed
+                requireFound(repository.findGoal(goal.getId()) == goal, "goal", path[1]);
+                requireFound(repository.findTask(task.getId()) == task, "task", String.valueOf(taskId));
+            }
+            return repository.read(() -> goalJson(new StringBuilder(), goal).toString());
+        }
+        throw notFound();
+    }
+
+    // This method lists one page of the tasks, or of the tasks matching a filter.
+    private String listTasks(Map<String, String> query) {
+        String filter = query.get("filter");
+        TaskQuery taskQuery = filter == null || filter.trim().isEmpty() ? null : TaskQuery.parse(filter);
+        int offset = intParameter(query, "offset", 0, 0, Integer.MAX_VALUE);
+        int limit = intParameter(query, "limit", DEFAULT_LIMIT, 0, MAX_LIMIT);
+        return repository.read(() -> {
+            List<Task> tasks = taskQuery == null ? repository.tasks() : repository.find(taskQuery, LocalDate.now());
+            int from = Math.min(offset, tasks.size());
+            return pageJson(tasks.size(), from, tasks.subList(from, Math.min(tasks.size(), from + limit)));
+        });
+    }
+
+    // This method searches task names by prefix or by contained text, or the words in names
+    // and descriptions.
+    private String search(Map<String, String> query) {
+        int offset = intParameter(query, "offset", 0, 0, Integer.MAX_VALUE);
+        int limit = intParameter(query, "limit", DEFAULT_LIMIT, 0, MAX_LIMIT);
+        String words = query.get("q");
+        String prefix = query.get("prefix");
+        String contains = query.get("contains");
+        return repository.read(() -> {
+            if (words != null) {
+                return tasksJson(repository.search(words, limit));
+            }
+            NameSearchIndex.Page page;
+            if (prefix != null) {
+                page = repository.tasksStartingWith(prefix, offset, limit);
+            } else if (contains != null) {
+                page = repository.tasksContaining(contains, offset, limit);
+            } else {
+                throw new IllegalArgumentException("Give one of the parameters q, prefix or contains.");
+            }
+            return pageJson(page.getTotal(), offset, page.getTasks());
+        });
+    }
+
+    // This method adds the task described by a request body.
+    private String addTask(String body) {
+        Map<String, Object> fields = parseObject(body);
+        String deadline = requireString(fields, "deadline");
+        String priority = requireString(fields, "priority");
+        checkDeadline(deadline);
+        checkPriority(priority);
+        Object description = fields.getOrDefault("description", "");
+        if (!(description instanceof String)) {
+            throw new IllegalArgumentException("\"description\" must be a string.");
+        }
+        Task task = new Task(requireString(fields, "name"), (String) description, requireString(fields, "category"),
+                deadline, Priority.parse(priority).getLabel());
+        repository.addTask(task);
+        return repository.read(() -> taskJson(new StringBuilder(), task).toString());
+    }
+
+    // This method changes the fields of a task given in a request body. Every value is checked
+    // before the task is changed, so a bad request leaves the task as it was.
+    private String updateTask(Task task, String body) {
+        Map<String, Object> fields = parseObject(body);
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            Object value = field.getValue();
+            switch (field.getKey()) {
+                case "complete":
+                    if (!(value instanceof Boolean)) {
+                        throw new IllegalArgumentException("\"complete\" must be true or false.");
+                    }
+                    break;
+                case "name":
+                case "description":
+                case "category":
+                case "deadline":
+                case "priority":
+                    if (!(value instanceof String)) {
+                        throw new IllegalArgumentException("\"" + field.getKey() + "\" must be a string.");
+                    }
+                    if (field.getKey().equals("deadline")) {
+                        checkDeadline((String) value);
+                    } else if (field.getKey().equals("priority")) {
+                        checkPriority((String) value);
+                    }
+                    break;
+                case "id":
+                    if (!Long.valueOf(task.getId()).equals(value)) {
+                        throw new IllegalArgumentException("The ID of a task cannot be changed.");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown field \"" + field.getKey()
+                            + "\"; use name, description, category, deadline, priority or complete.");
+            }
+        }
+        boolean updated = repository.updateTask(task, edited -> {
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                Object value = field.getValue();
+                switch (field.getKey()) {
+                    case "name":
+                        edited.setName((String) value);
+                        break;
+                    case "description":
+                        edited.setDescription((String) value);
+                        break;
+                    case "category":
+                        edited.setCategory((String) value);
+                        break;
+                    case "deadline":
+                        edited.setDeadline((String) value);
+                        break;
+                    case "priority":
+                        edited.setPriority(Priority.parse((String) value).getLabel());
+                        break;
+                    case "complete":
+                        edited.setComplete((Boolean) value);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+        requireFound(updated, "task", String.valueOf(task.getId()));
+        return repository.read(() -> taskJson(new StringBuilder(), task).toString());
+    }
+
+    // This method renders the statistics screen's counts, and the repository's lock counters.
+    private String stats() {
+        return repository.read(() -> {
+            TaskStatistics statistics = repository.getStatistics();
+            StringBuilder out = new StringBuilder("{\"tasks\":");
+            countsJson(out, statistics.getTaskCount(), statistics.getCompletedTaskCount());
+            out.append(",\"goals\":");
+            countsJson(out, statistics.getGoalCount(), statistics.getCompletedGoalCount());
+            out.append(",\"priorities\":{");
+            Priority[] priorities = Priority.values();
+            for (int i = 0; i < priorities.length; i++) {
+                TaskStatistics.Counts counts = statistics.getPriorityCounts(priorities[i]);
+                Json.quote(i > 0 ? out.append(',') : out, counts.getLabel()).append(':');
+                countsJson(out, counts.getTotal(), counts.getComplete());
+            }
+            out.append("},\"categories\":{");
+            boolean first = true;
+            for (TaskStatistics.Counts counts : statistics.getCategoryCounts()) {
+                Json.quote(first ? out : out.append(','), counts.getLabel()).append(':');
+                countsJson(out, counts.getTotal(), counts.getComplete());
+                first = false;
+            }
+            out.append("},\"goalProgress\":[");
+            List<Goal> goals = repository.goals();
+            for (int i = 0; i < goals.size(); i++) {
+                TaskStatistics.Counts progress = statistics.getGoalProgress(goals.get(i));
+                out.append(i > 0 ? ",{\"id\":" : "{\"id\":").append(goals.get(i).getId())
+                        .append(",\"total\":").append(progress.getTotal())
+                        .append(",\"complete\":").append(progress.getComplete()).append('}');
+            }
+            return out.append("],\"locks\":{\"reads\":").append(repository.getReadCount())
+                    .append(",\"contendedReads\":").append(repository.getContendedReadCount())
+                    .append(",\"writes\":").append(repository.getWriteCount())
+                    .append(",\"contendedWrites\":").append(repository.getContendedWriteCount())
+                    .append(",\"optimisticReads\":").append(repository.getOptimisticReadCount())
+                    .append(",\"optimisticRetries\":").append(repository.getOptimisticRetryCount())
+                    .append("}}").toString();
+        });
+    }
+
+    // This method writes a task as a JSON object.
+    private static StringBuilder taskJson(StringBuilder out, Task task) {
+        out.append("{\"id\":").append(task.getId()).append(",\"name\":");
+        Json.quote(out, task.getName()).append(",\"description\":");
+        Json.quote(out, task.getDescription()).append(",\"category\":");
+        Json.quote(out, task.getCategory()).append(",\"deadline\":");
+        Json.quote(out, task.getDeadline()).append(",\"priority\":");
+        Json.quote(out, task.getPriority()).append(",\"complete\":").append(task.isComplete());
+        return out.append('}');
+    }
+
+    // This method writes a goal as a JSON object.
+    private static StringBuilder goalJson(StringBuilder out, Goal goal) {
+        out.append("{\"id\":").append(goal.getId()).append(",\"name\":");
+        Json.quote(out, goal.getName()).append(",\"complete\":").append(goal.isComplete()).append(",\"taskIds\":[");
+        int[] taskIds = goal.getTaskIds();
+        for (int i = 0; i < taskIds.length; i++) {
+            out.append(i > 0 ? "," : "").append(taskIds[i]);
+        }
+        return out.append("]}");
+    }
+
+    // This method writes {"tasks": [...]}.
+    private static String tasksJson(List<Task> tasks) {
+        StringBuilder out = new StringBuilder(64 + tasks.size() * 160).append("{\"tasks\":[");
+        for (int i = 0; i < tasks.size(); i++) {
+            taskJson(i > 0 ? out.append(',') : out, tasks.get(i));
+        }
+        return out.append("]}").toString();
+    }
+
+    // This method writes one page of a longer result: {"total", "offset", "tasks"}.
+    private static String pageJson(int total, int offset, List<Task> tasks) {
+        StringBuilder out = new StringBuilder(64 + tasks.size() * 160)
+                .append("{\"total\":").append(total).append(",\"offset\":").append(offset).append(",\"tasks\":[");
+        for (int i = 0; i < tasks.size(); i++) {
+            taskJson(i > 0 ? out.append(',') : out, tasks.get(i));
+        }
+        return out.append("]}").toString();
+    }
+
+    // This method writes {"total": N, "complete": N}.
+    private static void countsJson(StringBuilder out, int total, int complete) {
+        out.append("{\"total\":").append(total).append(",\"complete\":").append(complete).append('}');
+    }
+
+    // This method writes {"error": message}.
+    private static String errorJson(String message) {
+        return Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString();
+    }
+
+    // This method writes a response, with no body for status 204.
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        try {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // This method reads a request body as UTF-8 text, refusing bodies over the limit.
+    private static String readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new HttpError(413, "The request body is larger than " + MAX_BODY_BYTES + " bytes.");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // This method reads a request body holding a JSON object.
+    private static Map<String, Object> readObject(HttpExchange exchange) throws IOException {
+        return parseObject(readBody(exchange));
+    }
+
+    // This method parses a JSON object.
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parseObject(String body) {
+        Object value = Json.parse(body);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("The request body must be a JSON object.");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    // This method splits a query string into decoded parameters. A repeated parameter keeps
+    // its last value.
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    // This method gets a whole-number query parameter, or a default when it is missing.
+    private static int intParameter(Map<String, String> query, String name, int defaultValue, int min, int max) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value.trim());
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Parameter \"" + name + "\" must be a number from " + min + " to " + max + ".");
+    }
+
+    // This method gets a string field of a request body that must be present.
+    private static String requireString(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("\"" + name + "\" is required and must be a string.");
+        }
+        return (String) value;
+    }
+
+    // This method checks a deadline given in a request.
+    private static void checkDeadline(String deadline) {
+        if (!RecordCodec.isValidDate(deadline)) {
+            throw new IllegalArgumentException("Invalid deadline \"" + deadline + "\"; use YYYY-MM-DD.");
+        }
+    }
+
+    // This method checks a priority given in a request.
+    private static void checkPriority(String priority) {
+        if (!RecordCodec.isValidPriority(priority)) {
+            throw new IllegalArgumentException("Invalid priority \"" + priority + "\"; use High, Medium or Low.");
+        }
+    }
+
+    // This method finds the task a path names by ID.
+    private Task taskWithId(String id) {
+        Task task = repository.findTask(RecordCodec.parseId(id));
+        if (task == null) {
+            throw new HttpError(404, "No task with ID \"" + id + "\".");
+        }
+        return task;
+    }
+
+    // This method finds the goal a path names by ID.
+    private Goal goalWithId(String id) {
+        Goal goal = repository.findGoal(RecordCodec.parseId(id));
+        if (goal == null) {
+            throw new HttpError(404, "No goal with ID \"" + id + "\".");
+        }
+        return goal;
+    }
+
+    // This method fails a request whose task or goal was removed before the change was made.
+    private static void requireFound(boolean found, String kind, String id) {
+        if (!found) {
+            throw new HttpError(404, "No " + kind + " with ID \"" + id + "\".");
+        }
+    }
+
+    // This method checks that a request to a path that only answers GET is a GET for that path.
+    private static void requireGet(String method, String[] path) {
+        if (path.length != 1) {
+            throw notFound();
+        }
+        if (!method.equals("GET")) {
+            throw notAllowed();
+        }
+    }
+
+    // This method builds the error for a path that does not exist.
+    private static HttpError notFound() {
+        return new HttpError(404, "Not found.");
+    }
+
+    // This method builds the error for a method a path does not answer.
+    private static HttpError notAllowed() {
+        return new HttpError(405, "Method not allowed.");
+    }
+}
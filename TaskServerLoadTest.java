@@ -0,0 +1,334 @@
+import java.net.InetSocketAddress; // Importing class for the address of the embedded server
+import java.net.URI; // Importing class for the request addresses
+import java.net.URLEncoder; // Importing class for encoding query parameters
+import java.net.http.HttpClient; // Importing the JDK's HTTP client the load is sent with
+import java.net.http.HttpRequest; // Importing class for building requests
+import java.net.http.HttpResponse; // Importing class for reading responses
+import java.nio.charset.StandardCharsets; // Importing the charset of query parameters
+import java.time.Duration; // Importing class for the request timeout
+import java.time.LocalDate; // Importing class for generating deadlines
+import java.util.*; // Importing utility classes like List, Map, Random, etc.
+import java.util.concurrent.atomic.AtomicBoolean; // Importing the flag that starts and stops the clients
+
+/**
+ *
+ * Description:
+ * The TaskServerLoadTest class measures the JSON HTTP API under load. Unless a URL is given,
+ * it fills a TaskRepository with generated tasks and serves it with an embedded TaskServer on
+ * a free local port, so nothing on disk is touched. A number of client threads then send
+ * requests back to back for a fixed time, in a mix of lookups by ID, searches, filters, top-K,
+ * statistics, edits and new tasks. After a warm-up it reports the requests per second and
+ * the p50, p99 and highest latency, overall and for each kind of request.
+ *
+ * Run it with, for example:
+ *   java -Dtaskmanager.load.clients=32 TaskServerLoadTest
+ * Settings (system properties):
+ *   taskmanager.load.url       Server to load, e.g. http://127.0.0.1:8080 (default: an embedded server)
+ *   taskmanager.load.tasks     Tasks generated for the embedded server (default 10000)
+ *   taskmanager.load.clients   Client threads sending requests (default 16)
+ *   taskmanager.load.warmup    Warm-up seconds, not measured (default 3)
+ *   taskmanager.load.seconds   Measured seconds (default 10)
+ * The exit status is 1 if any request failed.
+ */
+public class TaskServerLoadTest {
+
+    /**
+     * The kinds of request sent, with the share of the mix each takes, in percent.
+     */
+    private enum Kind {
+        GET_TASK(40), SEARCH_WORDS(10), SEARCH_PREFIX(10), FILTER(10), TOP(5), STATS(5), UPDATE(15), ADD(5);
+
+        final int percent;
+
+        Kind(int percent) {
+            this.percent = percent;
+        }
+    }
+
+    /**
+     * The latencies one client measured, in nanoseconds, for each kind of request.
+     */
+    private static class Recorder {
+        final long[][] latencies = new long[Kind.values().length][1024];
+        final int[] counts = new int[Kind.values().length];
+        int errors;
+        String firstError;
+
+        void record(Kind kind, long nanos) {
+            int k = kind.ordinal();
+            if (counts[k] == latencies[k].length) {
+                latencies[k] = Arrays.copyOf(latencies[k], counts[k] * 2);
+            }
+            latencies[k][counts[k]++] = nanos;
+        }
+    }
+
+    // Words the generated tasks are made from
+    private static final String[] VERBS = {"Write", "Review", "Plan", "Fix", "Update", "Prepare", "Call", "Email"};
+    private static final String[] NOUNS = {"report", "budget", "invoice", "slides", "release", "garden",
+            "client", "roadmap", "backlog", "taxes", "server", "contract"};
+    private static final String[] CATEGORIES = {"Work", "Home", "School", "Finance", "Health", "Errands"};
+    private static final String[] PRIORITIES = {"High", "Medium", "Low"};
+
+    // Settings
+    private final int clients = Math.max(1, Integer.getInteger("taskmanager.load.clients", 16));
+    private final long warmupMillis = Long.getLong("taskmanager.load.warmup", 3L) * 1000L;
+    private final long measuredMillis = Math.max(1L, Long.getLong("taskmanager.load.seconds", 10L)) * 1000L;
+
+    // The server's address, and the client every thread sends through
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10)).build();
+    // IDs and names of existing tasks, picked at random by the requests
+    private int[] ids;
+    private String[] prefixes;
+
+    // Set while the clients should record latencies, and when they should stop
+    private final AtomicBoolean measuring = new AtomicBoolean();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    private TaskServerLoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args Not used; the settings are system properties
+     */
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("taskmanager.load.url");
+        TaskServer server = null;
+        if (url == null) {
+            int size = Math.max(1, Integer.getInteger("taskmanager.load.tasks", 10000));
+            TaskRepository repository = new TaskRepository();
+            generateTasks(repository, size, new Random(42));
+            server = new TaskServer(repository, new InetSocketAddress("127.0.0.1", 0));
+            server.start();
+            url = "http://127.0.0.1:" + server.getPort();
+            System.out.println("Embedded server with " + size + " tasks on " + url + " ("
+                    + (server.usesVirtualThreads() ? "a virtual thread" : "a pooled thread") + " per request)");
+        }
+        int errors;
+        try {
+            errors = new TaskServerLoadTest(url.replaceAll("/+$", "")).run();
+        } finally {
+            if (server != null) {
+                server.stop(1);
+            }
+        }
+        System.exit(errors > 0 ? 1 : 0);
+    }
+
+    // This method runs the clients for the warm-up and measured time, prints the results and
+    // returns the number of failed requests.
+    private int run() throws Exception {
+        loadTaskIds();
+        System.out.println(clients + " clients, " + warmupMillis / 1000 + " s warm-up, "
+                + measuredMillis / 1000 + " s measured, " + Runtime.getRuntime().availableProcessors() + " core(s)");
+
+        Recorder[] recorders = new Recorder[clients];
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            Recorder recorder = new Recorder();
+            recorders[c] = recorder;
+            Random random = new Random(1000 + c);
+            threads.add(new Thread(() -> {
+                while (!stopped.get()) {
+                    send(pickKind(random), random, recorder);
+                }
+            }, "load-client-" + c));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(warmupMillis);
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(measuredMillis);
+        measuring.set(false);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        stopped.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return report(recorders, seconds);
+    }
+
+    // This method sends one request and records its latency while measuring.
+    private void send(Kind kind, Random random, Recorder recorder) {
+        HttpRequest request = buildRequest(kind, random);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long nanos = System.nanoTime() - start;
+            // A task another client's request removed is not a failure; nothing here removes tasks
+            if (response.statusCode() >= 300) {
+                failed(recorder, kind + " " + request.uri() + ": " + response.statusCode() + " " + response.body());
+            } else if (measuring.get()) {
+                recorder.record(kind, nanos);
+            }
+        } catch (Exception e) {
+            failed(recorder, kind + " " + request.uri() + ": " + e);
+        }
+    }
+
+    // This method counts a failed request, keeping the first message to show.
+    private void failed(Recorder recorder, String message) {
+        if (measuring.get() || !stopped.get()) {
+            recorder.errors++;
+            if (recorder.firstError == null) {
+                recorder.firstError = message;
+            }
+        }
+    }
+
+    // This method builds a request of the given kind for a random task.
+    private HttpRequest buildRequest(Kind kind, Random random) {
+        int id = ids[random.nextInt(ids.length)];
+        switch (kind) {
+            case GET_TASK:
+                return get("/tasks/" + id);
+            case SEARCH_WORDS:
+                return get("/search?limit=20&q=" + encode(NOUNS[random.nextInt(NOUNS.length)] + " "
+                        + NOUNS[random.nextInt(NOUNS.length)]));
+            case SEARCH_PREFIX:
+                return get("/search?limit=20&prefix=" + encode(prefixes[random.nextInt(prefixes.length)]));
+            case FILTER:
+                return get("/tasks?limit=20&filter=" + encode("category:" + CATEGORIES[random.nextInt(CATEGORIES.length)]
+                        + " AND priority:High AND open"));
+            case TOP:
+                return get("/top?k=10");
+            case STATS:
+                return get("/stats");
+            case UPDATE:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/tasks/" + id))
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"priority\":\""
+                                + PRIORITIES[random.nextInt(PRIORITIES.length)] + "\"}"))
+                        .timeout(Duration.ofSeconds(30)).build();
+            default:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Load task " + random.nextInt(1000000)
+                                + "\",\"category\":\"Work\",\"deadline\":\"" + LocalDate.now().plusDays(random.nextInt(60))
+                                + "\",\"priority\":\"Medium\",\"description\":\"added by the load test\"}"))
+                        .timeout(Duration.ofSeconds(30)).build();
+        }
+    }
+
+    // This method builds a GET request for a path under the server's address.
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    // This method picks a kind of request according to the mix.
+    private static Kind pickKind(Random random) {
+        int roll = random.nextInt(100);
+        for (Kind kind : Kind.values()) {
+            roll -= kind.percent;
+            if (roll < 0) {
+                return kind;
+            }
+        }
+        return Kind.GET_TASK;
+    }
+
+    // This method reads the IDs and name prefixes of up to 10000 existing tasks from the server.
+    @SuppressWarnings("unchecked")
+    private void loadTaskIds() throws Exception {
+        HttpResponse<String> response = client.send(get("/tasks?limit=10000"), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Could not list the tasks: " + response.statusCode() + " " + response.body());
+        }
+        List<Object> tasks = (List<Object>) ((Map<String, Object>) Json.parse(response.body())).get("tasks");
+        if (tasks.isEmpty()) {
+            throw new IllegalStateException("The server has no tasks to load.");
+        }
+        ids = new int[tasks.size()];
+        prefixes = new String[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            Map<String, Object> task = (Map<String, Object>) tasks.get(i);
+            ids[i] = ((Long) task.get("id")).intValue();
+            String name = (String) task.get("name");
+            prefixes[i] = name.substring(0, Math.min(6, name.length()));
+        }
+    }
+
+    // This method prints requests per second and latency percentiles, overall and per kind,
+    // and returns the number of failed requests.
+    private int report(Recorder[] recorders, double seconds) {
+        System.out.printf("%n%-14s%10s%10s%10s%10s%10s%n", "Request", "count", "req/s", "p50 ms", "p99 ms", "max ms");
+        List<long[]> all = new ArrayList<>();
+        for (Kind kind : Kind.values()) {
+            long[] latencies = merge(recorders, kind);
+            all.add(latencies);
+            printRow(kind.name().toLowerCase().replace('_', '-'), latencies, seconds);
+        }
+        long[] total = new long[all.stream().mapToInt(latencies -> latencies.length).sum()];
+        int at = 0;
+        for (long[] latencies : all) {
+            System.arraycopy(latencies, 0, total, at, latencies.length);
+            at += latencies.length;
+        }
+        Arrays.sort(total);
+        printRow("all", total, seconds);
+
+        int errors = 0;
+        String firstError = null;
+        for (Recorder recorder : recorders) {
+            errors += recorder.errors;
+            if (firstError == null) {
+                firstError = recorder.firstError;
+            }
+        }
+        System.out.println(errors == 0 ? "No failed requests." : errors + " failed request(s), first: " + firstError);
+        return errors;
+    }
+
+    // This method joins the latencies every client measured for one kind of request, sorted.
+    private static long[] merge(Recorder[] recorders, Kind kind) {
+        int k = kind.ordinal();
+        long[] merged = new long[Arrays.stream(recorders).mapToInt(recorder -> recorder.counts[k]).sum()];
+        int at = 0;
+        for (Recorder recorder : recorders) {
+            System.arraycopy(recorder.latencies[k], 0, merged, at, recorder.counts[k]);
+            at += recorder.counts[k];
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    // This method prints one row of the results from sorted latencies.
+    private static void printRow(String label, long[] sorted, double seconds) {
+        if (sorted.length == 0) {
+            System.out.printf("%-14s%10d%10s%10s%10s%10s%n", label, 0, "-", "-", "-", "-");
+            return;
+        }
+        System.out.printf("%-14s%10d%10.0f%10.2f%10.2f%10.2f%n", label, sorted.length, sorted.length / seconds,
+                percentile(sorted, 50) / 1e6, percentile(sorted, 99) / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    // This method gets a percentile of sorted values: the smallest value at least that share
+    // of the values do not exceed.
+    private static long percentile(long[] sorted, double percent) {
+        int index = (int) Math.ceil(percent / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    // This method encodes a query parameter value.
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    // This method fills a repository with generated tasks.
+    private static void generateTasks(TaskRepository repository, int size, Random random) {
+        LocalDate start = LocalDate.now().minusDays(90);
+        for (int i = 0; i < size; i++) {
+            Task task = new Task(VERBS[random.nextInt(VERBS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + i,
+                    NOUNS[random.nextInt(NOUNS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)],
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], start.plusDays(random.nextInt(365)).toString(),
+                    PRIORITIES[random.nextInt(PRIORITIES.length)]);
+            task.setComplete(random.nextInt(100) < 15);
+            repository.addTask(task);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+// Import ArrayList for the per-task goal lists
+import java.util.ArrayList;
+// Import Collection interface for returning the category counts
+import java.util.Collection;
+// Import Collections for the read-only views handed to callers
+import java.util.Collections;
+// Import EnumMap for the per-priority counts
+import java.util.EnumMap;
+// Import HashMap for the goals of each task
+import java.util.HashMap;
+// Import IdentityHashMap for finding the counts of a goal
+import java.util.IdentityHashMap;
+// Import List interface for list operations
+import java.util.List;
+// Import Map interface for map operations
+import java.util.Map;
+// Import TreeMap for listing categories in alphabetical order
+import java.util.TreeMap;
+
+/**
+ *
+ * Description:
+ * The TaskStatistics class keeps the numbers shown on the statistics screen up to date as
+ * tasks and goals change, so showing them never has to go through every task. It counts
+ * tasks and goals, completed and pending, per category and per priority, and for each goal
+ * how many of its tasks are complete. A task must be reported with beforeTaskUpdate before
+ * its category, priority or completion changes and with afterTaskUpdate afterwards; goals
+ * work the same way.
+ */
+public class TaskStatistics {
+
+    /**
+     * The number of tasks, and completed tasks, sharing a category or priority.
+     */
+    public static class Counts {
+        private final String label; // The category or priority, as first seen
+        private int total;          // Number of tasks
+        private int complete;       // Number of completed tasks
+
+        private Counts(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the category or priority these counts are for.
+         *
+         * @return The label
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Gets the number of tasks.
+         *
+         * @return The number of tasks
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Gets the number of completed tasks.
+         *
+         * @return The number of completed tasks
+         */
+        public int getComplete() {
+            return complete;
+        }
+
+        /**
+         * Gets the number of tasks that are not complete.
+         *
+         * @return The number of pending tasks
+         */
+        public int getPending() {
+            return total - complete;
+        }
+    }
+
+    // Task and goal totals
+    private int taskCount;
+    private int completedTaskCount;
+    private int goalCount;
+    private int completedGoalCount;
+
+    // Case-folded category to its counts, in alphabetical order
+    private final Map<String, Counts> categories = new TreeMap<>();
+    // Priority to its counts
+    private final Map<Priority, Counts> priorities = new EnumMap<>(Priority.class);
+    // Goal to the number of tasks attached to it and how many of them are complete
+    private final Map<Goal, Counts> goalProgress = new IdentityHashMap<>();
+    // Task ID to the goals the task is attached to
+    private final Map<Integer, List<Goal>> goalsOfTask = new HashMap<>();
+
+    /**
+     * Constructs empty statistics.
+     */
+    public TaskStatistics() {
+        for (Priority priority : Priority.values()) {
+            priorities.put(priority, new Counts(priority.getLabel()));
+        }
+    }
+
+    /**
+     * Counts a task that was added.
+     *
+     * @param task The new task
+     */
+    public void taskAdded(Task task) {
+        count(task, 1);
+    }
+
+    /**
+     * Stops counting a task that was removed. The task should be detached from its goals
+     * with taskUnlinked first.
+     *
+     * @param task The removed task
+     */
+    public void taskRemoved(Task task) {
+        count(task, -1);
+    }
+
+    /**
+     * Takes a task out of the counts before its fields change.
+     *
+     * @param task The task about to change
+     */
+    public void beforeTaskUpdate(Task task) {
+        count(task, -1);
+        countGoalProgress(task, -1);
+    }
+
+    /**
+     * Puts a task back into the counts after its fields changed.
+     *
+     * @param task The task that changed
+     */
+    public void afterTaskUpdate(Task task) {
+        count(task, 1);
+        countGoalProgress(task, 1);
+    }
+
+    /**
+     * Counts a goal that was added. Tasks already attached to it are counted by calling
+     * taskLinked for each of them.
+     *
+     * @param goal The new goal
+     */
+    public void goalAdded(Goal goal) {
+        goalCount++;
+        if (goal.isComplete()) {
+            completedGoalCount++;
+        }
+        goalProgress.put(goal, new Counts(goal.getName()));
+    }
+
+    /**
+     * Stops counting a goal that was removed.
+     *
+     * @param goal The removed goal
+     */
+    public void goalRemoved(Goal goal) {
+        if (goalProgress.remove(goal) == null) {
+            return;
+        }
+        goalCount--;
+        if (goal.isComplete()) {
+            completedGoalCount--;
+        }
+        for (int taskId : goal.getTaskIds()) {
+            forgetLink(goal, taskId);
+        }
+    }
+
+    /**
+     * Takes a goal out of the counts before its completion changes.
+     *
+     * @param goal The goal about to change
+     */
+    public void beforeGoalUpdate(Goal goal) {
+        if (goal.isComplete()) {
+            completedGoalCount--;
+        }
+    }
+
+    /**
+     * Puts a goal back into the counts after its completion changed.
+     *
+     * @param goal The goal that changed
+     */
+    public void afterGoalUpdate(Goal goal) {
+        if (goal.isComplete()) {
+            completedGoalCount++;
+        }
+    }
+
+    /**
+     * Counts a task that was attached to a goal.
+     *
+     * @param goal The goal
+     * @param task The task attached to it
+     */
+    public void taskLinked(Goal goal, Task task) {
+        Counts progress = goalProgress.get(goal);
+        if (progress == null) {
+            return;
+        }
+        progress.total++;
+        if (task.isComplete()) {
+            progress.complete++;
+        }
+        goalsOfTask.computeIfAbsent(task.getId(), key -> new ArrayList<>(1)).add(goal);
+    }
+
+    /**
+     * Stops counting a task that was detached from a goal.
+     *
+     * @param goal The goal
+     * @param task The task detached from it
+     */
+    public void taskUnlinked(Goal goal, Task task) {
+        Counts progress = goalProgress.get(goal);
+        if (progress == null) {
+            return;
+        }
+        progress.total--;
+        if (task.isComplete()) {
+            progress.complete--;
+        }
+        forgetLink(goal, task.getId());
+    }
+
+    /**
+     * Gets the goals a task is attached to.
+     *
+     * @param taskId The ID of the task
+     * @return A copy of the list of goals, empty if the task is part of no goal
+     */
+    public List<Goal> goalsOfTask(int taskId) {
+        List<Goal> goals = goalsOfTask.get(taskId);
+        return goals == null ? new ArrayList<>() : new ArrayList<>(goals);
+    }
+
+    /**
+     * Gets the number of tasks.
+     *
+     * @return The number of tasks
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Gets the number of completed tasks.
+     *
+     * @return The number of completed tasks
+     */
+    public int getCompletedTaskCount() {
+        return completedTaskCount;
+    }
+
+    /**
+     * Gets the number of goals.
+     *
+     * @return The number of goals
+     */
+    public int getGoalCount() {
+        return goalCount;
+    }
+
+    /**
+     * Gets the number of completed goals.
+     *
+     * @return The number of completed goals
+     */
+    public int getCompletedGoalCount() {
+        return completedGoalCount;
+    }
+
+    /**
+     * Gets the counts for each category in use, in alphabetical order.
+     *
+     * @return A read-only view of the category counts
+     */
+    public Collection<Counts> getCategoryCounts() {
+        return Collections.unmodifiableCollection(categories.values());
+    }
+
+    /**
+     * Gets the counts for a priority.
+     *
+     * @param priority The priority
+     * @return The counts for the priority
+     */
+    public Counts getPriorityCounts(Priority priority) {
+        return priorities.get(priority);
+    }
+
+    /**
+     * Gets the number of tasks attached to a goal and how many of them are complete.
+     *
+     * @param goal The goal
+     * @return The goal's counts, or null if the goal is not counted
+     */
+    public Counts getGoalProgress(Goal goal) {
+        return goalProgress.get(goal);
+    }
+
+    // This method adds (delta 1) or subtracts (delta -1) a task's share of the counts.
+    private void count(Task task, int delta) {
+        int completeDelta = task.isComplete() ? delta : 0;
+        taskCount += delta;
+        completedTaskCount += completeDelta;
+
+        String key = NameIndex.fold(task.getCategory());
+        Counts category = categories.get(key);
+        if (category == null) {
+            category = new Counts(task.getCategory());
+            categories.put(key, category);
+        }
+        category.total += delta;
+        category.complete += completeDelta;
+        if (category.total == 0) {
+            categories.remove(key); // No task uses the category any more
+        }
+
+        Counts priority = priorities.get(task.getPriorityLevel());
+        priority.total += delta;
+        priority.complete += completeDelta;
+    }
+
+    // This method adds or subtracts a task's completion in the goals it is attached to.
+    private void countGoalProgress(Task task, int delta) {
+        if (!task.isComplete()) {
+            return;
+        }
+        List<Goal> goals = goalsOfTask.get(task.getId());
+        if (goals == null) {
+            return;
+        }
+        for (Goal goal : goals) {
+            goalProgress.get(goal).complete += delta;
+        }
+    }
+
+    // This method removes a goal from the list of goals a task is attached to.
+    private void forgetLink(Goal goal, int taskId) {
+        List<Goal> goals = goalsOfTask.get(taskId);
+        if (goals != null) {
+            goals.remove(goal);
+            if (goals.isEmpty()) {
+                goalsOfTask.remove(taskId);
+            }
+        }
+    }
+}
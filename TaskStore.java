@@ -0,0 +1,469 @@
+// Import Arrays for growing the columns
+import java.util.Arrays;
+// Import BitSet for the completion column
+import java.util.BitSet;
+
+/**
+ *
+ * Description:
+ * The TaskStore class keeps the fields of many tasks in columns (one array per field) instead
+ * of in one object per task. Deadlines are stored as day numbers in an int array, priorities
+ * in a byte array, completion in a bitmap, and categories as int codes into SymbolTable.CATEGORIES,
+ * which holds each distinct category once for every store. A Task is a small view that knows its store and its row,
+ * and reads and writes its fields here. This saves the per-object and per-string overhead of
+ * every task, and scanning a field touches one compact array instead of following a pointer
+ * per task.
+ *
+ * Rows of removed tasks are reused by later tasks. A task can be moved from one store to
+ * another with adopt, for example from the store a file was parsed into to the store of the
+ * running program. A task created on its own, or released from a store, keeps its values in
+ * a store made by forOneTask, which holds them in plain fields instead of columns.
+ * A store is not thread-safe: each one is used by one thread at a time. The store of the
+ * running program counts its rows as uses of their categories in SymbolTable.CATEGORIES;
+ * stores that only hold tasks for a while, such as a file being parsed, do not.
+ */
+public class TaskStore {
+
+    // The columns, indexed by row
+    private String[] names;        // Task names
+    private String[] descriptions; // Task descriptions
+    private int[] categories;      // Codes of the task categories in SymbolTable.CATEGORIES
+    private int[] deadlines;       // Deadlines in days since 1970-01-01
+    private byte[] priorities;     // Ordinals of the task priorities
+    private final BitSet complete; // Rows of completed tasks
+    private Task[] views;          // The task reading each row; null for unused rows
+
+    // Number of rows handed out so far, including rows freed since
+    private int rowCount;
+    // Freed rows waiting to be reused
+    private int[] freeRows = NO_ROWS;
+    private int freeCount;
+    // True if rows count as uses of their category in CATEGORIES
+    private final boolean countsUses;
+
+    // The categories all stores share
+    private static final SymbolTable CATEGORIES = SymbolTable.CATEGORIES;
+
+    // Priorities by ordinal, so a byte converts back without allocating
+    private static final Priority[] PRIORITIES = Priority.values();
+    // The free rows of a store that has never freed one
+    private static final int[] NO_ROWS = new int[0];
+
+    /**
+     * Constructs an empty store.
+     */
+    public TaskStore() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty store with room for the given number of tasks before it grows.
+     *
+     * @param capacity The number of tasks to make room for
+     */
+    public TaskStore(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Constructs an empty store with room for the given number of tasks before it grows.
+     *
+     * @param capacity   The number of tasks to make room for
+     * @param countsUses True for the store of the running program, whose rows count as uses of
+     *                   their category, so the category table reports what live tasks share
+     */
+    public TaskStore(int capacity, boolean countsUses) {
+        this.countsUses = countsUses;
+        capacity = Math.max(1, capacity);
+        names = new String[capacity];
+        descriptions = new String[capacity];
+        categories = new int[capacity];
+        deadlines = new int[capacity];
+        priorities = new byte[capacity];
+        complete = new BitSet();
+        views = new Task[capacity];
+    }
+
+    // This constructor makes a store without columns, for Single.
+    private TaskStore(Single single) {
+        countsUses = false;
+        complete = null;
+    }
+
+    /**
+     * Makes a store for one task that is not in a list, such as a task created on its own or
+     * removed from the list. It keeps the task's values in a small object instead of columns.
+     *
+     * @return An empty store with room for one task
+     */
+    public static TaskStore forOneTask() {
+        return new Single();
+    }
+
+    /**
+     * Moves a task's fields into this store, if they are not here already. The task keeps
+     * its identity; only where its fields are kept changes.
+     *
+     * @param task The task to move
+     */
+    public void adopt(Task task) {
+        TaskStore source = task.getStore();
+        if (source == this) {
+            return;
+        }
+        int from = task.getRow();
+        int row = addRow(task, source.name(from), source.description(from),
+                source.categoryCodeAt(from), source.deadline(from), source.priority(from));
+        setComplete(row, source.isComplete(from));
+        source.freeRow(from);
+        task.moveTo(this, row);
+    }
+
+    /**
+     * Moves a removed task's fields out of this store into a store of its own, so the row can
+     * be reused while the task can still be read.
+     *
+     * @param task The task to release
+     */
+    public void release(Task task) {
+        if (task.getStore() == this) {
+            forOneTask().adopt(task);
+        }
+    }
+
+    /**
+     * Gets the number of tasks in the store.
+     *
+     * @return The number of rows in use
+     */
+    public int size() {
+        return rowCount - freeCount;
+    }
+
+    /**
+     * Gets the number of rows handed out, including freed rows. Scans run from row 0 up to
+     * this number and skip rows whose task is null.
+     *
+     * @return One more than the highest row handed out
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the task stored in a row.
+     *
+     * @param row The row
+     * @return The task, or null if the row is not in use
+     */
+    public Task taskAt(int row) {
+        return views[row];
+    }
+
+    /**
+     * Gets the deadline stored in a row.
+     *
+     * @param row The row
+     * @return The deadline in days since 1970-01-01
+     */
+    public int deadlineAt(int row) {
+        return deadlines[row];
+    }
+
+    /**
+     * Gets the priority stored in a row.
+     *
+     * @param row The row
+     * @return The priority
+     */
+    public Priority priorityAt(int row) {
+        return PRIORITIES[priorities[row]];
+    }
+
+    /**
+     * Checks whether the task in a row is complete.
+     *
+     * @param row The row
+     * @return True if the task is complete, otherwise false
+     */
+    public boolean isCompleteAt(int row) {
+        return complete.get(row);
+    }
+
+    /**
+     * Gets the code of the category stored in a row.
+     *
+     * @param row The row
+     * @return The category code in SymbolTable.CATEGORIES
+     */
+    public int categoryCodeAt(int row) {
+        return categories[row];
+    }
+
+    /**
+     * Gets the code of a category, exactly as written.
+     *
+     * @param category The category
+     * @return The code, or -1 if no task has ever used the category
+     */
+    public int categoryCode(String category) {
+        return CATEGORIES.codeOf(category);
+    }
+
+    /**
+     * Gets the category a dictionary code stands for.
+     *
+     * @param code The code
+     * @return The category
+     */
+    public String categoryName(int code) {
+        return CATEGORIES.name(code);
+    }
+
+    // The methods below are used by Task to read and write its row.
+
+    int addRow(Task view, String name, String description, String category, int deadline, Priority priority) {
+        return addRow(view, name, description, CATEGORIES.intern(category), deadline, priority);
+    }
+
+    int addRow(Task view, String name, String description, int category, int deadline, Priority priority) {
+        int row;
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+        } else {
+            if (rowCount == names.length) {
+                grow();
+            }
+            row = rowCount++;
+        }
+        names[row] = name;
+        descriptions[row] = description;
+        categories[row] = category;
+        if (countsUses) {
+            CATEGORIES.use(category);
+        }
+        deadlines[row] = deadline;
+        priorities[row] = (byte) priority.ordinal();
+        complete.clear(row);
+        views[row] = view;
+        return row;
+    }
+
+    String name(int row) {
+        return names[row];
+    }
+
+    void setName(int row, String name) {
+        names[row] = name;
+    }
+
+    String description(int row) {
+        return descriptions[row];
+    }
+
+    void setDescription(int row, String description) {
+        descriptions[row] = description;
+    }
+
+    String category(int row) {
+        return CATEGORIES.name(categories[row]);
+    }
+
+    void setCategory(int row, String category) {
+        int code = CATEGORIES.intern(category);
+        if (countsUses && code != categories[row]) {
+            CATEGORIES.drop(categories[row]);
+            CATEGORIES.use(code);
+        }
+        categories[row] = code;
+    }
+
+    int deadline(int row) {
+        return deadlines[row];
+    }
+
+    void setDeadline(int row, int deadline) {
+        deadlines[row] = deadline;
+    }
+
+    Priority priority(int row) {
+        return PRIORITIES[priorities[row]];
+    }
+
+    void setPriority(int row, Priority priority) {
+        priorities[row] = (byte) priority.ordinal();
+    }
+
+    boolean isComplete(int row) {
+        return complete.get(row);
+    }
+
+    void setComplete(int row, boolean isComplete) {
+        complete.set(row, isComplete);
+    }
+
+    // This method frees a row for reuse and drops the references it held.
+    void freeRow(int row) {
+        names[row] = null;
+        descriptions[row] = null;
+        views[row] = null;
+        complete.clear(row);
+        if (countsUses) {
+            CATEGORIES.drop(categories[row]);
+        }
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, Math.max(8, freeCount * 2));
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    // This method makes every column half as large again.
+    private void grow() {
+        int capacity = names.length + Math.max(8, names.length >> 1);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+    /**
+     * The store of one task, holding its values in fields instead of columns, so a task
+     * created on its own or released from a list costs one small object.
+     */
+    private static final class Single extends TaskStore {
+        private Task view;
+        private String name;
+        private String description;
+        private int category;
+        private int deadline;
+        private Priority priority;
+        private boolean completed;
+
+        Single() {
+            super((Single) null);
+        }
+
+        @Override
+        public void release(Task task) {
+            // Nothing to free: the task already has this store to itself
+        }
+
+        @Override
+        public int size() {
+            return view == null ? 0 : 1;
+        }
+
+        @Override
+        public int getRowCount() {
+            return 1;
+        }
+
+        @Override
+        public Task taskAt(int row) {
+            return view;
+        }
+
+        @Override
+        public int deadlineAt(int row) {
+            return deadline;
+        }
+
+        @Override
+        public Priority priorityAt(int row) {
+            return priority;
+        }
+
+        @Override
+        public boolean isCompleteAt(int row) {
+            return completed;
+        }
+
+        @Override
+        public int categoryCodeAt(int row) {
+            return category;
+        }
+
+        @Override
+        int addRow(Task view, String name, String description, int category, int deadline, Priority priority) {
+            if (this.view != null) {
+                throw new IllegalStateException("A store made by forOneTask holds only one task");
+            }
+            this.view = view;
+            this.name = name;
+            this.description = description;
+            this.category = category;
+            this.deadline = deadline;
+            this.priority = priority;
+            this.completed = false;
+            return 0;
+        }
+
+        @Override
+        String name(int row) {
+            return name;
+        }
+
+        @Override
+        void setName(int row, String name) {
+            this.name = name;
+        }
+
+        @Override
+        String description(int row) {
+            return description;
+        }
+
+        @Override
+        void setDescription(int row, String description) {
+            this.description = description;
+        }
+
+        @Override
+        String category(int row) {
+            return CATEGORIES.name(category);
+        }
+
+        @Override
+        void setCategory(int row, String category) {
+            this.category = CATEGORIES.intern(category);
+        }
+
+        @Override
+        int deadline(int row) {
+            return deadline;
+        }
+
+        @Override
+        void setDeadline(int row, int deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        Priority priority(int row) {
+            return priority;
+        }
+
+        @Override
+        void setPriority(int row, Priority priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        boolean isComplete(int row) {
+            return completed;
+        }
+
+        @Override
+        void setComplete(int row, boolean isComplete) {
+            completed = isComplete;
+        }
+
+        @Override
+        void freeRow(int row) {
+            view = null;
+            name = null;
+            description = null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.io.PrintStream; // Importing the stream the table is written to
+import java.util.List; // Importing List interface for the rows to print
+
+/**
+ *
+ * Description:
+ * The TaskTableRenderer class prints tasks as the fixed-width table used by the task menus.
+ * Rows are formatted by hand into one reused buffer instead of with printf, and the buffer
+ * is written to the stream in large blocks. System.out takes a lock and flushes on every line
+ * it prints, so printing row by row costs far more than building the rows; writing a block at
+ * a time keeps long lists fast. Rows can be printed a range at a time, for paging through a
+ * long list with an offset and a page size.
+ */
+public class TaskTableRenderer {
+
+    // Column widths, matching the original printf layout
+    private static final int NUMBER_WIDTH = 4;
+    private static final int NAME_WIDTH = 20;
+    private static final int CATEGORY_WIDTH = 15;
+    private static final int DEADLINE_WIDTH = 15;
+    private static final int PRIORITY_WIDTH = 10;
+    private static final int COMPLETED_WIDTH = 10;
+
+    // Characters gathered before the buffer is written out
+    private static final int BLOCK_SIZE = 32 * 1024;
+
+    // Where the table is written
+    private final PrintStream out;
+    // Rows waiting to be written, reused for every block
+    private final StringBuilder buffer = new StringBuilder(BLOCK_SIZE + 256);
+    // The line separator printf's %n would write
+    private final String newLine = System.lineSeparator();
+
+    /**
+     * Constructs a renderer writing to the given stream.
+     *
+     * @param out The stream to write to
+     */
+    public TaskTableRenderer(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Adds the column headings and the line under them.
+     */
+    public void header() {
+        pad("No", NUMBER_WIDTH);
+        pad("Name", NAME_WIDTH);
+        pad("Category", CATEGORY_WIDTH);
+        pad("Deadline", DEADLINE_WIDTH);
+        pad("Priority", PRIORITY_WIDTH);
+        pad("Completed", COMPLETED_WIDTH);
+        buffer.append(newLine);
+        buffer.append("-------------------------------------------------------------------------").append(newLine);
+    }
+
+    /**
+     * Adds the rows for part of a list, numbered from the position of the first one.
+     *
+     * @param tasks The whole list
+     * @param from  Position of the first task to print (zero-based)
+     * @param to    Position after the last task to print
+     * @return The position after the last task printed, to continue from on the next page
+     */
+    public int rows(List<Task> tasks, int from, int to) {
+        to = Math.min(to, tasks.size());
+        for (int i = from; i < to; i++) {
+            Task task = tasks.get(i);
+            int start = buffer.length();
+            buffer.append(i + 1);
+            padFrom(start, NUMBER_WIDTH);
+            pad(task.getName(), NAME_WIDTH);
+            pad(task.getCategory(), CATEGORY_WIDTH);
+            pad(task.getDeadline(), DEADLINE_WIDTH);
+            pad(task.getPriority(), PRIORITY_WIDTH);
+            pad(task.isComplete() ? "Yes" : "No", COMPLETED_WIDTH);
+            buffer.append(newLine);
+            if (buffer.length() >= BLOCK_SIZE) {
+                flush();
+            }
+        }
+        return Math.max(from, to);
+    }
+
+    /**
+     * Writes any rows still in the buffer.
+     */
+    public void flush() {
+        if (buffer.length() > 0) {
+            out.print(buffer);
+            out.flush();
+            buffer.setLength(0);
+        }
+    }
+
+    // This method adds a value left-aligned in a column, like printf's %-Ns.
+    // Longer values are not cut, so they push the rest of the row to the right.
+    private void pad(String value, int width) {
+        int start = buffer.length();
+        buffer.append(value);
+        padFrom(start, width);
+    }
+
+    // This method adds spaces after the text added since start until the column is full.
+    private void padFrom(int start, int width) {
+        for (int i = buffer.length() - start; i < width; i++) {
+            buffer.append(' ');
+        }
+    }
+}
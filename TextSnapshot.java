@@ -0,0 +1,178 @@
+import java.io.*; // Importing classes for file input/output operations
+import java.nio.charset.StandardCharsets; // Importing the charset used for the text file
+import java.util.ArrayList; // Importing ArrayList for the lists of tasks and goals
+import java.util.List; // Importing List interface for list operations
+
+/**
+ *
+ * Description:
+ * The TextSnapshot class reads and writes the line-based text data file. Each task and goal
+ * is stored on its own line in the form produced by Task.toString and Goal.toString, after a
+ * "Snapshot:" header line holding the journal sequence number, the highest task and goal
+ * IDs handed out, so IDs of removed tasks and goals are not reused after a restart, and the
+ * record format. Records are escaped by RecordCodec only in files whose header names the
+ * escaped format; older files are read with backslashes as plain text. The format is human readable
+ * and is used for import and export as well as for the data file when it is selected.
+ */
+public class TextSnapshot {
+
+    // Prefix of the header line holding the journal sequence number
+    private static final String HEADER = "Snapshot:";
+    // Record format written in the header; files without it hold unescaped records
+    private static final int ESCAPED_FORMAT = 2;
+
+    /**
+     * Encodes the given tasks and goals in the text format.
+     *
+     * @param sequence Sequence number of the last journal record included
+     * @param tasks    The tasks to encode
+     * @param goals    The goals to encode
+     * @return The encoded file contents
+     */
+    public static byte[] encode(long sequence, List<Task> tasks, List<Goal> goals) {
+        String newLine = System.lineSeparator();
+        StringBuilder builder = new StringBuilder(64 * (tasks.size() + goals.size() + 1));
+        builder.append(HEADER).append(sequence).append(',').append(Task.getLastId())
+                .append(',').append(Goal.getLastId()).append(',').append(ESCAPED_FORMAT).append(newLine);
+        // Write each task to its own line
+        for (Task task : tasks) {
+            builder.append(task).append(newLine);
+        }
+        // Write each goal to its own line
+        for (Goal goal : goals) {
+            builder.append(goal).append(newLine);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a text data file. Lines that are neither a task, a goal nor the header are ignored,
+     * and task or goal lines that fail validation are skipped and counted.
+     *
+     * @param file The file to read
+     * @return The tasks, goals and sequence number read from the file
+     * @throws IOException if the file cannot be read
+     */
+    public static SnapshotContents read(File file) throws IOException {
+        long sequence = 0;
+        boolean hasIds = false;
+        List<Task> tasks = new ArrayList<>();
+        List<Goal> goals = new ArrayList<>();
+        TaskStore store = new TaskStore(); // One store for every task in the file
+        int rejected = 0;
+        boolean escaped = false; // Until a header says otherwise
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            // Read each line from the file
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(HEADER)) {
+                    sequence = parseHeader(line.substring(HEADER.length()));
+                    hasIds = headerHasIds(line.substring(HEADER.length()));
+                    escaped = headerHasEscapes(line.substring(HEADER.length()));
+                } else if (line.startsWith(RecordCodec.TASK_PREFIX)) {
+                    // Parse and add tasks to the list
+                    Task task = RecordCodec.decodeTask(line, 0, line.length(), store, escaped);
+                    if (task != null) {
+                        tasks.add(task);
+                    } else {
+                        rejected++;
+                    }
+                } else if (line.startsWith(RecordCodec.GOAL_PREFIX)) {
+                    // Parse and add goals to the list
+                    Goal goal = RecordCodec.decodeGoal(line, 0, line.length(), escaped);
+                    if (goal != null) {
+                        goals.add(goal);
+                    } else {
+                        rejected++;
+                    }
+                }
+            }
+        }
+        return new SnapshotContents(sequence, tasks, goals, rejected, hasIds);
+    }
+
+    /**
+     * Reads only the journal sequence number from the header of a text data file.
+     *
+     * @param file The file to read
+     * @return The sequence number, or 0 if the file has no header
+     * @throws IOException if the file cannot be read
+     */
+    public static long readSequence(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line != null && line.startsWith(HEADER)) {
+                String value = line.substring(HEADER.length());
+                int comma = value.indexOf(',');
+                return Long.parseLong((comma < 0 ? value : value.substring(0, comma)).trim());
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Parses the part of a header line after "Snapshot:" and reserves the task and goal IDs
+     * it lists, so new tasks and goals get higher IDs. Files written before IDs existed
+     * hold only the sequence number.
+     *
+     * @param value The header text after the prefix, such as "42,17,3"
+     * @return The journal sequence number
+     * @throws NumberFormatException if the header is not valid
+     */
+    public static long parseHeader(String value) {
+        String[] parts = value.split(",");
+        if (parts.length >= 3) {
+            Task.reserveIds(Integer.parseInt(parts[1].trim()));
+            Goal.reserveIds(Integer.parseInt(parts[2].trim()));
+        }
+        return Long.parseLong(parts[0].trim());
+    }
+
+    /**
+     * Checks whether a header lists task and goal IDs, which files written before IDs
+     * existed do not.
+     *
+     * @param value The header text after the prefix
+     * @return True if the header lists IDs, otherwise false
+     */
+    public static boolean headerHasIds(String value) {
+        return value.indexOf(',') >= 0;
+    }
+
+    /**
+     * Checks whether a header names the escaped record format. Files without a header, or
+     * written before escaping existed, hold records whose backslashes are plain text.
+     *
+     * @param value The header text after the prefix
+     * @return True if the records after the header are escaped, otherwise false
+     */
+    public static boolean headerHasEscapes(String value) {
+        String[] parts = value.split(",");
+        if (parts.length < 4) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(parts[3].trim()) >= ESCAPED_FORMAT;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the first line of a file and checks whether it is a header naming the escaped
+     * record format.
+     *
+     * @param file The file to check
+     * @return True if the file's records are escaped, otherwise false
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean hasEscapes(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            return line != null && line.startsWith(HEADER) && headerHasEscapes(line.substring(HEADER.length()));
+        }
+    }
+}
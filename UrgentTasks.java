@@ -0,0 +1,98 @@
+// Import ArrayList for the result list
+import java.util.ArrayList;
+// Import Collections for reversing the heap contents into the result
+import java.util.Collections;
+// Import Comparator for ordering tasks by urgency
+import java.util.Comparator;
+// Import List interface for list operations
+import java.util.List;
+// Import PriorityQueue for the bounded heap
+import java.util.PriorityQueue;
+
+/**
+ *
+ * Description:
+ * The UrgentTasks class finds the K most urgent open tasks without sorting every task.
+ * A task's urgency score is its deadline, as an epoch day, plus a number of grace days
+ * for its priority: High tasks get none, Medium tasks 3 and Low tasks 7. A lower score is
+ * more urgent, so a High task due Friday ranks with a Low task due a week earlier. Equal
+ * scores are broken by the earlier deadline, then by the order the tasks were given in.
+ * The tasks are scanned once while a heap holds the best K seen so far, so the cost is
+ * O(n log K) and the list of tasks is never reordered.
+ */
+public class UrgentTasks {
+    // Grace days added to the deadline for each priority, indexed by Priority ordinal
+    private static final int[] GRACE_DAYS = {0, 3, 7};
+
+    /**
+     * A task with its score and its position in the input, so ties stay in input order.
+     */
+    private static class Entry {
+        final Task task;
+        final long score;
+        final int position;
+
+        Entry(Task task, int position) {
+            this.task = task;
+            this.score = urgency(task);
+            this.position = position;
+        }
+    }
+
+    // Most urgent first
+    private static final Comparator<Entry> MOST_URGENT_FIRST = Comparator
+            .comparingLong((Entry entry) -> entry.score)
+            .thenComparingInt(entry -> entry.task.getDeadlineEpochDay())
+            .thenComparingInt(entry -> entry.position);
+
+    private UrgentTasks() {
+    }
+
+    /**
+     * Calculates the urgency score of a task. A lower score is more urgent.
+     *
+     * @param task The task to score
+     * @return The deadline as an epoch day plus the grace days for the task's priority
+     */
+    public static long urgency(Task task) {
+        return (long) task.getDeadlineEpochDay() + GRACE_DAYS[task.getPriorityLevel().ordinal()];
+    }
+
+    /**
+     * Finds the most urgent open tasks.
+     *
+     * @param tasks The tasks to choose from; completed tasks are skipped
+     * @param k     The number of tasks wanted
+     * @return Up to k open tasks, most urgent first
+     */
+    public static List<Task> mostUrgent(Iterable<Task> tasks, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        // The heap keeps the k most urgent tasks seen so far with the least urgent on top,
+        // so a new task only has to beat the top to get in
+        PriorityQueue<Entry> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, MOST_URGENT_FIRST.reversed());
+        int position = 0;
+        for (Task task : tasks) {
+            if (task.isComplete()) {
+                position++;
+                continue;
+            }
+            Entry entry = new Entry(task, position++);
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (MOST_URGENT_FIRST.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        // Emptying the heap gives the least urgent first, so reverse at the end
+        List<Task> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll().task);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.IOException; // Importing the exception thrown when a result file cannot be read
+import java.nio.charset.StandardCharsets; // Importing the charset JMH writes its results in
+import java.nio.file.Files; // Importing class for reading the result files
+import java.nio.file.Paths; // Importing class for turning the arguments into paths
+import java.util.LinkedHashMap; // Importing LinkedHashMap for the results, kept in file order
+import java.util.List; // Importing List interface for the result arrays
+import java.util.Map; // Importing Map interface for the parsed JSON objects
+
+/**
+ *
+ * Description:
+ * The BenchmarkComparison class compares two JMH result files written with "-rf json", a
+ * baseline from the commit before a change and the results after it. It prints each
+ * benchmark's throughput before and after and the change in bytes allocated per operation
+ * (when the results were taken with "-prof gc"). A benchmark has regressed when its throughput
+ * dropped by more than the tolerance and by more than the error JMH reported for the two
+ * results together, so noise is not reported.
+ *
+ * Run it with, for example:
+ *   java -cp target/benchmarks.jar taskmanager.BenchmarkComparison before.json after.json 10
+ * The last argument is the tolerance in percent (default 10). The exit status is 1 if any
+ * benchmark regressed.
+ */
+public class BenchmarkComparison {
+
+    /**
+     * One benchmark result read from a JMH result file.
+     */
+    private static class Result {
+        final double score;      // The throughput
+        final double error;      // The error JMH reported for the score
+        final double bytesPerOp; // Bytes allocated per operation, or -1 if not measured
+
+        Result(double score, double error, double bytesPerOp) {
+            this.score = score;
+            this.error = error;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+    /**
+     * Compares the two result files and prints the changes.
+     *
+     * @param args The baseline file, the new results file and optionally the tolerance
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BenchmarkComparison BASELINE.json RESULTS.json [TOLERANCE_PERCENT]");
+            System.exit(2);
+        }
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> results = read(args[1]);
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        System.out.println("Compared with the baseline (tolerance " + tolerance + "%):");
+        System.out.printf("%-50s%14s%14s%10s%12s%n", "Benchmark", "base ops/s", "ops/s", "change", "bytes/op");
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            Result result = entry.getValue();
+            Result base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-50s%14s%14.1f%10s%n", entry.getKey(), "-", result.score, "new");
+                continue;
+            }
+            double change = 100 * (result.score - base.score) / base.score;
+            double noise = 100 * (base.error + result.error) / base.score;
+            String allocation = base.bytesPerOp <= 0 || result.bytesPerOp < 0 ? ""
+                    : String.format("%+.0f%%", 100 * (result.bytesPerOp - base.bytesPerOp) / base.bytesPerOp);
+            boolean regressed = change < -Math.max(tolerance, noise);
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-50s%14.1f%14.1f%+9.1f%%%12s%s%n", entry.getKey(), base.score, result.score,
+                    change, allocation, regressed ? "  REGRESSION" : "");
+        }
+        System.out.println(regressions == 0 ? "No regressions." : regressions + " regression(s).");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    // This method reads a JMH result file, keyed by benchmark name and parameters.
+    private static Map<String, Result> read(String file) throws IOException {
+        String text = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Object item : (List<?>) Json.parse(text)) {
+            Map<?, ?> run = (Map<?, ?>) item;
+            String name = (String) run.get("benchmark");
+            name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1); // Class.method
+            if (run.get("params") instanceof Map) {
+                name += " " + run.get("params");
+            }
+            Map<?, ?> primary = (Map<?, ?>) run.get("primaryMetric");
+            double bytesPerOp = -1;
+            if (run.get("secondaryMetrics") instanceof Map) {
+                for (Map.Entry<?, ?> metric : ((Map<?, ?>) run.get("secondaryMetrics")).entrySet()) {
+                    if (metric.getKey().toString().endsWith("gc.alloc.rate.norm")) {
+                        bytesPerOp = number(((Map<?, ?>) metric.getValue()).get("score"));
+                    }
+                }
+            }
+            results.put(name, new Result(number(primary.get("score")), number(primary.get("scoreError")), bytesPerOp));
+        }
+        return results;
+    }
+
+    // This method reads a number JMH wrote, which is "NaN" in quotes when it could not be computed.
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
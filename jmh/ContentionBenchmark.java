@@ -0,0 +1,137 @@
+import java.util.List; // Importing List interface for the repository's tasks
+import java.util.Random; // Importing class for choosing the tasks the writer edits
+import java.util.concurrent.TimeUnit; // Importing the unit results are reported in
+import java.util.concurrent.locks.LockSupport; // Importing the pause between the writer's changes
+import org.openjdk.jmh.annotations.*; // Importing the JMH annotations that declare the benchmarks
+
+/**
+ *
+ * Description:
+ * The ContentionBenchmark class measures reads against one TaskRepository while a writer
+ * thread keeps editing its tasks. Each benchmark is a JMH group of reader threads and one
+ * writer thread; the readers cycle through a lookup by ID, the optimistic task count, a name
+ * prefix search and an exact name lookup. The "locks" group goes through the repository's own
+ * locks, and the "monitor" group makes every call inside one shared monitor, the way
+ * TaskManager guarded its lists before TaskRepository, to show what the read lock gains.
+ * Compare the readers' throughput as the number of readers grows, for example:
+ *   java -jar target/benchmarks.jar ContentionBenchmark -tg 1,1
+ *   java -jar target/benchmarks.jar ContentionBenchmark -tg 4,1
+ * where the first number is the reader threads and the second the writer threads.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentionBenchmark {
+
+    /**
+     * The place in the list of queries of one reader thread.
+     */
+    @State(Scope.Thread)
+    public static class Reader {
+        int next;
+    }
+
+    // Number of tasks in the repository
+    @Param({"100000"})
+    public int size;
+
+    // Pause between the writer's changes, in microseconds
+    @Param({"100"})
+    public long writePauseMicros;
+
+    // The repository read and edited, and what the readers look up
+    private TaskRepository repository;
+    private List<Task> tasks;
+    private final int[] ids = new int[256];
+    private final String[] names = new String[ids.length];
+    private final String[] prefixes = new String[ids.length];
+    // The monitor every call of the "monitor" group is made inside
+    private final Object monitor = new Object();
+    // Chooses the tasks and priorities the writer sets
+    private final Random random = new Random(1);
+
+    /**
+     * Fills the repository with a generated dataset.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new TaskRepository();
+        for (Task task : TaskManagerBenchmark.generateTasks(size, new Random(42L + size))) {
+            // The repository moves its tasks into its own store, so give it copies
+            Task copy = new Task(task.getName(), task.getDescription(), task.getCategory(),
+                    task.getDeadline(), task.getPriority());
+            copy.setComplete(task.isComplete());
+            repository.addTask(copy);
+        }
+        tasks = repository.tasks();
+        for (int i = 0; i < ids.length; i++) {
+            Task task = tasks.get((i * 7919) % tasks.size());
+            ids[i] = task.getId();
+            names[i] = task.getName();
+            prefixes[i] = names[i].substring(0, Math.min(6, names[i].length()));
+        }
+    }
+
+    @Benchmark
+    @Group("locks")
+    @GroupThreads(3)
+    public int locksRead(Reader reader) {
+        return read(reader.next++);
+    }
+
+    @Benchmark
+    @Group("locks")
+    @GroupThreads(1)
+    public boolean locksWrite() {
+        boolean changed = write();
+        LockSupport.parkNanos(writePauseMicros * 1000L);
+        return changed;
+    }
+
+    @Benchmark
+    @Group("monitor")
+    @GroupThreads(3)
+    public int monitorRead(Reader reader) {
+        synchronized (monitor) {
+            return read(reader.next++);
+        }
+    }
+
+    @Benchmark
+    @Group("monitor")
+    @GroupThreads(1)
+    public boolean monitorWrite() {
+        boolean changed;
+        synchronized (monitor) {
+            changed = write();
+        }
+        LockSupport.parkNanos(writePauseMicros * 1000L);
+        return changed;
+    }
+
+    // This method makes one of the reads the readers cycle through.
+    private int read(int i) {
+        int slot = i & 255;
+        switch (i & 3) {
+            case 0:
+                Task task = repository.findTask(ids[slot]);
+                return task == null ? 0 : task.getDeadlineEpochDay();
+            case 1:
+                return repository.taskCount();
+            case 2:
+                return repository.tasksStartingWith(prefixes[slot], 0, 20).getTotal();
+            default:
+                return repository.tasksNamed(names[slot]).size();
+        }
+    }
+
+    // This method gives a random task a random priority. Only the writer thread calls it.
+    private boolean write() {
+        Task task = tasks.get(random.nextInt(tasks.size()));
+        String priority = TaskManagerBenchmark.PRIORITIES[random.nextInt(TaskManagerBenchmark.PRIORITIES.length)];
+        return repository.updateTask(task, edited -> edited.setPriority(priority));
+    }
+}
@@ -0,0 +1,348 @@
+import java.io.*; // Importing classes for the dataset files
+import java.nio.file.Files; // Importing class for the temporary dataset directory
+import java.time.LocalDate; // Importing class for resolving "today" in filters
+import java.util.*; // Importing utility classes like List, Random, etc.
+import java.util.concurrent.ForkJoinPool; // Importing the pool text data files are parsed on
+import java.util.concurrent.TimeUnit; // Importing the unit results are reported in
+import org.openjdk.jmh.annotations.*; // Importing the JMH annotations that declare the benchmarks
+
+/**
+ *
+ * Description:
+ * The TaskManagerBenchmark class holds the JMH benchmarks for the paths TaskManager spends its
+ * time in: loading and saving the data file (text and binary), building the indexes, looking
+ * tasks up by name, filtering, sorting, the statistics screen, printing task tables, and
+ * scanning the task fields kept in columns by TaskStore against one object per task. Each
+ * benchmark runs on a synthetic dataset of the size given by the "size" parameter. The paths
+ * are measured through the classes TaskManager delegates to (the snapshots, the indexes and the
+ * renderer), since the menus themselves wait for input. The Indexes class below must add each
+ * task to the same indexes as TaskRepository.indexTask.
+ *
+ * JMH does the warm-up, runs each benchmark in a fresh JVM, and consumes the values the
+ * benchmarks return so the work cannot be optimized away. Build and run with, for example:
+ *   mvn -Pjmh package
+ *   java -jar target/benchmarks.jar TaskManagerBenchmark -p size=1000,100000 -prof gc -rf json -rff after.json
+ * "-p size=10000000" needs a large heap, given with "-jvmArgs -Xmx8g". The gc profiler adds the
+ * allocation rate and the bytes allocated per operation (gc.alloc.rate.norm). To check a change
+ * for regressions, save the results of the commit before it the same way and compare them with
+ * BenchmarkComparison. ContentionBenchmark measures reads against TaskRepository while a writer
+ * edits it, and TaskMemoryReport prints the heap each task takes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+
+    /**
+     * The same indexes TaskRepository keeps, filled the same way as TaskRepository.indexTask.
+     */
+    static class Indexes {
+        final NameIndex<Task> taskNames = new NameIndex<>(Task::getName);
+        final FuzzyNameIndex fuzzyNames = new FuzzyNameIndex();
+        final NameSearchIndex nameSearch = new NameSearchIndex();
+        final FullTextIndex fullText = new FullTextIndex();
+        final SortedTaskView tasksByName = new SortedTaskView(Comparator.comparing(Task::getName));
+        final TaskStatistics statistics = new TaskStatistics();
+        final DeadlineIndex deadlineIndex = new DeadlineIndex();
+        final TaskFilterIndex filterIndex = new TaskFilterIndex(deadlineIndex);
+        final PriorityBuckets priorityBuckets = new PriorityBuckets();
+
+        Indexes(List<Task> tasks) {
+            for (Task task : tasks) {
+                taskNames.add(task);
+                fuzzyNames.add(task.getName());
+                nameSearch.add(task);
+                fullText.add(task);
+                tasksByName.add(task);
+                statistics.taskAdded(task);
+                filterIndex.add(task);
+                deadlineIndex.add(task);
+                priorityBuckets.add(task);
+            }
+        }
+    }
+
+    /**
+     * A task kept as one object with a field per attribute, the way Task stored its fields
+     * before they moved into the columns of TaskStore. Used to compare memory and scan speed.
+     */
+    static class RowTask {
+        final int id;
+        final String name;
+        final String description;
+        final String category;
+        final int deadline;
+        final Priority priority;
+        final boolean complete;
+
+        RowTask(Task task) {
+            id = task.getId();
+            name = task.getName();
+            description = task.getDescription();
+            // Each record read from a file had its own copy of the category text
+            category = new String(task.getCategory().toCharArray());
+            deadline = task.getDeadlineEpochDay();
+            priority = task.getPriorityLevel();
+            complete = task.isComplete();
+        }
+    }
+
+    // Words the synthetic names, descriptions and categories are made from
+    static final String[] VERBS = {"Write", "Review", "Plan", "Fix", "Update", "Prepare", "Call",
+            "Email", "Design", "Test", "Deploy", "Clean", "Book", "Pay", "Read", "Draft"};
+    static final String[] NOUNS = {"report", "budget", "invoice", "slides", "release", "garden",
+            "kitchen", "client", "roadmap", "backlog", "dentist", "taxes", "newsletter", "server", "essay",
+            "meeting", "contract", "survey", "website", "inventory"};
+    static final String[] CATEGORIES = {"Work", "Home", "School", "Finance", "Health", "Errands",
+            "Side Project", "Family", "Travel", "Hobby", "Admin", "Research"};
+    static final String[] PRIORITIES = {"High", "Medium", "Low"};
+
+    // Number of tasks in the dataset
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    // The dataset and the structures built from it
+    private List<Task> tasks;
+    private List<Goal> goals;
+    private Indexes indexes;
+    private TaskStore store;
+    private List<RowTask> rowTasks;
+    private TaskTableRenderer renderer;
+
+    // The data files read by the load benchmarks and the file the save benchmarks write
+    private File directory;
+    private File textFile;
+    private File binaryFile;
+    private File saveFile;
+
+    // Queries chosen from the dataset, cycled through so each call looks up something different
+    private final String[] names = new String[256];
+    private final String[] prefixes = new String[names.length];
+    private final String[] middles = new String[names.length];
+    private final String[] typos = new String[names.length];
+    private int next;
+    private LocalDate today;
+    private int todayEpochDay;
+
+    /**
+     * Generates the dataset, builds the indexes and writes the data files.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tasks = generateTasks(size, new Random(42L + size));
+        goals = generateGoals(tasks, new Random(7L + size));
+        indexes = new Indexes(tasks);
+        store = tasks.get(0).getStore();
+        rowTasks = new ArrayList<>(size);
+        for (Task task : tasks) {
+            rowTasks.add(new RowTask(task));
+        }
+        renderer = new TaskTableRenderer(new PrintStream(OutputStream.nullOutputStream()));
+
+        directory = Files.createTempDirectory("taskmanager-bench").toFile();
+        textFile = new File(directory, "data.txt");
+        binaryFile = new File(directory, "data.bin");
+        saveFile = new File(directory, "save.tmp");
+        Files.write(textFile.toPath(), TextSnapshot.encode(0, tasks, goals));
+        Files.write(binaryFile.toPath(), BinarySnapshot.encode(0, tasks, goals));
+
+        Random random = new Random(size);
+        for (int i = 0; i < names.length; i++) {
+            String name = tasks.get(random.nextInt(tasks.size())).getName();
+            names[i] = name;
+            prefixes[i] = name.substring(0, Math.min(6, name.length()));
+            middles[i] = name.substring(name.length() / 2, Math.min(name.length(), name.length() / 2 + 4));
+            char[] chars = name.toCharArray();
+            chars[random.nextInt(chars.length)] = 'q';
+            typos[i] = new String(chars);
+        }
+        today = LocalDate.now();
+        todayEpochDay = (int) today.toEpochDay();
+    }
+
+    /**
+     * Deletes the data files.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public int loadText() throws IOException {
+        return new ParallelTextLoader(ForkJoinPool.commonPool()).load(textFile).getTasks().size();
+    }
+
+    @Benchmark
+    public int loadBinary() throws IOException {
+        return BinarySnapshot.read(binaryFile).getTasks().size();
+    }
+
+    @Benchmark
+    public int loadIndexes() {
+        return new Indexes(tasks).statistics.getTaskCount();
+    }
+
+    @Benchmark
+    public int saveText() throws IOException {
+        byte[] contents = TextSnapshot.encode(0, tasks, goals);
+        Files.write(saveFile.toPath(), contents);
+        return contents.length;
+    }
+
+    @Benchmark
+    public int saveBinary() throws IOException {
+        byte[] contents = BinarySnapshot.encode(0, tasks, goals);
+        Files.write(saveFile.toPath(), contents);
+        return contents.length;
+    }
+
+    @Benchmark
+    public Task lookupExact() {
+        return indexes.taskNames.findFirst(names[next++ & 255]);
+    }
+
+    @Benchmark
+    public int lookupPrefix() {
+        return indexes.nameSearch.startingWith(prefixes[next++ & 255], 0, 20).getTotal();
+    }
+
+    @Benchmark
+    public int lookupContains() {
+        return indexes.nameSearch.containing(middles[next++ & 255], 0, 20).getTotal();
+    }
+
+    @Benchmark
+    public int lookupFuzzy() {
+        return indexes.fuzzyNames.closest(typos[next++ & 255], 2, 5).size();
+    }
+
+    @Benchmark
+    public int lookupFullText() {
+        return indexes.fullText.search("report OR budget invoice", 20).size();
+    }
+
+    @Benchmark
+    public int filterCategory() {
+        return indexes.filterIndex.toTasks(indexes.filterIndex.category(CATEGORIES[next++ % CATEGORIES.length])).size();
+    }
+
+    @Benchmark
+    public int filterQuery() {
+        return TaskQuery.parse("category:Work AND priority:High AND open").find(indexes.filterIndex, today).size();
+    }
+
+    @Benchmark
+    public int filterOverdue() {
+        return TaskQuery.parse("overdue").find(indexes.filterIndex, today).size();
+    }
+
+    @Benchmark
+    public List<Task> sortName() {
+        return indexes.tasksByName.inOrder();
+    }
+
+    @Benchmark
+    public List<Task> sortDeadline() {
+        return indexes.deadlineIndex.inDeadlineOrder();
+    }
+
+    @Benchmark
+    public List<Task> sortPriority() {
+        return indexes.priorityBuckets.inPriorityOrder();
+    }
+
+    @Benchmark
+    public int stats() {
+        int total = indexes.statistics.getTaskCount() + indexes.statistics.getCompletedTaskCount();
+        for (Priority priority : Priority.values()) {
+            total += indexes.statistics.getPriorityCounts(priority).getPending();
+        }
+        for (TaskStatistics.Counts category : indexes.statistics.getCategoryCounts()) {
+            total += category.getPending();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int renderTable() {
+        renderer.header();
+        int rows = renderer.rows(tasks, 0, tasks.size());
+        renderer.flush();
+        return rows;
+    }
+
+    // Count the open, overdue, high-priority tasks in one category, reading every task
+    @Benchmark
+    public int scanObjects() {
+        String category = CATEGORIES[next++ % CATEGORIES.length];
+        int count = 0;
+        for (RowTask task : rowTasks) {
+            if (!task.complete && task.deadline < todayEpochDay && task.priority == Priority.HIGH
+                    && task.category.equals(category)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int scanColumns() {
+        int category = store.categoryCode(CATEGORIES[next++ % CATEGORIES.length]);
+        int count = 0;
+        for (int row = 0, rows = store.getRowCount(); row < rows; row++) {
+            // The category is an int code here, so the most selective test is also the cheapest
+            if (store.categoryCodeAt(row) == category && !store.isCompleteAt(row)
+                    && store.deadlineAt(row) < todayEpochDay && store.priorityAt(row) == Priority.HIGH) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Generates tasks with realistic names, descriptions, categories and deadlines. Their
+     * fields are kept in one store, as the tasks in TaskRepository's list are.
+     *
+     * @param size   The number of tasks
+     * @param random The source of the values
+     * @return The tasks
+     */
+    static List<Task> generateTasks(int size, Random random) {
+        List<Task> tasks = new ArrayList<>(size);
+        TaskStore store = new TaskStore(size);
+        LocalDate start = LocalDate.now().minusDays(180);
+        for (int i = 0; i < size; i++) {
+            String name = VERBS[random.nextInt(VERBS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + i;
+            StringBuilder description = new StringBuilder();
+            int words = 5 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                description.append(w == 0 ? "" : " ").append(NOUNS[random.nextInt(NOUNS.length)]);
+            }
+            Task task = new Task(store, name, description.toString(), CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    start.plusDays(random.nextInt(730)).toString(), PRIORITIES[random.nextInt(PRIORITIES.length)]);
+            task.setComplete(random.nextInt(100) < 15);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    // This method generates one goal per hundred tasks, each holding about ten tasks.
+    private static List<Goal> generateGoals(List<Task> tasks, Random random) {
+        List<Goal> goals = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, tasks.size() / 100); i++) {
+            Goal goal = new Goal("Goal " + i);
+            for (int t = 0; t < 10; t++) {
+                goal.addTask(tasks.get(random.nextInt(tasks.size())));
+            }
+            goals.add(goal);
+        }
+        return goals;
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.ArrayList; // Importing ArrayList for the tasks measured
+import java.util.List; // Importing List interface for list operations
+import java.util.Random; // Importing class for generating the dataset
+
+/**
+ *
+ * Description:
+ * The TaskMemoryReport class prints the heap each task takes when its fields are kept in the
+ * columns of a TaskStore (a Task view per row plus the columns) and when each task is one
+ * object. Heap use is not something JMH measures, so this is a plain program. The names and
+ * descriptions are shared by both layouts, so only the layout itself is counted.
+ *
+ * Run it with, for example:
+ *   java -cp target/benchmarks.jar taskmanager.TaskMemoryReport 1000 100000
+ * The arguments are the dataset sizes (default 1000, 10000 and 100000).
+ */
+public class TaskMemoryReport {
+
+    // Keeps the structures measured reachable until they are counted
+    private static volatile int sink;
+
+    /**
+     * Prints the heap per task for each dataset size.
+     *
+     * @param args The dataset sizes
+     */
+    public static void main(String[] args) {
+        String[] sizes = args.length > 0 ? args : new String[] {"1000", "10000", "100000"};
+        for (String size : sizes) {
+            int count = Integer.parseInt(size);
+            List<Task> tasks = TaskManagerBenchmark.generateTasks(count, new Random(42L + count));
+            printMemoryPerTask(tasks);
+        }
+    }
+
+    // This method measures and prints both layouts for one dataset.
+    private static void printMemoryPerTask(List<Task> tasks) {
+        long before = usedHeap();
+        TaskStore columns = new TaskStore(tasks.size());
+        List<Task> views = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            Task view = new Task(columns, task.getId(), task.getName(), task.getDescription(),
+                    task.getCategory(), task.getDeadline(), task.getPriority());
+            view.setComplete(task.isComplete());
+            views.add(view);
+        }
+        long columnBytes = usedHeap() - before;
+        sink += views.size() + columns.size();
+        views = null;
+        columns = null;
+
+        before = usedHeap();
+        List<TaskManagerBenchmark.RowTask> objects = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            objects.add(new TaskManagerBenchmark.RowTask(task));
+        }
+        long objectBytes = usedHeap() - before;
+        sink += objects.size();
+
+        System.out.printf("%d tasks: %.1f bytes per task in columns, %.1f bytes as objects%n", tasks.size(),
+                (double) columnBytes / tasks.size(), (double) objectBytes / tasks.size());
+    }
+
+    // This method gets the heap in use after asking for a full garbage collection.
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}